@@ -0,0 +1,86 @@
+package com.capitalone.dashboard.collector;
+
+import ch.qos.logback.classic.Level;
+import com.capitalone.dashboard.client.RestClient;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import com.google.common.io.Resources;
+import org.apache.commons.io.IOUtils;
+import org.bson.types.ObjectId;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Recorded GraphQL payloads and a client wired up to process them without touching the network.
+ */
+final class BenchmarkFixtures {
+    static final String REPO_URL = "http://mygithub.com/user/repo";
+    private static final String[] LOGINS = {"first-dev", "second-dev", "third-dev"};
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @return graphql/repository-page.json with the edges of its pull requests, issues and commits repeated {@code repeat} times
+     */
+    static String repositoryPage(int repeat) throws IOException, ParseException {
+        String fixture = IOUtils.toString(Resources.getResource("graphql/repository-page.json"), StandardCharsets.UTF_8);
+        JSONObject body = (JSONObject) new JSONParser().parse(fixture);
+        JSONObject repository = (JSONObject) ((JSONObject) body.get("data")).get("repository");
+        repeatEdges((JSONObject) repository.get("pullRequests"), repeat);
+        repeatEdges((JSONObject) repository.get("issues"), repeat);
+        repeatEdges((JSONObject) ((JSONObject) ((JSONObject) repository.get("ref")).get("target")).get("history"), repeat);
+        return body.toJSONString();
+    }
+
+    private static void repeatEdges(JSONObject connection, int repeat) {
+        JSONArray edges = (JSONArray) connection.get("edges");
+        JSONArray repeated = new JSONArray();
+        for (int i = 0; i < repeat; i++) {
+            repeated.addAll(edges);
+        }
+        connection.put("edges", repeated);
+    }
+
+    static GitHubSettings settings() {
+        GitHubSettings settings = new GitHubSettings();
+        settings.setOptimizeUserCallsToGithub(false);
+        settings.setFirstRunHistoryDays(100000);
+        settings.setUserCacheSize(100);
+        settings.setUserCacheTtlMinutes(24 * 60);
+        settings.setUserCacheNegativeTtlMinutes(60);
+        settings.setBulkBatchSize(500);
+        return settings;
+    }
+
+    /**
+     * A client whose user cache already knows every login in the fixtures, so processing never calls GitHub.
+     */
+    static DefaultGitHubClient client(GitHubSettings settings) {
+        UserIdentityCache userCache = new UserIdentityCache(settings, null);
+        Arrays.stream(LOGINS).forEach(login -> userCache.put(login, "CN=" + login, "User"));
+        return new DefaultGitHubClient(settings, new RestClient(() -> null), null, userCache);
+    }
+
+    static GitHubRepo repo() {
+        GitHubRepo repo = new GitHubRepo();
+        repo.setId(new ObjectId());
+        repo.setRepoUrl(REPO_URL);
+        repo.setBranch("master");
+        repo.getOptions().put("url", REPO_URL);
+        return repo;
+    }
+
+    /**
+     * Keeps per-entry info logging of the collector out of the measurements.
+     */
+    static void quietLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
@@ -0,0 +1,60 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.misc.HygieiaException;
+import com.capitalone.dashboard.model.GitHubPaging;
+import com.capitalone.dashboard.model.GitHubParsed;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.MalformedURLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the collection query: the first page of a repo, and a later page with all three connections still open.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class BuildQueryBenchmark {
+
+    private DefaultGitHubClient client;
+    private GitHubRepo repo;
+    private GitHubParsed gitHubParsed;
+    private GitHubPaging first;
+    private GitHubPaging next;
+    private DefaultGitHubClient.CollectionContext context;
+
+    @Setup
+    public void setup() throws MalformedURLException, HygieiaException {
+        BenchmarkFixtures.quietLogging();
+        client = BenchmarkFixtures.client(BenchmarkFixtures.settings());
+        repo = BenchmarkFixtures.repo();
+        repo.setLastUpdated(System.currentTimeMillis());
+        gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        first = new GitHubPaging();
+        first.setLastPage(false);
+        next = new GitHubPaging();
+        next.setLastPage(false);
+        next.setCursor("Y3Vyc29yOnYyOpK5MjAyMS0wMS0yNlQxNDoxNzo0OCswMDowMM4WN3Jk");
+        context = new DefaultGitHubClient.CollectionContext();
+    }
+
+    @Benchmark
+    public JSONObject firstPage() {
+        return client.buildQuery(true, true, false, gitHubParsed, repo, first, first, first, 10, context);
+    }
+
+    @Benchmark
+    public JSONObject nextPage() {
+        return client.buildQuery(false, false, false, gitHubParsed, repo, next, next, next, 10, context);
+    }
+}
@@ -0,0 +1,75 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.util.CommitPullMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching one run's commits to its merged pull requests, as DefaultGitHubClient does after the last page.
+ * Every pull request is merged by its own merge commit and carries {@code commitsPerPull} commits of its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class CommitPullMatcherBenchmark {
+
+    @Param({"100", "1000"})
+    private int pulls;
+
+    @Param({"5"})
+    private int commitsPerPull;
+
+    private List<Commit> commits;
+    private List<GitRequest> pullRequests;
+
+    @Setup
+    public void setup() {
+        commits = new ArrayList<>();
+        pullRequests = new ArrayList<>(pulls);
+        for (int p = 0; p < pulls; p++) {
+            List<Commit> prCommits = new ArrayList<>(commitsPerPull);
+            for (int c = 0; c < commitsPerPull; c++) {
+                Commit commit = commit("c" + p + '-' + c);
+                prCommits.add(commit);
+                commits.add(commit);
+            }
+            Commit merge = commit("m" + p);
+            commits.add(merge);
+
+            GitRequest pull = new GitRequest();
+            pull.setNumber(String.valueOf(p));
+            pull.setState("merged");
+            pull.setMergedAt(p);
+            pull.setScmMergeEventRevisionNumber(merge.getScmRevisionNumber());
+            pull.setCommits(prCommits);
+            pullRequests.add(pull);
+        }
+        Collections.shuffle(commits);
+    }
+
+    private static Commit commit(String sha) {
+        Commit commit = new Commit();
+        commit.setScmRevisionNumber(sha);
+        return commit;
+    }
+
+    @Benchmark
+    public List<Commit> matchCommitToPulls() {
+        return CommitPullMatcher.matchCommitToPulls(new ArrayList<>(commits), pullRequests);
+    }
+}
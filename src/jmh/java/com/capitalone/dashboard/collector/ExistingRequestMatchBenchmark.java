@@ -0,0 +1,76 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.ExistingRequestIndex;
+import com.capitalone.dashboard.model.GitRequest;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching one page of collected pull requests against a repo's stored requests, as
+ * GitHubCollectorTask.processPRorIssueList does: the old per-entry stream scan against
+ * the number-keyed index (index build included, it happens once per repo).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class ExistingRequestMatchBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int existing;
+
+    @Param({"100"})
+    private int collected;
+
+    private List<GitRequest> existingRequests;
+    private List<GitRequest> collectedRequests;
+
+    @Setup
+    public void setup() {
+        existingRequests = new ArrayList<>(existing);
+        for (int i = 0; i < existing; i++) {
+            GitRequest request = new GitRequest();
+            request.setId(new ObjectId());
+            request.setNumber(String.valueOf(i));
+            existingRequests.add(request);
+        }
+        // half updates of recent requests, half new ones
+        collectedRequests = new ArrayList<>(collected);
+        for (int i = 0; i < collected; i++) {
+            GitRequest request = new GitRequest();
+            request.setNumber(String.valueOf(existing - collected / 2 + i));
+            collectedRequests.add(request);
+        }
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        for (GitRequest entry : collectedRequests) {
+            Optional<GitRequest> match = existingRequests.stream().filter(r -> Objects.equals(r.getNumber(), entry.getNumber())).findFirst();
+            blackhole.consume(match.map(GitRequest::getId).orElse(null));
+        }
+    }
+
+    @Benchmark
+    public void indexed(Blackhole blackhole) {
+        ExistingRequestIndex index = ExistingRequestIndex.of(existingRequests);
+        for (GitRequest entry : collectedRequests) {
+            blackhole.consume(index.findId(entry.getNumber()));
+        }
+    }
+}
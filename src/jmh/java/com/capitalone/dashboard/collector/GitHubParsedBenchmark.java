@@ -0,0 +1,39 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.misc.HygieiaException;
+import com.capitalone.dashboard.model.GitHubParsed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.MalformedURLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a repo URL into its API and GraphQL endpoints, which happens for every repo on every run,
+ * against looking it up in the shared cache of parsed urls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class GitHubParsedBenchmark {
+
+    @Param({"https://github.com/org/repo.git", "https://github.example.com/org/repo", "https://ghe.example.com:8443/context/path/org/repo"})
+    private String url;
+
+    @Benchmark
+    public GitHubParsed parse() throws MalformedURLException, HygieiaException {
+        return new GitHubParsed(url);
+    }
+
+    @Benchmark
+    public GitHubParsed cached() throws MalformedURLException, HygieiaException {
+        return GitHubParsed.of(url);
+    }
+}
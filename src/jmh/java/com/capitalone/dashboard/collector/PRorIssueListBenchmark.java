@@ -0,0 +1,123 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.ExistingRequestIndex;
+import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import com.capitalone.dashboard.repository.GitHubBulkRepositoryImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.types.ObjectId;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GitHubCollectorTask saving one run's pull requests against an in-memory Mongo that already holds
+ * {@code existing} of them: half of each batch updates stored requests, half are new.
+ * Building the existing-request index is measured separately, as it happens once per repo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class PRorIssueListBenchmark {
+
+    @Param({"1000", "10000"})
+    private int existing;
+
+    @Param({"100"})
+    private int collected;
+
+    private MongoServer server;
+    private MongoClient client;
+    private GitHubBulkRepositoryImpl bulkRepository;
+    private GitHubCollectorTask task;
+    private GitHubRepo repo;
+    private ExistingRequestIndex index;
+    private List<GitRequest> entries;
+    private ObjectId[] newIds;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.quietLogging();
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ':' + address.getPort());
+        bulkRepository = new GitHubBulkRepositoryImpl(new MongoTemplate(client, "dashboarddb"));
+
+        GitHubSettings settings = BenchmarkFixtures.settings();
+        task = new GitHubCollectorTask(null, null, null, null, null, null, settings, null, null, bulkRepository,
+                Mockito.mock(RepoSharding.class), Mockito.mock(RepoWorkQueue.class));
+        repo = BenchmarkFixtures.repo();
+
+        List<GitRequest> stored = new ArrayList<>(existing);
+        for (int i = 0; i < existing; i++) {
+            stored.add(pull(i));
+        }
+        bulkRepository.upsertGitRequests(stored, settings.getBulkBatchSize());
+        index = bulkRepository.findExistingRequests(repo.getId(), "pull");
+
+        // new requests keep their ids across invocations so repeated runs upsert them instead of growing the collection
+        newIds = new ObjectId[collected];
+        for (int i = 0; i < collected; i++) {
+            newIds[i] = new ObjectId();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void collect() {
+        entries = new ArrayList<>(collected);
+        for (int i = 0; i < collected; i++) {
+            int number = existing - collected / 2 + i;
+            GitRequest entry = pull(number);
+            entry.setUpdatedAt(System.nanoTime());
+            if (number >= existing) entry.setId(newIds[i]);
+            entries.add(entry);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.shutdown();
+    }
+
+    private GitRequest pull(int number) {
+        GitRequest pull = new GitRequest();
+        pull.setNumber(String.valueOf(number));
+        pull.setRequestType("pull");
+        pull.setState("open");
+        pull.setUpdatedAt(number);
+        pull.setScmUrl(repo.getRepoUrl());
+        pull.setScmBranch(repo.getBranch());
+        pull.setCollectorItemId(repo.getId());
+        return pull;
+    }
+
+    @Benchmark
+    public int processPRorIssueList() {
+        return task.processPRorIssueList(repo, entries, index, "pull");
+    }
+
+    @Benchmark
+    public ExistingRequestIndex findExistingRequests() {
+        return bulkRepository.findExistingRequests(repo.getId(), "pull");
+    }
+}
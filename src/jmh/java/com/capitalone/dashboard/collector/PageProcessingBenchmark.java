@@ -0,0 +1,79 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.misc.HygieiaException;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
+import com.capitalone.dashboard.model.GitHubPaging;
+import com.capitalone.dashboard.model.GitHubParsed;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DefaultGitHubClient turning one decoded page of the recorded fixture into pull requests, commits and issues,
+ * with every user already in the user cache. Each op starts from a fresh collection context; processPullRequest and
+ * processIssues complete the requests they are given, so they get a freshly decoded page per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class PageProcessingBenchmark {
+
+    @Param({"1", "25"})
+    private int repeat;
+
+    private DefaultGitHubClient client;
+    private GitHubRepo repo;
+    private GitHubParsed gitHubParsed;
+    private ResponseEntity<String> response;
+    private RepositoryPage page;
+    private RepositoryPage freshPage;
+    private JSONObject query;
+
+    @Setup
+    public void setup() throws IOException, ParseException, HygieiaException {
+        BenchmarkFixtures.quietLogging();
+        client = BenchmarkFixtures.client(BenchmarkFixtures.settings());
+        repo = BenchmarkFixtures.repo();
+        gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        response = new ResponseEntity<>(BenchmarkFixtures.repositoryPage(repeat), HttpStatus.OK);
+        page = GraphQLResponse.of(response, RepositoryPageDecoder.INSTANCE).getData();
+        query = new JSONObject();
+    }
+
+    @Setup(Level.Invocation)
+    public void decodePage() {
+        freshPage = GraphQLResponse.of(response, RepositoryPageDecoder.INSTANCE).getData();
+    }
+
+    @Benchmark
+    public GitHubPaging processPullRequest() throws MalformedURLException, HygieiaException {
+        return client.processPullRequest(freshPage.getPullRequests(), repo, ExistingRequestIndex.empty(), query, new DefaultGitHubClient.CollectionContext());
+    }
+
+    @Benchmark
+    public GitHubPaging processCommits() {
+        return client.processCommits(page.getCommits(), repo, new DefaultGitHubClient.CollectionContext());
+    }
+
+    @Benchmark
+    public GitHubPaging processIssues() {
+        return client.processIssues(freshPage.getIssues(), gitHubParsed, ExistingRequestIndex.empty(), 0, new DefaultGitHubClient.CollectionContext());
+    }
+}
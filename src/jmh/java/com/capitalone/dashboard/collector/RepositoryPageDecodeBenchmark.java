@@ -0,0 +1,58 @@
+package com.capitalone.dashboard.collector;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding one page of the collection query, built from the recorded graphql/repository-page.json fixture by
+ * repeating its edges: json-simple parsing the body twice (data, then errors), the Jackson tree of
+ * GraphQLResponse, and the streaming RepositoryPageDecoder. Run with -prof gc for bytes allocated per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class RepositoryPageDecodeBenchmark {
+
+    @Param({"1", "25", "100"})
+    private int repeat;
+
+    private ResponseEntity<String> response;
+
+    @Setup
+    public void setup() throws IOException, ParseException {
+        response = new ResponseEntity<>(BenchmarkFixtures.repositoryPage(repeat), HttpStatus.OK);
+    }
+
+    @Benchmark
+    public Object jsonSimpleTwice() throws ParseException {
+        JSONObject data = (JSONObject) ((JSONObject) new JSONParser().parse(response.getBody())).get("data");
+        Object errors = ((JSONObject) new JSONParser().parse(response.getBody())).get("errors");
+        return errors == null ? data : errors;
+    }
+
+    @Benchmark
+    public JSONObject jacksonTree() {
+        return GraphQLResponse.of(response).getData();
+    }
+
+    @Benchmark
+    public RepositoryPage streaming() {
+        return GraphQLResponse.of(response, RepositoryPageDecoder.INSTANCE).getData();
+    }
+}
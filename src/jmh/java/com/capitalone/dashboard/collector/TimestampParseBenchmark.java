@@ -0,0 +1,37 @@
+package com.capitalone.dashboard.collector;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting a GitHub timestamp to epoch millis: Joda's general ISO-8601 parser, as getTimeStampMills did,
+ * against GitHubTimestamps. The second timestamp is not in GitHub's fixed form and takes the fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class TimestampParseBenchmark {
+
+    @Param({"2021-01-26T14:17:48Z", "2021-01-26T14:17:48.123+02:00"})
+    private String timestamp;
+
+    @Benchmark
+    public long joda() {
+        return new DateTime(timestamp).getMillis();
+    }
+
+    @Benchmark
+    public long gitHubTimestamps() {
+        return GitHubTimestamps.toEpochMillis(timestamp);
+    }
+}
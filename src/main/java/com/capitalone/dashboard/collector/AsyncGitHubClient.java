@@ -0,0 +1,88 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.client.RestClient;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
+import com.capitalone.dashboard.model.RepoCollectionResult;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import com.capitalone.dashboard.repository.UserEntitlementsRepository;
+import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * GitHubClient that collects each repo as a chain of CompletableFutures instead of a blocking page loop.
+ * Page requests run on github.asyncIoThreads threads and page processing on github.asyncWorkerThreads threads,
+ * and a repo holds no thread while it waits for its next page, so many repos share a few threads.
+ * With github.splitStreams the commit, pull request and issue streams of a repo are chained side by side on the same pools.
+ * The RestClient underneath is blocking; the I/O pool is what absorbs that.
+ * Enabled with github.asyncClient=true, DefaultGitHubClient is used otherwise.
+ */
+@Component
+@ConditionalOnProperty(prefix = "github", name = "asyncClient", havingValue = "true")
+public class AsyncGitHubClient extends DefaultGitHubClient {
+    private final ExecutorService ioExecutor;
+    private final ExecutorService workerExecutor;
+    private final boolean splitStreams;
+
+    @Autowired
+    public AsyncGitHubClient(GitHubSettings settings, RestClient restClient,
+                             UserEntitlementsRepository userEntitlementsRepository, UserIdentityCache userCache) {
+        super(settings, restClient, userEntitlementsRepository, userCache);
+        this.ioExecutor = WorkerExecutors.newDaemonPool("github-io-", settings.getAsyncIoThreads());
+        this.workerExecutor = WorkerExecutors.newDaemonPool("github-page-", settings.getAsyncWorkerThreads());
+        this.splitStreams = settings.isSplitStreams();
+    }
+
+    @Override
+    public CompletableFuture<RepoCollectionResult> fireGraphQLAsync(GitHubRepo repo, boolean firstRun, ExistingRequestIndex existingPulls,
+                                                                    ExistingRequestIndex existingIssues, int offsetMinutes, PageCommitter committer) {
+        CollectionContext context = new CollectionContext(committer);
+        CompletableFuture<JSONObject> firstQuery;
+        if (splitStreams) {
+            firstQuery = supplyChecked(() -> {
+                prepareCollection(repo, firstRun, existingPulls, existingIssues, offsetMinutes, context);
+                return collectStreams(context, ioExecutor, workerExecutor);
+            }, workerExecutor).thenCompose(Function.identity());
+        } else {
+            firstQuery = supplyChecked(() -> startCollection(repo, firstRun, existingPulls, existingIssues, offsetMinutes, context), workerExecutor);
+        }
+        return firstQuery
+                .thenCompose(query -> collectPages(query, null, context))
+                .thenApply(done -> {
+                    finishCollection(context);
+                    return collectionResult(context);
+                })
+                .whenComplete((result, error) -> storePageSize(context));
+    }
+
+    /**
+     * Fetches the page of {@code query}, processes it, then continues with the query it yields until there is none.
+     * The page expected next is requested before this one is processed, so its download overlaps the processing.
+     * Each step is scheduled when the previous one completes, so no thread waits in between.
+     */
+    private CompletableFuture<Void> collectPages(JSONObject query, PrefetchedPage prefetched, CollectionContext context) {
+        if (query == null) return CompletableFuture.completedFuture(null);
+        return pageFor(query, prefetched, context, ioExecutor)
+                .thenCompose(page -> supplyChecked(() -> {
+                    // a page without data is asked for again, as the blocking loop does
+                    if (page == null) return collectPages(query, null, context);
+                    PrefetchedPage next = prefetchNextPage(page, context, ioExecutor);
+                    return collectPages(processPage(page, query, context), next, context);
+                }, workerExecutor))
+                .thenCompose(Function.identity());
+    }
+
+    @Override
+    @PreDestroy
+    public void shutdown() {
+        super.shutdown();
+        ioExecutor.shutdownNow();
+        workerExecutor.shutdownNow();
+    }
+}
@@ -2,6 +2,7 @@ package com.capitalone.dashboard.collector;
 
 import com.capitalone.dashboard.client.RestClient;
 import com.capitalone.dashboard.client.RestUserInfo;
+import com.capitalone.dashboard.collector.PullRequestNode.PullRequestCommit;
 import com.capitalone.dashboard.misc.HygieiaException;
 import com.capitalone.dashboard.model.AuthType;
 import com.capitalone.dashboard.model.ChangeRepoResponse;
@@ -10,13 +11,16 @@ import com.capitalone.dashboard.model.CollectorItemMetadata;
 import com.capitalone.dashboard.model.CollectorType;
 import com.capitalone.dashboard.model.Comment;
 import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
 import com.capitalone.dashboard.model.CommitStatus;
 import com.capitalone.dashboard.model.CommitType;
 import com.capitalone.dashboard.model.GitHubPaging;
 import com.capitalone.dashboard.model.GitHubParsed;
 import com.capitalone.dashboard.model.GitHubRateLimit;
+import com.capitalone.dashboard.model.GitHubUserIdentity;
 import com.capitalone.dashboard.model.GitRequest;
 import com.capitalone.dashboard.model.MergeEvent;
+import com.capitalone.dashboard.model.RepoCollectionResult;
 import com.capitalone.dashboard.model.Review;
 import com.capitalone.dashboard.model.UserEntitlements;
 import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
@@ -26,7 +30,6 @@ import com.capitalone.dashboard.util.Encryption;
 import com.capitalone.dashboard.util.EncryptionException;
 import com.capitalone.dashboard.util.GithubGraphQLQuery;
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
@@ -37,6 +40,7 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -44,6 +48,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URLDecoder;
@@ -51,13 +57,27 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -67,6 +87,7 @@ import java.util.stream.Stream;
  * Subversion repositories.
  */
 @Component
+@ConditionalOnProperty(prefix = "github", name = "asyncClient", havingValue = "false", matchIfMissing = true)
 @SuppressWarnings("PMD.ExcessiveClassLength")
 public class DefaultGitHubClient implements GitHubClient {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultGitHubClient.class);
@@ -79,21 +100,116 @@ public class DefaultGitHubClient implements GitHubClient {
     public static final String X_POLL_INTERVAL = "X-Poll-Interval";
     public static final String BAD_GATEWAY = "502";
     private static final String ENTITLEMENT_TYPE = "distinguishedName";
+    private static final String USER_ALIAS = "u";
+    // QUERY_END, also asking what the query cost
+    private static final String QUERY_END_WITH_COST = "  }\n  rateLimit {\n    cost\n  }\n}\n";
+    // first pages of the pull request and issue streams, which have no cursor yet and no commit history to filter
+    private static final String QUERY_BASE_PULL_ONLY_FIRST = "query ($owner: String!, $name: String!, $branch: String!, $fetchCount: Int!) {\n  repository(owner: $owner, name: $name) {\n";
+    private static final String QUERY_BASE_ISSUE_ONLY_FIRST = "query ($owner: String!, $name: String!, $fetchCount: Int!) {\n  repository(owner: $owner, name: $name) {\n";
 
     private final GitHubSettings settings;
     private final RestClient restClient;
     private final UserEntitlementsRepository userEntitlementsRepository;
+    private final UserIdentityCache userCache;
+    // caps concurrent GitHub calls across all repos, null when unlimited
+    private final Semaphore inFlightRequests;
+    // runs /users/{login} lookups in parallel, null when lookups stay on the calling thread
+    private final ExecutorService userLookupExecutor;
+    // runs the requests for pages fetched ahead and for split streams, null when both are off
+    private final ExecutorService pageExecutor;
 
-    private List<Commit> commits;
-    private List<GitRequest> pullRequests;
-    private List<GitRequest> issues;
-    private Map<String, String> ldapMap;
-    private Map<String, String> authorTypeMap;
     private final List<Pattern> commitExclusionPatterns = new ArrayList<>();
 
     private static final int FIRST_RUN_HISTORY_DEFAULT = 14;
     private static final long ONE_DAY_IN_MILLISECONDS = 24 * 60 * 60 * 1000;
-    private GitHubRateLimit rateLimit = null;
+    // the collector's tokens, each paced against its own GraphQL and REST budgets
+    private final GitHubTokenPool tokens;
+
+    /**
+     * Working state of a single fireGraphQL call. Each call gets its own, so the client itself holds no per-repo data.
+     */
+    static final class CollectionContext {
+        private List<Commit> commits = new LinkedList<>();
+        private final List<GitRequest> pullRequests = new LinkedList<>();
+        private final List<GitRequest> issues = new LinkedList<>();
+        // null outside of a repo collection, buildQuery then uses github.fetchCount
+        private PageSizer pageSizer;
+
+        // the repo being collected and what startCollection worked out for it
+        private GitHubRepo repo;
+        private boolean firstRun;
+        private ExistingRequestIndex existingPulls;
+        private ExistingRequestIndex existingIssues;
+        private int offsetMinutes;
+        private GitHubParsed gitHubParsed;
+        private String password;
+        private String personalAccessToken;
+        private long historyTimeStamp;
+        private int loopCount;
+        // where each stream starts: its checkpoint cursor, or for pull requests and issues what isThereNewPRorIssue found
+        private final Map<PageStream, GitHubPaging> starts = new EnumMap<>(PageStream.class);
+        // null unless pages are committed as they come; stream contexts share the repo's checkpoint and lock
+        private PageCommitter committer;
+        private RepoCheckpoint checkpoint;
+        private Object commitLock = this;
+        // how much of the lists above has been handed to the committer
+        private int committedCommits;
+        private int committedPulls;
+        private int committedIssues;
+        // github.streamPages: committed pages leave the lists, and only what later steps need of them is kept
+        private boolean streaming;
+        private final StreamedPages streamed = new StreamedPages();
+        // the per-stream contexts when github.splitStreams is on
+        private final List<CollectionContext> streams = new ArrayList<>();
+        // set once pull requests, commits and issues are in and commits of merged pull requests are collected
+        private boolean missingCommits;
+        private int missingCommitCount;
+        private String firstRunSince;
+
+        CollectionContext() {
+        }
+
+        CollectionContext(PageCommitter committer) {
+            this.committer = committer;
+        }
+    }
+
+    /**
+     * What committed pages took out of a context's lists with github.streamPages: counts for the logs, and what the
+     * missing-commits pass and the repo offset time would otherwise have read from the pull requests.
+     */
+    static final class StreamedPages {
+        private int commits;
+        private int pulls;
+        private int issues;
+        private boolean mergedPulls;
+        private long oldestPullUpdatedAt;
+        private long repoOffsetTime;
+
+        void add(List<Commit> pageCommits, List<GitRequest> pagePulls, List<GitRequest> pageIssues) {
+            commits += pageCommits.size();
+            pulls += pagePulls.size();
+            issues += pageIssues.size();
+            mergedPulls |= pagePulls.stream().anyMatch(pr -> "merged".equalsIgnoreCase(pr.getState()));
+            pagePulls.forEach(pr -> oldestPullUpdatedAt = oldest(oldestPullUpdatedAt, pr.getUpdatedAt()));
+            repoOffsetTime = oldest(repoOffsetTime, getRepoOffsetTime(pagePulls));
+        }
+
+        void add(StreamedPages other) {
+            commits += other.commits;
+            pulls += other.pulls;
+            issues += other.issues;
+            mergedPulls |= other.mergedPulls;
+            oldestPullUpdatedAt = oldest(oldestPullUpdatedAt, other.oldestPullUpdatedAt);
+            repoOffsetTime = oldest(repoOffsetTime, other.repoOffsetTime);
+        }
+
+        // 0 is unknown, not the oldest
+        private static long oldest(long a, long b) {
+            if (a == 0) return b;
+            return b == 0 ? a : Math.min(a, b);
+        }
+    }
 
     public static class RedirectedStatus {
         private boolean isRedirected = false;
@@ -118,10 +234,19 @@ public class DefaultGitHubClient implements GitHubClient {
 
     @Autowired
     public DefaultGitHubClient(GitHubSettings settings, RestClient restClient,
-                               UserEntitlementsRepository userEntitlementsRepository) {
+                               UserEntitlementsRepository userEntitlementsRepository, UserIdentityCache userCache) {
         this.settings = settings;
         this.restClient = restClient;
         this.userEntitlementsRepository = userEntitlementsRepository;
+        this.userCache = userCache;
+        this.tokens = new GitHubTokenPool(settings);
+        this.inFlightRequests = settings.getMaxInFlightRequests() > 0 ? new Semaphore(settings.getMaxInFlightRequests(), true) : null;
+        this.userLookupExecutor = settings.isVirtualThreads() ? WorkerExecutors.newVirtualThreadExecutor() : null;
+        if (!settings.isPipelinePages() && !settings.isSplitStreams()) {
+            this.pageExecutor = null;
+        } else {
+            this.pageExecutor = userLookupExecutor != null ? userLookupExecutor : WorkerExecutors.newCachedDaemonPool("github-prefetch-");
+        }
 
         if (!CollectionUtils.isEmpty(settings.getNotBuiltCommits())) {
             settings.getNotBuiltCommits().stream().map(regExStr -> Pattern.compile(regExStr, Pattern.CASE_INSENSITIVE)).forEach(commitExclusionPatterns::add);
@@ -132,39 +257,6 @@ public class DefaultGitHubClient implements GitHubClient {
         return settings.getFetchCount();
     }
 
-    @Override
-    public List<Commit> getCommits() {
-        return commits;
-    }
-
-    @Override
-    public List<GitRequest> getPulls() {
-        return pullRequests;
-    }
-
-    @Override
-    public List<GitRequest> getIssues() {
-        return issues;
-    }
-
-
-    protected void setLdapMap(Map<String, String> ldapMap) {
-        this.ldapMap = ldapMap;
-    }
-
-    protected Map<String, String> getLdapMap() {
-        return ldapMap;
-    }
-
-    protected void setAuthorTypeMap(Map<String, String> authorTypeMap) {
-        this.authorTypeMap = authorTypeMap;
-    }
-
-    protected Map<String, String> getAuthorTypeMap() {
-        return authorTypeMap;
-    }
-
-
     @Override
     public ChangeRepoResponse getChangedRepos(long lastEventId, long lastEventTimeStamp) throws MalformedURLException, HygieiaException {
         Set<GitHubParsed> changedRepos = new HashSet<>();
@@ -200,7 +292,7 @@ public class DefaultGitHubClient implements GitHubClient {
                 }
                 JSONObject repoObject = (JSONObject) jsonObject.get("repo");
                 String url = str(repoObject,"url");
-                GitHubParsed gitHubParsed = new GitHubParsed(url);
+                GitHubParsed gitHubParsed = GitHubParsed.of(url);
                 changedRepos.add(gitHubParsed);
             }
             if (!CollectionUtils.isEmpty(jsonArray)) {
@@ -267,121 +359,562 @@ public class DefaultGitHubClient implements GitHubClient {
         return nextPageUrl;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (userLookupExecutor != null) userLookupExecutor.shutdownNow();
+        if (pageExecutor != null) pageExecutor.shutdownNow();
+    }
+
     @Override
-    @SuppressWarnings("PMD.ExcessiveMethodLength")
-    public void fireGraphQL(GitHubRepo repo, boolean firstRun, Map<Long, String> existingPRMap, Map<Long, String> existingIssueMap, int offSetMinutes) throws MalformedURLException, HygieiaException {
-        // format URL
-        String repoUrl = (String) repo.getOptions().get("url");
-        GitHubParsed gitHubParsed = new GitHubParsed(repoUrl);
+    public RepoCollectionResult fireGraphQL(GitHubRepo repo, boolean firstRun, ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, int offSetMinutes) throws MalformedURLException, HygieiaException {
+        return fireGraphQL(repo, firstRun, existingPulls, existingIssues, offSetMinutes, null);
+    }
 
+    @Override
+    public RepoCollectionResult fireGraphQL(GitHubRepo repo, boolean firstRun, ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, int offSetMinutes,
+                                            PageCommitter committer) throws MalformedURLException, HygieiaException {
+        CollectionContext context = new CollectionContext(committer);
+        try {
+            JSONObject query;
+            if (settings.isSplitStreams()) {
+                prepareCollection(repo, firstRun, existingPulls, existingIssues, offSetMinutes, context);
+                query = await(collectStreams(context, pageExecutor, pageExecutor));
+            } else {
+                query = startCollection(repo, firstRun, existingPulls, existingIssues, offSetMinutes, context);
+            }
+            PrefetchedPage prefetched = null;
+            while (query != null) {
+                RepositoryPage page = prefetched == null ? fetchPage(query, context) : await(pageFor(query, prefetched, context, pageExecutor));
+                prefetched = null;
+                if (page != null) {
+                    prefetched = prefetchNextPage(page, context, pageExecutor);
+                    query = processPage(page, query, context);
+                }
+            }
+            finishCollection(context);
+        } finally {
+            storePageSize(context);
+        }
+        return collectionResult(context);
+    }
 
-        commits = new LinkedList<>();
-        pullRequests = new LinkedList<>();
-        issues = new LinkedList<>();
-        ldapMap = new HashMap<>();
-        authorTypeMap = new HashMap<>();
-        long historyTimeStamp = getTimeStampMills(getRunDate(repo, firstRun, false, offSetMinutes));
+    /**
+     * Sets the context up for one repo and builds the query of its first page.
+     */
+    JSONObject startCollection(GitHubRepo repo, boolean firstRun, ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, int offSetMinutes,
+                               CollectionContext context) throws MalformedURLException, HygieiaException {
+        prepareCollection(repo, firstRun, existingPulls, existingIssues, offSetMinutes, context);
+        // a stored checkpoint of the combined query has a cursor for every stream it did not finish
+        boolean resumed = context.checkpoint != null && context.checkpoint.getPages() > 0;
+
+        JSONObject query = buildQuery(!resumed, firstRun, false, context.gitHubParsed, repo, context.starts.get(PageStream.COMMITS),
+                context.starts.get(PageStream.PULLS), context.starts.get(PageStream.ISSUES), offSetMinutes, context);
+        if (query == null) return startMissingCommits(context);
+        LOG.info(String.format("Repo=%s, FireGrapQL BuildQuery String=%s", repo.getRepoUrl(), query.toString()));
+        return query;
+    }
 
-        String decryptedPassword = decryptString(repo.getPassword(), settings.getKey(), GitHubRepo.PASSWORD, repo);
+    /**
+     * Sets the context up for one repo and checks whether it has new pull requests and issues.
+     */
+    void prepareCollection(GitHubRepo repo, boolean firstRun, ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, int offSetMinutes,
+                           CollectionContext context) throws MalformedURLException, HygieiaException {
+        // format URL
+        String repoUrl = (String) repo.getOptions().get("url");
+        context.repo = repo;
+        context.firstRun = firstRun;
+        context.existingPulls = existingPulls;
+        context.existingIssues = existingIssues;
+        context.offsetMinutes = offSetMinutes;
+        // private copy: getDataFromRestCallPost updates it in place when the repo was redirected
+        context.gitHubParsed = new GitHubParsed(repoUrl);
+        context.streaming = context.committer != null && settings.isStreamPages();
+        context.checkpoint = resumableCheckpoint(repo, firstRun, context);
+        if (context.checkpoint != null) {
+            LOG.info("Resuming " + repo.getRepoUrl() + " after " + context.checkpoint.getPages() + " saved pages of the run started at "
+                    + new DateTime(context.checkpoint.getStartedAt()));
+            // the watermarks of the interrupted run, so the resumed pages continue the same history
+            if (firstRun) context.firstRunSince = context.checkpoint.getSince();
+            context.historyTimeStamp = context.checkpoint.getHistoryTimeStamp();
+        } else {
+            String since = getRunDate(repo, firstRun, false, offSetMinutes, context);
+            context.historyTimeStamp = getTimeStampMills(since);
+            if (context.committer != null && settings.isCheckpointPages()) {
+                context.checkpoint = new RepoCheckpoint(System.currentTimeMillis(), firstRun, since, context.historyTimeStamp);
+            }
+        }
+
+        context.password = decryptString(repo.getPassword(), settings.getKey(), GitHubRepo.PASSWORD, repo);
         String personalAccessToken = (String) repo.getOptions().get("personalAccessToken");
-        String decryptPersonalAccessToken = decryptString(personalAccessToken, settings.getKey(), GitHubRepo.PERSONAL_ACCESS_TOKEN, repo);
-        boolean alldone = false;
+        context.personalAccessToken = decryptString(personalAccessToken, settings.getKey(), GitHubRepo.PERSONAL_ACCESS_TOKEN, repo);
+        context.pageSizer = PageSizer.forRepo(settings, repo);
 
-        GitHubPaging dummyPRPaging = isThereNewPRorIssue(gitHubParsed, repo, 
-        		decryptedPassword, 
-        		decryptPersonalAccessToken, existingPRMap, "pull", firstRun);
-        GitHubPaging dummyIssuePaging = isThereNewPRorIssue(gitHubParsed, repo, decryptedPassword, decryptPersonalAccessToken, existingIssueMap, "issue", firstRun);
-        GitHubPaging dummyCommitPaging = new GitHubPaging();
-        dummyCommitPaging.setLastPage(false);
+        GitHubPaging commitStart = context.checkpoint == null ? null : context.checkpoint.paging(PageStream.COMMITS);
+        if (commitStart == null) {
+            commitStart = new GitHubPaging();
+            commitStart.setLastPage(false);
+        }
+        GitHubPaging pullStart = context.checkpoint == null ? null : context.checkpoint.paging(PageStream.PULLS);
+        if (pullStart == null) {
+            pullStart = isThereNewPRorIssue(context.gitHubParsed, repo, context.password, context.personalAccessToken, existingPulls, "pull", firstRun);
+        }
+        GitHubPaging issueStart = context.checkpoint == null ? null : context.checkpoint.paging(PageStream.ISSUES);
+        if (issueStart == null) {
+            issueStart = isThereNewPRorIssue(context.gitHubParsed, repo, context.password, context.personalAccessToken, existingIssues, "issue", firstRun);
+        }
+        context.starts.put(PageStream.COMMITS, commitStart);
+        context.starts.put(PageStream.PULLS, pullStart);
+        context.starts.put(PageStream.ISSUES, issueStart);
+    }
 
-        JSONObject query = buildQuery(true, firstRun, false, gitHubParsed, repo, dummyCommitPaging, dummyPRPaging, dummyIssuePaging, offSetMinutes);
-        LOG.info(String.format("Repo=%s, FireGrapQL BuildQuery String=%s", repo.getRepoUrl(), query.toString()));
-        int loopCount = 1;
-        while (!alldone) {
-            LOG.debug(String.format("Executing loop %d for %s/%s", loopCount, gitHubParsed.getOrgName(), gitHubParsed.getRepoName()));
-             JSONObject data = getDataFromRestCallPost(gitHubParsed, repo, decryptedPassword, decryptPersonalAccessToken, query);
+    /**
+     * @return the checkpoint an unfinished run of the same kind left on the repo, or null to start from the beginning
+     */
+    private RepoCheckpoint resumableCheckpoint(GitHubRepo repo, boolean firstRun, CollectionContext context) {
+        if (context.committer == null || !settings.isCheckpointPages()) return null;
+        RepoCheckpoint checkpoint = RepoCheckpoint.of(repo);
+        if (checkpoint == null || checkpoint.isFirstRun() != firstRun) return null;
+        // split streams may stop between first pages, which the combined query cannot continue from
+        if (!settings.isSplitStreams() && Arrays.stream(PageStream.values()).anyMatch(stream -> checkpoint.paging(stream) == null)) {
+            LOG.info("Not resuming " + repo.getRepoUrl() + " with a combined query, its checkpoint has streams without a cursor");
+            return null;
+        }
+        return checkpoint;
+    }
 
-            if (data != null) {
-                JSONObject repository = (JSONObject) data.get("repository");
+    /**
+     * Hands what the last page added to the committer, then moves the checkpoint past the page and has it saved.
+     * With github.streamPages the page then leaves the context, so a repo holds no more than a page or two at a time.
+     * Does nothing unless github.checkpointPages or github.streamPages is on.
+     */
+    private static void commitPage(CollectionContext context, Consumer<RepoCheckpoint> advance) {
+        if (context.committer == null) return;
+        List<Commit> commits = new ArrayList<>(context.commits.subList(context.committedCommits, context.commits.size()));
+        List<GitRequest> pulls = new ArrayList<>(context.pullRequests.subList(context.committedPulls, context.pullRequests.size()));
+        List<GitRequest> issues = new ArrayList<>(context.issues.subList(context.committedIssues, context.issues.size()));
+        // links what the page itself can; the task's orphan commit pass links commits to pull requests of other pages
+        CommitPullMatcher.matchCommitToPulls(commits, pulls);
+        // the streams of a repo share its checkpoint and commit one at a time
+        synchronized (context.commitLock) {
+            context.committer.commit(context.repo, new RepoCollectionResult(commits, pulls, issues, null, 0));
+            if (context.checkpoint != null) {
+                advance.accept(context.checkpoint);
+                context.checkpoint.pageSaved();
+                context.checkpoint.store(context.repo);
+                context.committer.checkpoint(context.repo);
+            }
+        }
+        if (context.streaming) {
+            context.streamed.add(commits, pulls, issues);
+            context.commits.clear();
+            context.pullRequests.clear();
+            context.issues.clear();
+        }
+        context.committedCommits = context.commits.size();
+        context.committedPulls = context.pullRequests.size();
+        context.committedIssues = context.issues.size();
+    }
+
+    /**
+     * The parts of a repo paged on their own when github.splitStreams is on, with the repo option of their page size.
+     */
+    enum PageStream {
+        COMMITS("commitPageSize"), PULLS("pullPageSize"), ISSUES("issuePageSize");
 
-                GitHubPaging pullPaging = processPullRequest((JSONObject) repository.get("pullRequests"), repo, existingPRMap, query);
-                LOG.debug(String.format("--- Processed %d of total %d pull requests", pullPaging.getCurrentCount(), pullPaging.getTotalCount()));
+        private final String pageSizeOption;
 
-                GitHubPaging issuePaging = processIssues((JSONObject) repository.get("issues"), gitHubParsed, existingIssueMap, historyTimeStamp);
-                LOG.debug(String.format("--- Processed %d of total %d issues", issuePaging.getCurrentCount(), issuePaging.getTotalCount()));
+        PageStream(String pageSizeOption) {
+            this.pageSizeOption = pageSizeOption;
+        }
+    }
 
-                GitHubPaging commitPaging = processCommits((JSONObject) repository.get("ref"), repo);
-                LOG.debug(String.format("--- Processed %d commits", commitPaging.getCurrentCount()));
+    /**
+     * Pages the commits, pull requests and issues of a prepared repo as separate queries running side by side,
+     * each with its own cursor and page sizer, then adds what they collected to the context in that order.
+     * Pages are requested on {@code io} and processed on {@code worker}; the same executor may serve both.
+     *
+     * @return the first query for missing commits, or null if there is nothing to look for, see startMissingCommits
+     */
+    CompletableFuture<JSONObject> collectStreams(CollectionContext context, Executor io, Executor worker) {
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (PageStream stream : PageStream.values()) {
+            GitHubPaging start = context.starts.get(stream);
+            if (start.isLastPage()) continue;
+            running.add(supplyChecked(() -> {
+                CollectionContext streamContext = streamContext(context, stream);
+                JSONObject query = buildStreamQuery(stream, start.getCursor() == null ? null : start, streamContext);
+                LOG.info(String.format("Repo=%s, %s stream BuildQuery String=%s", context.repo.getRepoUrl(), stream, query.toString()));
+                return collectStream(stream, query, streamContext, io, worker);
+            }, worker).thenCompose(Function.identity()));
+        }
+        return CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).thenApply(done -> {
+            for (CollectionContext streamContext : context.streams) {
+                context.commits.addAll(streamContext.commits);
+                context.pullRequests.addAll(streamContext.pullRequests);
+                context.issues.addAll(streamContext.issues);
+                context.streamed.add(streamContext.streamed);
+                context.loopCount += streamContext.loopCount;
+            }
+            return startMissingCommits(context);
+        });
+    }
 
-                alldone = Stream.of(pullPaging, commitPaging, issuePaging).allMatch(GitHubPaging::isLastPage);
+    /**
+     * A context for one stream of a prepared repo, sharing its settings but collecting into lists of its own.
+     */
+    private CollectionContext streamContext(CollectionContext context, PageStream stream) throws MalformedURLException, HygieiaException {
+        CollectionContext streamContext = new CollectionContext();
+        streamContext.repo = context.repo;
+        streamContext.firstRun = context.firstRun;
+        streamContext.existingPulls = context.existingPulls;
+        streamContext.existingIssues = context.existingIssues;
+        streamContext.offsetMinutes = context.offsetMinutes;
+        // redirects rewrite it in place, so each stream has its own
+        streamContext.gitHubParsed = new GitHubParsed(context.gitHubParsed.getUrl());
+        streamContext.password = context.password;
+        streamContext.personalAccessToken = context.personalAccessToken;
+        streamContext.historyTimeStamp = context.historyTimeStamp;
+        streamContext.firstRunSince = context.firstRunSince;
+        streamContext.pageSizer = PageSizer.forRepo(settings, context.repo, stream.pageSizeOption);
+        streamContext.committer = context.committer;
+        streamContext.checkpoint = context.checkpoint;
+        streamContext.commitLock = context.commitLock;
+        streamContext.streaming = context.streaming;
+        synchronized (context.streams) {
+            context.streams.add(streamContext);
+        }
+        return streamContext;
+    }
 
-                query = buildQuery(false, firstRun, false, gitHubParsed, repo, commitPaging, pullPaging, issuePaging, offSetMinutes);
+    /**
+     * Fetches the pages of one stream one after the other, processing each before asking for the next.
+     */
+    private CompletableFuture<Void> collectStream(PageStream stream, JSONObject query, CollectionContext context, Executor io, Executor worker) {
+        if (query == null) return CompletableFuture.completedFuture(null);
+        return pageFor(query, null, context, io)
+                .thenCompose(page -> supplyChecked(() -> {
+                    // a page without data is asked for again, as the combined loop does
+                    if (page == null) return collectStream(stream, query, context, io, worker);
+                    return collectStream(stream, processStreamPage(stream, page, query, context), context, io, worker);
+                }, worker))
+                .thenCompose(Function.identity());
+    }
 
-                loopCount++;
-            }
+    /**
+     * Turns one page of a stream into model objects.
+     *
+     * @return the query of the stream's next page, or null when the stream is done
+     */
+    JSONObject processStreamPage(PageStream stream, RepositoryPage page, JSONObject query, CollectionContext context) throws MalformedURLException, HygieiaException {
+        GitHubRepo repo = context.repo;
+        context.loopCount++;
+        LOG.debug(String.format("Processing %s page %d for %s/%s", stream, context.loopCount, context.gitHubParsed.getOrgName(), context.gitHubParsed.getRepoName()));
+        resolveUsers(context.gitHubParsed, repo, context.password, context.personalAccessToken, pageLogins(page));
+
+        GitHubPaging paging;
+        switch (stream) {
+            case PULLS:
+                paging = processPullRequest(page.getPullRequests(), repo, context.existingPulls, query, context);
+                LOG.debug(String.format("--- Processed %d of total %d pull requests", paging.getCurrentCount(), paging.getTotalCount()));
+                break;
+            case ISSUES:
+                paging = processIssues(page.getIssues(), context.gitHubParsed, context.existingIssues, context.historyTimeStamp, context);
+                LOG.debug(String.format("--- Processed %d of total %d issues", paging.getCurrentCount(), paging.getTotalCount()));
+                break;
+            default:
+                paging = processCommits(page.getCommits(), repo, context);
+                LOG.debug(String.format("--- Processed %d commits", paging.getCurrentCount()));
+                break;
         }
+        GitHubPaging processed = paging;
+        commitPage(context, checkpoint -> checkpoint.advance(stream, processed));
+        return paging.isLastPage() ? null : buildStreamQuery(stream, paging, context);
+    }
 
-        if (CollectionUtils.isEmpty(pullRequests)) {
-            LOG.info("-- Collected 0 Pull Requests at repo: " + repoUrl + "; Branch: " + repo.getBranch());
-        } else {
-            long oldestPRTimestamp = pullRequests.get(pullRequests.size() - 1).getUpdatedAt();
-            LOG.info("-- Collected " + commits.size() + " Commits, " + pullRequests.size() + " Pull Requests, " + issues.size() + " Issues since " + getDate(new DateTime(oldestPRTimestamp), 0, 0));
+    /**
+     * The query for a page of one stream, the first one when {@code paging} is null.
+     */
+    JSONObject buildStreamQuery(PageStream stream, GitHubPaging paging, CollectionContext context) {
+        GitHubPaging next = paging;
+        if (next == null) {
+            next = new GitHubPaging();
+            next.setLastPage(false);
+        }
+        switch (stream) {
+            case PULLS:
+                if (paging == null) {
+                    return firstStreamQuery(QUERY_BASE_PULL_ONLY_FIRST + GithubGraphQLQuery.QUERY_PULL_HEADER_FIRST + GithubGraphQLQuery.QUERY_PULL_MAIN, true, context);
+                }
+                return buildQuery(false, context.firstRun, false, context.gitHubParsed, context.repo, lastPage(), next, lastPage(), context.offsetMinutes, context);
+            case ISSUES:
+                if (paging == null) {
+                    return firstStreamQuery(QUERY_BASE_ISSUE_ONLY_FIRST + GithubGraphQLQuery.QUERY_ISSUES_HEADER_FIRST + GithubGraphQLQuery.QUERY_ISSUE_MAIN, false, context);
+                }
+                return buildQuery(false, context.firstRun, false, context.gitHubParsed, context.repo, lastPage(), lastPage(), next, context.offsetMinutes, context);
+            default:
+                return buildQuery(paging == null, context.firstRun, false, context.gitHubParsed, context.repo, next, lastPage(), lastPage(), context.offsetMinutes, context);
         }
+    }
 
-        if (firstRun) {
-            connectCommitToPulls();
-            return;
+    private JSONObject firstStreamQuery(String query, boolean withBranch, CollectionContext context) {
+        JSONObject variableJSON = new JSONObject();
+        variableJSON.put("owner", context.gitHubParsed.getOrgName());
+        variableJSON.put("name", context.gitHubParsed.getRepoName());
+        if (withBranch) variableJSON.put("branch", context.repo.getBranch());
+        variableJSON.put("fetchCount", context.pageSizer.size());
+        JSONObject jsonObj = new JSONObject();
+        jsonObj.put("query", query + GithubGraphQLQuery.QUERY_END);
+        jsonObj.put("variables", variableJSON.toString());
+        return withQueryCost(jsonObj, context);
+    }
+
+    /**
+     * Turns one fetched page into model objects.
+     *
+     * @return the query of the next page, the first query for missing commits once all pull requests, commits
+     * and issues are in, or null when the repo is done
+     */
+    JSONObject processPage(RepositoryPage page, JSONObject query, CollectionContext context) throws MalformedURLException, HygieiaException {
+        GitHubRepo repo = context.repo;
+        GitHubParsed gitHubParsed = context.gitHubParsed;
+        context.loopCount++;
+        LOG.debug(String.format("Processing page %d for %s/%s", context.loopCount, gitHubParsed.getOrgName(), gitHubParsed.getRepoName()));
+        resolveUsers(gitHubParsed, repo, context.password, context.personalAccessToken, pageLogins(page));
+
+        if (context.missingCommits) {
+            GitHubPaging commitPaging = processCommits(page.getCommits(), repo, context);
+            LOG.debug(String.format("--- Processed %d commits", commitPaging.getCurrentCount()));
+            context.missingCommitCount += commitPaging.getCurrentCount();
+            // no stream moves, the checkpoint only records the page was saved
+            commitPage(context, checkpoint -> { });
+            if (commitPaging.isLastPage()) return null;
+            return buildQuery(false, context.firstRun, true, gitHubParsed, repo, commitPaging, lastPage(), lastPage(), context.offsetMinutes, context);
+        }
+
+        GitHubPaging pullPaging = processPullRequest(page.getPullRequests(), repo, context.existingPulls, query, context);
+        LOG.debug(String.format("--- Processed %d of total %d pull requests", pullPaging.getCurrentCount(), pullPaging.getTotalCount()));
+
+        GitHubPaging issuePaging = processIssues(page.getIssues(), gitHubParsed, context.existingIssues, context.historyTimeStamp, context);
+        LOG.debug(String.format("--- Processed %d of total %d issues", issuePaging.getCurrentCount(), issuePaging.getTotalCount()));
+
+        GitHubPaging commitPaging = processCommits(page.getCommits(), repo, context);
+        LOG.debug(String.format("--- Processed %d commits", commitPaging.getCurrentCount()));
+
+        commitPage(context, checkpoint -> {
+            checkpoint.advance(PageStream.COMMITS, commitPaging);
+            checkpoint.advance(PageStream.PULLS, pullPaging);
+            checkpoint.advance(PageStream.ISSUES, issuePaging);
+        });
+        if (Stream.of(pullPaging, commitPaging, issuePaging).allMatch(GitHubPaging::isLastPage)) {
+            return startMissingCommits(context);
+        }
+        return buildQuery(false, context.firstRun, false, gitHubParsed, repo, commitPaging, pullPaging, issuePaging, context.offsetMinutes, context);
+    }
+
+    /**
+     * The query processPage will return after this page, worked out from the paging info and the stop conditions of
+     * processPullRequest, processIssues and processCommits alone, without the nested calls and user lookups that make
+     * processing slow. Null when processing will end the pass instead of asking for another page of it.
+     */
+    JSONObject predictNextQuery(RepositoryPage page, CollectionContext context) {
+        long cutoff = historyCutoff();
+        GitHubPaging commitPaging = peek(page.getCommits(), commit -> commit.getScmCommitTimestamp() < cutoff);
+        if (context.missingCommits) {
+            if (commitPaging.isLastPage()) return null;
+            return buildQuery(false, context.firstRun, true, context.gitHubParsed, context.repo, commitPaging, lastPage(), lastPage(), context.offsetMinutes, context);
+        }
+        GitHubPaging pullPaging = peek(page.getPullRequests(), node -> context.existingPulls.containsUpdate(node.getPull().getUpdatedAt(), node.getPull().getNumber())
+                || node.getPull().getUpdatedAt() < cutoff);
+        GitHubPaging issuePaging = peek(page.getIssues(), issue -> issue.getUpdatedAt() < context.historyTimeStamp
+                || context.existingIssues.containsUpdate(issue.getUpdatedAt(), issue.getNumber()));
+        if (Stream.of(pullPaging, commitPaging, issuePaging).allMatch(GitHubPaging::isLastPage)) return null;
+        return buildQuery(false, context.firstRun, false, context.gitHubParsed, context.repo, commitPaging, pullPaging, issuePaging, context.offsetMinutes, context);
+    }
+
+    private static <T> GitHubPaging peek(GraphQLConnection<T> connection, Predicate<T> stops) {
+        GitHubPaging paging = new GitHubPaging();
+        paging.setLastPage(true);
+        if (connection == null) return paging;
+        paging.setCursor(connection.getEndCursor());
+        paging.setLastPage(!connection.hasNextPage() || connection.getNodes().stream().anyMatch(stops));
+        return paging;
+    }
+
+    /**
+     * Requests the page predictNextQuery expects after this one, so it downloads while this one is processed.
+     *
+     * @return the request in flight, or null if no page is expected or github.pipelinePages is off
+     */
+    PrefetchedPage prefetchNextPage(RepositoryPage page, CollectionContext context, Executor executor) {
+        if (!settings.isPipelinePages()) return null;
+        JSONObject next = predictNextQuery(page, context);
+        if (next == null) return null;
+        // a copy to compare with, a 502 rewrites the page size of the query in flight
+        return new PrefetchedPage(new JSONObject(next), supplyChecked(() -> fetchPage(next, context), executor));
+    }
+
+    /**
+     * The page of {@code query}: the prefetched one if it was requested for the same page, a new request otherwise.
+     * A prefetch of the wrong page is cancelled, so it is never sent if it has not started yet.
+     */
+    CompletableFuture<RepositoryPage> pageFor(JSONObject query, PrefetchedPage prefetched, CollectionContext context, Executor executor) {
+        if (prefetched == null) return supplyChecked(() -> fetchPage(query, context), executor);
+        if (samePage(prefetched.query, query)) return prefetched.page;
+        LOG.debug("Discarding prefetched page of " + context.repo.getRepoUrl() + ", processing asked for a different one");
+        prefetched.page.cancel(true);
+        return supplyChecked(() -> fetchPage(query, context), executor);
+    }
+
+    /**
+     * @return true if both queries ask for the same page, whatever their page size
+     */
+    static boolean samePage(JSONObject a, JSONObject b) {
+        if (!Objects.equals(a.get("query"), b.get("query"))) return false;
+        try {
+            JSONParser parser = new JSONParser();
+            JSONObject aVariables = (JSONObject) parser.parse(str(a, "variables"));
+            JSONObject bVariables = (JSONObject) parser.parse(str(b, "variables"));
+            aVariables.remove("fetchCount");
+            bVariables.remove("fetchCount");
+            return aVariables.equals(bVariables);
+        } catch (ParseException e) {
+            return false;
         }
+    }
 
-        List<GitRequest> allMergedPrs = pullRequests.stream().filter(pr -> "merged".equalsIgnoreCase(pr.getState())).collect(Collectors.toList());
-        if (CollectionUtils.isEmpty(allMergedPrs)) {
-            connectCommitToPulls();
-            return;
+    /**
+     * Waits for a page or for the streams of a repo, rethrowing what their requests threw.
+     */
+    private static <T> T await(CompletableFuture<T> result) throws MalformedURLException, HygieiaException {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MalformedURLException) throw (MalformedURLException) cause;
+            if (cause instanceof HygieiaException) throw (HygieiaException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
         }
+    }
 
-        //find missing commits for subsequent runs
-        alldone = false;
+    @FunctionalInterface
+    interface CheckedSupplier<T> {
+        T get() throws Exception;
+    }
 
-        dummyPRPaging = new GitHubPaging();
-        dummyPRPaging.setLastPage(true);
-        dummyIssuePaging = new GitHubPaging();
-        dummyIssuePaging.setLastPage(true);
-        dummyCommitPaging = new GitHubPaging();
-        dummyCommitPaging.setLastPage(false);
+    /**
+     * supplyAsync for calls that throw checked exceptions, which complete the future exceptionally.
+     */
+    static <T> CompletableFuture<T> supplyChecked(CheckedSupplier<T> call, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
 
-        query = buildQuery(true, firstRun, true, gitHubParsed, repo, dummyCommitPaging, dummyPRPaging, dummyIssuePaging, offSetMinutes);
+    /**
+     * A page requested before the previous one was processed, and the query it was requested with.
+     */
+    static final class PrefetchedPage {
+        private final JSONObject query;
+        private final CompletableFuture<RepositoryPage> page;
 
-        loopCount = 1;
-        int missingCommitCount = 0;
-        while (!alldone) {
-            JSONObject data = getDataFromRestCallPost(gitHubParsed, repo, decryptedPassword, decryptPersonalAccessToken, query);
-            if (data != null) {
-                JSONObject repository = (JSONObject) data.get("repository");
+        PrefetchedPage(JSONObject query, CompletableFuture<RepositoryPage> page) {
+            this.query = query;
+            this.page = page;
+        }
+    }
 
-                GitHubPaging commitPaging = processCommits((JSONObject) repository.get("ref"), repo);
-                LOG.debug(String.format("--- Processed %d commits", commitPaging.getCurrentCount()));
+    /**
+     * Pull requests, commits and issues are in. On subsequent runs, commits of merged pull requests may have been
+     * missed by the since-filtered commit history, so those are collected next.
+     *
+     * @return the first query for missing commits, or null if there is nothing to look for
+     */
+    private JSONObject startMissingCommits(CollectionContext context) {
+        GitHubRepo repo = context.repo;
+        StreamedPages streamed = context.streamed;
+        if (CollectionUtils.isEmpty(context.pullRequests) && streamed.pulls == 0) {
+            LOG.info("-- Collected 0 Pull Requests at repo: " + repo.getOptions().get("url") + "; Branch: " + repo.getBranch());
+        } else {
+            long oldestPRTimestamp = CollectionUtils.isEmpty(context.pullRequests) ? streamed.oldestPullUpdatedAt
+                    : StreamedPages.oldest(streamed.oldestPullUpdatedAt, context.pullRequests.get(context.pullRequests.size() - 1).getUpdatedAt());
+            LOG.info("-- Collected " + (context.commits.size() + streamed.commits) + " Commits, " + (context.pullRequests.size() + streamed.pulls) + " Pull Requests, "
+                    + (context.issues.size() + streamed.issues) + " Issues since " + getDate(new DateTime(oldestPRTimestamp), 0, 0));
+        }
+
+        if (context.firstRun) return null;
 
-                alldone = commitPaging.isLastPage();
-                missingCommitCount += commitPaging.getCurrentCount();
+        boolean anyMerged = streamed.mergedPulls || context.pullRequests.stream().anyMatch(pr -> "merged".equalsIgnoreCase(pr.getState()));
+        if (!anyMerged) return null;
+
+        //find missing commits for subsequent runs
+        context.missingCommits = true;
+        GitHubPaging dummyCommitPaging = new GitHubPaging();
+        dummyCommitPaging.setLastPage(false);
+        return buildQuery(true, context.firstRun, true, context.gitHubParsed, repo, dummyCommitPaging, lastPage(), lastPage(), context.offsetMinutes, context);
+    }
 
-                query = buildQuery(false, firstRun, true, gitHubParsed, repo, commitPaging, dummyPRPaging, dummyIssuePaging, offSetMinutes);
+    private static GitHubPaging lastPage() {
+        GitHubPaging paging = new GitHubPaging();
+        paging.setLastPage(true);
+        return paging;
+    }
 
-                loopCount++;
+    void finishCollection(CollectionContext context) {
+        if (context.missingCommits) {
+            if (CollectionUtils.isEmpty(context.commits)) {
+                LOG.info("-- Collected " + context.missingCommitCount + " Missing Commits At Repo: " + context.repo.getOptions().get("url") + "; Branch: " + context.repo.getBranch());
+            } else {
+                long oldestCommitTimestamp = context.commits.get(context.commits.size() - 1).getScmCommitTimestamp();
+                LOG.info("-- Collected " + context.missingCommitCount + " Missing Commits, since " + getDate(new DateTime(oldestCommitTimestamp), 0, 0));
             }
         }
+        connectCommitToPulls(context);
+    }
 
-        if (CollectionUtils.isEmpty(commits)) {
-            LOG.info("-- Collected 0 Missing Commits At Repo: " + repoUrl + "; Branch: " + repo.getBranch());
-        } else {
-            long oldestCommitTimestamp = commits.get(commits.size() - 1).getScmCommitTimestamp();
-            LOG.info("-- Collected " + missingCommitCount + " Missing Commits, since " + getDate(new DateTime(oldestCommitTimestamp), 0, 0));
+    /**
+     * Keeps what the page sizer learned in the repo's options.
+     */
+    static void storePageSize(CollectionContext context) {
+        if (context.pageSizer != null && context.repo != null) context.pageSizer.store(context.repo);
+        synchronized (context.streams) {
+            context.streams.forEach(DefaultGitHubClient::storePageSize);
         }
+    }
+
+    RepoCollectionResult collectionResult(CollectionContext context) {
+        if (LOG.isDebugEnabled()) LOG.debug(userCache.stats());
+        return new RepoCollectionResult(context.commits, context.pullRequests, context.issues,
+                rateLimitSnapshot(), getRepoOffsetTime(context));
+    }
 
-        connectCommitToPulls();
+    /**
+     * Fetches one page of the collection query and lets the page sizer learn from how it went.
+     */
+    RepositoryPage fetchPage(JSONObject query, CollectionContext context) throws MalformedURLException, HygieiaException {
+        GitHubRepo repo = context.repo;
+        long start = System.currentTimeMillis();
+        RepositoryPage page = getDataFromRestCallPost(context.gitHubParsed, repo, context.password, context.personalAccessToken, query, RepositoryPageDecoder.INSTANCE, context.pageSizer);
+        long latency = System.currentTimeMillis() - start;
+        int cost = page == null ? 0 : page.getQueryCost();
+        int previousSize = context.pageSizer.size();
+        context.pageSizer.onPage(latency, cost);
+        if (context.pageSizer.size() != previousSize) {
+            LOG.info("Page size of " + repo.getRepoUrl() + " changed from " + previousSize + " to " + context.pageSizer.size()
+                    + " after a page of " + latency + " ms, cost=" + cost);
+        }
+        return page;
     }
 
     public RedirectedStatus checkForRedirectedRepo(GitHubRepo repo) throws MalformedURLException, HygieiaException {
-        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        GitHubParsed gitHubParsed = GitHubParsed.of(repo.getRepoUrl());
         String query = gitHubParsed.getBaseApiUrl() + "repos/" + gitHubParsed.getOrgName() + '/' + gitHubParsed.getRepoName();
 
         ResponseEntity<String> response = makeRestCallGet(query);
@@ -396,7 +929,7 @@ public class DefaultGitHubClient implements GitHubClient {
     }
 
     @SuppressWarnings("PMD.NPathComplexity")
-    private GitHubPaging isThereNewPRorIssue(GitHubParsed gitHubParsed, GitHubRepo repo, String decryptedPassword, String personalAccessToken, Map<Long, String> existingMap, String type, boolean firstRun) throws MalformedURLException, HygieiaException {
+    private GitHubPaging isThereNewPRorIssue(GitHubParsed gitHubParsed, GitHubRepo repo, String decryptedPassword, String personalAccessToken, ExistingRequestIndex existing, String type, boolean firstRun) throws MalformedURLException, HygieiaException {
 
         GitHubPaging paging = new GitHubPaging();
         paging.setLastPage(true);
@@ -434,8 +967,7 @@ public class DefaultGitHubClient implements GitHubClient {
             String updated = str(node, "updatedAt");
             long updatedTimestamp = getTimeStampMills(updated);
             String number = str(node, "number");
-            boolean stop =
-                    ((!MapUtils.isEmpty(existingMap) && existingMap.get(updatedTimestamp) != null) && (Objects.equals(existingMap.get(updatedTimestamp), number)));
+            boolean stop = existing.containsUpdate(updatedTimestamp, number);
             if (stop) {
                 break;
             }
@@ -457,25 +989,25 @@ public class DefaultGitHubClient implements GitHubClient {
      * In all other cases it is a new commit
      */
 
-    private void connectCommitToPulls() {
-        commits = CommitPullMatcher.matchCommitToPulls(commits, pullRequests);
+    private static void connectCommitToPulls(CollectionContext context) {
+        context.commits = CommitPullMatcher.matchCommitToPulls(context.commits, context.pullRequests);
     }
 
     @SuppressWarnings({"PMD.ExcessiveMethodLength", "PMD.NcssMethodCount"})
-    private JSONObject buildQuery(boolean firstTime, boolean firstRun, boolean missingCommits, GitHubParsed gitHubParsed, GitHubRepo repo, GitHubPaging commitPaging, GitHubPaging pullPaging, GitHubPaging issuePaging, int offsetMinutes) {
+    JSONObject buildQuery(boolean firstTime, boolean firstRun, boolean missingCommits, GitHubParsed gitHubParsed, GitHubRepo repo, GitHubPaging commitPaging, GitHubPaging pullPaging, GitHubPaging issuePaging, int offsetMinutes, CollectionContext context) {
         CollectionMode mode = getCollectionMode(firstTime, commitPaging, pullPaging, issuePaging);
         JSONObject jsonObj = new JSONObject();
         String query;
         JSONObject variableJSON = new JSONObject();
         variableJSON.put("owner", gitHubParsed.getOrgName());
         variableJSON.put("name", gitHubParsed.getRepoName());
-        variableJSON.put("fetchCount", getFetchCount());
+        variableJSON.put("fetchCount", context.pageSizer != null ? context.pageSizer.size() : getFetchCount());
 
         LOG.debug("Collection Mode =" + mode.toString());
         switch (mode) {
             case FirstTimeAll:
                 query = GithubGraphQLQuery.QUERY_BASE_ALL_FIRST + GithubGraphQLQuery.QUERY_PULL_HEADER_FIRST + GithubGraphQLQuery.QUERY_PULL_MAIN + GithubGraphQLQuery.QUERY_COMMIT_HEADER_FIRST + GithubGraphQLQuery.QUERY_COMMIT_MAIN + GithubGraphQLQuery.QUERY_ISSUES_HEADER_FIRST + GithubGraphQLQuery.QUERY_ISSUE_MAIN + GithubGraphQLQuery.QUERY_END;
-                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits, offsetMinutes));
+                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits, offsetMinutes, context));
                 variableJSON.put("branch", repo.getBranch());
                 jsonObj.put("query", query);
                 jsonObj.put("variables", variableJSON.toString());
@@ -484,7 +1016,7 @@ public class DefaultGitHubClient implements GitHubClient {
 
             case FirstTimeCommitOnly:
                 query = GithubGraphQLQuery.QUERY_BASE_ALL_FIRST + GithubGraphQLQuery.QUERY_COMMIT_HEADER_FIRST + GithubGraphQLQuery.QUERY_COMMIT_MAIN + GithubGraphQLQuery.QUERY_END;
-                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits, offsetMinutes));
+                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits, offsetMinutes, context));
                 variableJSON.put("branch", repo.getBranch());
                 jsonObj.put("query", query);
                 jsonObj.put("variables", variableJSON.toString());
@@ -492,7 +1024,7 @@ public class DefaultGitHubClient implements GitHubClient {
 
             case FirstTimeCommitAndIssue:
                 query = GithubGraphQLQuery.QUERY_BASE_ALL_FIRST + GithubGraphQLQuery.QUERY_COMMIT_HEADER_FIRST + GithubGraphQLQuery.QUERY_COMMIT_MAIN + GithubGraphQLQuery.QUERY_ISSUES_HEADER_FIRST + GithubGraphQLQuery.QUERY_ISSUE_MAIN + GithubGraphQLQuery.QUERY_END;
-                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits, offsetMinutes));
+                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits, offsetMinutes, context));
                 variableJSON.put("branch", repo.getBranch());
                 jsonObj.put("query", query);
                 jsonObj.put("variables", variableJSON.toString());
@@ -500,7 +1032,7 @@ public class DefaultGitHubClient implements GitHubClient {
 
             case FirstTimeCommitAndPull:
                 query = GithubGraphQLQuery.QUERY_BASE_ALL_FIRST + GithubGraphQLQuery.QUERY_PULL_HEADER_FIRST + GithubGraphQLQuery.QUERY_PULL_MAIN + GithubGraphQLQuery.QUERY_COMMIT_HEADER_FIRST + GithubGraphQLQuery.QUERY_COMMIT_MAIN + GithubGraphQLQuery.QUERY_END;
-                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits,offsetMinutes));
+                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits,offsetMinutes, context));
                 variableJSON.put("branch", repo.getBranch());
                 jsonObj.put("query", query);
                 jsonObj.put("variables", variableJSON.toString());
@@ -508,7 +1040,7 @@ public class DefaultGitHubClient implements GitHubClient {
 
             case CommitOnly:
                 query = GithubGraphQLQuery.QUERY_BASE_COMMIT_ONLY_AFTER + GithubGraphQLQuery.QUERY_COMMIT_HEADER_AFTER + GithubGraphQLQuery.QUERY_COMMIT_MAIN + GithubGraphQLQuery.QUERY_END;
-                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits, offsetMinutes));
+                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits, offsetMinutes, context));
                 variableJSON.put("afterCommit", commitPaging.getCursor());
                 variableJSON.put("branch", repo.getBranch());
 
@@ -538,7 +1070,7 @@ public class DefaultGitHubClient implements GitHubClient {
                 query = GithubGraphQLQuery.QUERY_BASE_COMMIT_AND_ISSUE_AFTER + GithubGraphQLQuery.QUERY_COMMIT_HEADER_AFTER + GithubGraphQLQuery.QUERY_COMMIT_MAIN + GithubGraphQLQuery.QUERY_ISSUES_HEADER_AFTER + GithubGraphQLQuery.QUERY_ISSUE_MAIN + GithubGraphQLQuery.QUERY_END;
                 variableJSON.put("afterIssue", issuePaging.getCursor());
                 variableJSON.put("afterCommit", commitPaging.getCursor());
-                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits,offsetMinutes));
+                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits,offsetMinutes, context));
                 variableJSON.put("branch", repo.getBranch());
 
                 jsonObj.put("query", query);
@@ -548,7 +1080,7 @@ public class DefaultGitHubClient implements GitHubClient {
 
             case CommitAndPull:
                 query = GithubGraphQLQuery.QUERY_BASE_COMMIT_AND_PULL_AFTER + GithubGraphQLQuery.QUERY_PULL_HEADER_AFTER + GithubGraphQLQuery.QUERY_PULL_MAIN + GithubGraphQLQuery.QUERY_COMMIT_HEADER_AFTER + GithubGraphQLQuery.QUERY_COMMIT_MAIN + GithubGraphQLQuery.QUERY_END;
-                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits,offsetMinutes));
+                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits,offsetMinutes, context));
                 variableJSON.put("afterPull", pullPaging.getCursor());
                 variableJSON.put("afterCommit", commitPaging.getCursor());
                 variableJSON.put("branch", repo.getBranch());
@@ -569,7 +1101,7 @@ public class DefaultGitHubClient implements GitHubClient {
 
             case All:
                 query = GithubGraphQLQuery.QUERY_BASE_ALL_AFTER + GithubGraphQLQuery.QUERY_COMMIT_HEADER_AFTER + GithubGraphQLQuery.QUERY_COMMIT_MAIN + GithubGraphQLQuery.QUERY_PULL_HEADER_AFTER + GithubGraphQLQuery.QUERY_PULL_MAIN + GithubGraphQLQuery.QUERY_ISSUES_HEADER_AFTER + GithubGraphQLQuery.QUERY_ISSUE_MAIN + GithubGraphQLQuery.QUERY_END;
-                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits,offsetMinutes));
+                variableJSON.put("since", getRunDate(repo, firstRun, missingCommits,offsetMinutes, context));
                 variableJSON.put("afterPull", pullPaging.getCursor());
                 variableJSON.put("afterCommit", commitPaging.getCursor());
                 variableJSON.put("afterIssue", issuePaging.getCursor());
@@ -589,6 +1121,19 @@ public class DefaultGitHubClient implements GitHubClient {
                 break;
 
         }
+        return withQueryCost(jsonObj, context);
+    }
+
+    /**
+     * Also asks for the cost of the query when the page sizer learns from it.
+     */
+    private static JSONObject withQueryCost(JSONObject jsonObj, CollectionContext context) {
+        if (jsonObj != null && context.pageSizer != null && context.pageSizer.isAdaptive()) {
+            String query = (String) jsonObj.get("query");
+            if (query.endsWith(GithubGraphQLQuery.QUERY_END)) {
+                jsonObj.put("query", query.substring(0, query.length() - GithubGraphQLQuery.QUERY_END.length()) + QUERY_END_WITH_COST);
+            }
+        }
         return jsonObj;
     }
 
@@ -651,80 +1196,38 @@ public class DefaultGitHubClient implements GitHubClient {
     }
 
     @SuppressWarnings({"PMD.NPathComplexity"})
-    private GitHubPaging processPullRequest(JSONObject pullObject, GitHubRepo repo, Map<Long, String> prMap, JSONObject query) throws MalformedURLException, HygieiaException {
-        GitHubPaging paging = new GitHubPaging();
-        paging.setLastPage(true);
-        if (pullObject == null) return paging;
-        paging.setTotalCount(asInt(pullObject, "totalCount"));
-        JSONObject pageInfo = (JSONObject) pullObject.get("pageInfo");
-        paging.setCursor(str(pageInfo, "endCursor"));
-        paging.setLastPage(!(Boolean) pageInfo.get("hasNextPage"));
-        JSONArray edges = getArray(pullObject, "edges");
-        if (CollectionUtils.isEmpty(edges)) {
+    GitHubPaging processPullRequest(GraphQLConnection<PullRequestNode> pullObject, GitHubRepo repo, ExistingRequestIndex existingPulls, JSONObject query, CollectionContext context) throws MalformedURLException, HygieiaException {
+        GitHubPaging paging = connectionPaging(pullObject);
+        if (pullObject == null || CollectionUtils.isEmpty(pullObject.getNodes())) {
             return paging;
         }
         int localCount = 0;
-        for (Object o : edges) {
-            JSONObject node = (JSONObject) ((JSONObject) o).get("node");
-            if (node == null) break;
-            JSONObject userObject = (JSONObject) node.get("author");
-            String merged = str(node, "mergedAt");
-            String closed = str(node, "closedAt");
-            String updated = str(node, "updatedAt");
-            String created = str(node, "createdAt");
-            long createdTimestamp = getTimeStampMills(created);
-            long mergedTimestamp = getTimeStampMills(merged);
-            long closedTimestamp = getTimeStampMills(closed);
-            long updatedTimestamp = getTimeStampMills(updated);
-            GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
-            GitRequest pull = new GitRequest();
+        GitHubParsed gitHubParsed = GitHubParsed.of(repo.getRepoUrl());
+        for (PullRequestNode node : pullObject.getNodes()) {
+            GitRequest pull = node.getPull();
             //General Info
             pull.setRequestType("pull");
-            pull.setNumber(str(node, "number"));
-            pull.setUserId(str(userObject, "login"));
             pull.setScmUrl(repo.getRepoUrl());
             pull.setScmBranch(repo.getBranch());
             pull.setOrgName(gitHubParsed.getOrgName());
             pull.setRepoName(gitHubParsed.getRepoName());
-            pull.setScmCommitLog(str(node, "title"));
             pull.setTimestamp(System.currentTimeMillis());
-            pull.setCreatedAt(createdTimestamp);
-            pull.setClosedAt(closedTimestamp);
-            pull.setUpdatedAt(updatedTimestamp);
-            pull.setCountFilesChanged(asLong(node, "changedFiles"));
-            pull.setLineAdditions(asLong(node, "additions"));
-            pull.setLineDeletions(asLong(node, "deletions"));
             //Status
-            pull.setState(str(node, "state").toLowerCase());
-            JSONObject headrefJson = (JSONObject) node.get("headRef");
-            if (headrefJson != null) {
-                JSONObject targetJson = (JSONObject) headrefJson.get("target");
-                pull.setHeadSha(str(targetJson, "oid"));
-            }
-            if (!StringUtils.isEmpty(merged)) {
-                pull.setScmRevisionNumber(str((JSONObject) node.get("mergeCommit"), "oid"));
-                pull.setResolutiontime((mergedTimestamp - createdTimestamp));
+            pull.setState(pull.getState().toLowerCase());
+            if (node.isMerged()) {
+                long mergedTimestamp = pull.getMergedAt();
+                pull.setScmRevisionNumber(node.getMergeCommitSha());
+                pull.setResolutiontime((mergedTimestamp - pull.getCreatedAt()));
                 pull.setScmCommitTimestamp(mergedTimestamp);
-                pull.setMergedAt(mergedTimestamp);
-                JSONObject commitsObject = (JSONObject) node.get("commits");
-                pull.setNumberOfChanges(commitsObject != null ? asInt(commitsObject, "totalCount") : 0);
-                List<Commit> prCommits = getPRCommits(repo, commitsObject, pull);
+                GraphQLConnection<PullRequestCommit> commitsObject = node.getCommits();
+                pull.setNumberOfChanges(commitsObject != null ? commitsObject.getTotalCount() : 0);
+                List<Commit> prCommits = getPRCommits(repo, commitsObject, pull, context);
                 pull.setCommits(prCommits);
 
-                JSONObject commentData = (JSONObject) node.get("comments");
-                JSONObject reviewData = (JSONObject) node.get("reviews");
-                JSONObject commentPageInfo = (JSONObject) commentData.get("pageInfo");
-                JSONObject reviewPageInfo = (JSONObject) reviewData.get("pageInfo");
-
-                GitHubPaging commentPaging = new GitHubPaging();
-                GitHubPaging reviewPaging = new GitHubPaging();
-
-                commentPaging.setCursor(str(commentPageInfo, "endCursor"));
-                reviewPaging.setCursor(str(reviewPageInfo, "endCursor"));
-                commentPaging.setLastPage(!(Boolean) commentPageInfo.get("hasNextPage"));
-                reviewPaging.setLastPage(!(Boolean) reviewPageInfo.get("hasNextPage"));
-                commentPaging.setTotalCount(asInt(commentData,"totalCount"));
-                reviewPaging.setTotalCount(asInt(reviewData,"totalCount"));
+                GraphQLConnection<Comment> commentData = node.getComments();
+                GraphQLConnection<Review> reviewData = node.getReviews();
+                GitHubPaging commentPaging = connectionPaging(commentData);
+                GitHubPaging reviewPaging = connectionPaging(reviewData);
 
                 Boolean firstRun = true;
                 List<Comment> commentsContainer = new ArrayList<>();
@@ -735,37 +1238,34 @@ public class DefaultGitHubClient implements GitHubClient {
                         LOG.info("Making GraphQL call to collect remaining comments or reviews for repo=" + repo.getRepoUrl());
                         String decryptedPassword = decryptString(repo.getPassword(), settings.getKey(), GitHubRepo.PASSWORD, repo);
                         String decryptPersonalAccessToken = decryptString((String) repo.getOptions().get("personalAccessToken"), settings.getKey(), GitHubRepo.PERSONAL_ACCESS_TOKEN, repo);
-                        JSONObject data = null;
+                        PullRequestNode more;
 
                         try {
                             query = buildQueryForCommentsAndReviews(query, commentPaging, reviewPaging, pull.getNumber());
-                            data = getDataFromRestCallPost(gitHubParsed, repo, decryptedPassword, decryptPersonalAccessToken, query);
+                            more = getDataFromRestCallPost(gitHubParsed, repo, decryptedPassword, decryptPersonalAccessToken, query, RepositoryPageDecoder.INSTANCE, null).getPullRequest();
                         }catch(Exception e){
                             LOG.error(e.getMessage());
                             break;    // break from attempting another graphQL call and continue with PR processing
                         }
+                        if (more == null) break;
 
                         // update githubPaging, comments, reviews
-                        JSONObject repository = (JSONObject) data.get("repository");
-                        JSONObject pullRequest = (JSONObject) repository.get("pullRequest");
-                        commentData = (JSONObject) pullRequest.get("comments");
-                        reviewData = (JSONObject) pullRequest.get("reviews");
+                        commentData = more.getComments();
+                        reviewData = more.getReviews();
 
                         if(Objects.nonNull(commentData)){
-                            commentPageInfo = (JSONObject) commentData.get("pageInfo");
-                            commentPaging.setCursor(str(commentPageInfo, "endCursor"));
-                            commentPaging.setLastPage(!(Boolean) commentPageInfo.get("hasNextPage"));
+                            commentPaging.setCursor(commentData.getEndCursor());
+                            commentPaging.setLastPage(!commentData.hasNextPage());
                         }
                         else if(Objects.nonNull(reviewData)){
-                            reviewPageInfo = (JSONObject) reviewData.get("pageInfo");
-                            reviewPaging.setCursor(str(reviewPageInfo, "endCursor"));
-                            reviewPaging.setLastPage(!(Boolean) reviewPageInfo.get("hasNextPage"));
+                            reviewPaging.setCursor(reviewData.getEndCursor());
+                            reviewPaging.setLastPage(!reviewData.hasNextPage());
                         }
 
                     }
                     firstRun = false;
-                    List<Comment> comments = getComments(repo, commentData);
-                    List<Review> reviews = getReviews(repo, reviewData);
+                    List<Comment> comments = getComments(repo, commentData, context);
+                    List<Review> reviews = getReviews(repo, reviewData, context);
                     commentsContainer.addAll(comments);
                     reviewsContainer.addAll(reviews);
 
@@ -774,7 +1274,7 @@ public class DefaultGitHubClient implements GitHubClient {
                 pull.setComments(commentsContainer);
                 pull.setReviews(reviewsContainer);
 
-                MergeEvent mergeEvent = getMergeEvent(repo, pull, (JSONObject) node.get("timeline"));
+                MergeEvent mergeEvent = getMergeEvent(repo, pull, node.getMergeEvents(), context);
                 if (mergeEvent != null) {
                     pull.setScmMergeEventRevisionNumber(mergeEvent.getMergeSha());
                     pull.setMergeAuthor(mergeEvent.getMergeAuthor());
@@ -789,27 +1289,21 @@ public class DefaultGitHubClient implements GitHubClient {
                 }
             }
             // commit etc details
-            pull.setSourceBranch(str(node, "headRefName"));
-            if (node.get("headRepository") != null) {
-                JSONObject headObject = (JSONObject) node.get("headRepository");
-                GitHubParsed sourceRepoUrlParsed = new GitHubParsed(str(headObject, "url"));
+            if (node.getHeadRepositoryUrl() != null) {
+                GitHubParsed sourceRepoUrlParsed = GitHubParsed.of(node.getHeadRepositoryUrl());
                 pull.setSourceRepo(!Objects.equals("", sourceRepoUrlParsed.getOrgName()) ? String.format("%s/%s", sourceRepoUrlParsed.getOrgName(), sourceRepoUrlParsed.getRepoName()) : sourceRepoUrlParsed.getRepoName());
             }
-            if (node.get("baseRef") != null) {
-                pull.setBaseSha(str((JSONObject) ((JSONObject) node.get("baseRef")).get("target"), "oid"));
-            }
-            pull.setTargetBranch(str(node, "baseRefName"));
             pull.setTargetRepo(!Objects.equals("", gitHubParsed.getOrgName()) ? String.format("%s/%s", gitHubParsed.getOrgName(), gitHubParsed.getRepoName()) : gitHubParsed.getRepoName());
 
-            boolean stop = (!MapUtils.isEmpty(prMap) && prMap.get(pull.getUpdatedAt()) != null) && (Objects.equals(prMap.get(pull.getUpdatedAt()), pull.getNumber()));
+            boolean stop = existingPulls.containsUpdate(pull.getUpdatedAt(), pull.getNumber());
             if (stop) {
                 LOG.debug("------ Skipping pull request processing. History check is met OR Found matching entry in existing pull requests. Pull Request#" + pull.getNumber());
                 paging.setLastPage(true);
                 break;
             } else {
                 localCount++;
-                pullRequests.add(pull);
-                if (pull.getUpdatedAt() < (System.currentTimeMillis() - (long) settings.getFirstRunHistoryDays() * ONE_DAY_IN_MILLISECONDS)) {
+                context.pullRequests.add(pull);
+                if (pull.getUpdatedAt() < historyCutoff()) {
                     paging.setLastPage(true);
                     break;
                 }
@@ -819,25 +1313,37 @@ public class DefaultGitHubClient implements GitHubClient {
         return paging;
     }
 
-    @SuppressWarnings("PMD.NPathComplexity")
-    private GitHubPaging processCommits(JSONObject refObject, GitHubRepo repo) {
+    /**
+     * @return the paging of a connection, the last page if there is none
+     */
+    private static GitHubPaging connectionPaging(GraphQLConnection<?> connection) {
         GitHubPaging paging = new GitHubPaging();
-        paging.setLastPage(true); //initialize
-
-        if (refObject == null) return paging;
-
-        JSONObject target = (JSONObject) refObject.get("target");
+        paging.setLastPage(true);
+        if (connection == null) return paging;
+        paging.setTotalCount(connection.getTotalCount());
+        paging.setCursor(connection.getEndCursor());
+        paging.setLastPage(!connection.hasNextPage());
+        return paging;
+    }
 
-        if (target == null) return paging;
+    /**
+     * Pull requests and commits older than github.firstRunHistoryDays end their paging.
+     */
+    private long historyCutoff() {
+        return System.currentTimeMillis() - (long) settings.getFirstRunHistoryDays() * ONE_DAY_IN_MILLISECONDS;
+    }
 
-        JSONObject history = (JSONObject) target.get("history");
+    @SuppressWarnings("PMD.NPathComplexity")
+    GitHubPaging processCommits(GraphQLConnection<Commit> history, GitHubRepo repo, CollectionContext context) {
+        GitHubPaging paging = new GitHubPaging();
+        paging.setLastPage(true); //initialize
 
-        JSONObject pageInfo = (JSONObject) history.get("pageInfo");
+        if (history == null) return paging;
 
-        paging.setCursor(str(pageInfo, "endCursor"));
-        paging.setLastPage(!(Boolean) pageInfo.get("hasNextPage"));
+        paging.setCursor(history.getEndCursor());
+        paging.setLastPage(!history.hasNextPage());
 
-        JSONArray edges = (JSONArray) history.get("edges");
+        List<Commit> edges = history.getNodes();
 
         if (CollectionUtils.isEmpty(edges)) {
             return paging;
@@ -845,40 +1351,21 @@ public class DefaultGitHubClient implements GitHubClient {
 
         paging.setCurrentCount(edges.size());
 
-        for (Object o : edges) {
-            JSONObject node = (JSONObject) ((JSONObject) o).get("node");
-            JSONObject authorJSON = (JSONObject) node.get("author");
-            JSONObject authorUserJSON = (JSONObject) authorJSON.get("user");
-
-            String sha = str(node, "oid");
-            int changedFiles = NumberUtils.toInt(str(node, "changedFiles"));
-            int deletions = NumberUtils.toInt(str(node, "deletions"));
-            int additions = NumberUtils.toInt(str(node, "additions"));
-            String message = str(node, "message");
-            String authorName = str(authorJSON, "name");
-            String authorLogin = authorUserJSON == null ? "unknown" : str(authorUserJSON, "login");
-            String scmAuthorName = authorUserJSON == null ? null : str(authorUserJSON, "name");
-            String authorLDAPDN = getLDAPDN(repo, authorLogin);
-            Commit commit = new Commit();
+        prefetchUsers(repo, commitAuthorLogins(edges));
+
+        for (Commit commit : edges) {
+            String authorLogin = commit.getScmAuthorLogin();
             commit.setTimestamp(System.currentTimeMillis());
             commit.setScmUrl(repo.getRepoUrl());
             commit.setScmBranch(repo.getBranch());
-            commit.setScmRevisionNumber(sha);
-            commit.setScmAuthor(authorName);
-            commit.setScmAuthorName(scmAuthorName);
-            commit.setScmAuthorLogin(authorLogin);
             commit.setScmAuthorType(getAuthorType(repo, authorLogin));
-            commit.setScmAuthorLDAPDN(authorLDAPDN);
-            commit.setScmCommitLog(message);
-            commit.setScmCommitTimestamp(getTimeStampMills(str(authorJSON, "date")));
-            commit.setNumberOfChanges(changedFiles + deletions + additions);
-            List<String> parentShas = getParentShas(node);
-            commit.setScmParentRevisionNumbers(parentShas);
+            commit.setScmAuthorLDAPDN(getLDAPDN(repo, authorLogin));
+            List<String> parentShas = commit.getScmParentRevisionNumbers();
             commit.setFirstEverCommit(CollectionUtils.isEmpty(parentShas));
-            commit.setType(getCommitType(CollectionUtils.size(parentShas), message));
-            commits.add(commit);
+            commit.setType(getCommitType(CollectionUtils.size(parentShas), commit.getScmCommitLog()));
+            context.commits.add(commit);
 
-            if (commit.getScmCommitTimestamp() < (System.currentTimeMillis() - (long) settings.getFirstRunHistoryDays() * ONE_DAY_IN_MILLISECONDS)) {
+            if (commit.getScmCommitTimestamp() < historyCutoff()) {
                 paging.setLastPage(true);
                 break;
             }
@@ -887,39 +1374,25 @@ public class DefaultGitHubClient implements GitHubClient {
     }
 
 
-    private GitHubPaging processIssues(JSONObject issueObject, GitHubParsed gitHubParsed, Map<Long, String> issuesMap, long historyTimeStamp) {
+    GitHubPaging processIssues(GraphQLConnection<GitRequest> issueObject, GitHubParsed gitHubParsed, ExistingRequestIndex existingIssues, long historyTimeStamp, CollectionContext context) {
         GitHubPaging paging = new GitHubPaging();
         paging.setLastPage(true);
 
         if (issueObject == null) return paging;
 
-        paging.setTotalCount(asInt(issueObject, "totalCount"));
-        JSONObject pageInfo = (JSONObject) issueObject.get("pageInfo");
-        paging.setCursor(str(pageInfo, "endCursor"));
-        paging.setLastPage(!(Boolean) pageInfo.get("hasNextPage"));
-        JSONArray edges = getArray(issueObject, "edges");
+        paging.setTotalCount(issueObject.getTotalCount());
+        paging.setCursor(issueObject.getEndCursor());
+        paging.setLastPage(!issueObject.hasNextPage());
 
-        if (CollectionUtils.isEmpty(edges)) {
+        if (CollectionUtils.isEmpty(issueObject.getNodes())) {
             return paging;
         }
 
         int localCount = 0;
-        for (Object o : edges) {
-            JSONObject node = (JSONObject) ((JSONObject) o).get("node");
-            if (node == null) break;
-
-            String message = str(node, "title");
-            String number = str(node, "number");
-
-            JSONObject userObject = (JSONObject) node.get("author");
-            String name = str(userObject, "login");
-            String created = str(node, "createdAt");
-            String updated = str(node, "updatedAt");
-            long createdTimestamp = new DateTime(created).getMillis();
-            long updatedTimestamp = new DateTime(updated).getMillis();
-
-            GitRequest issue = new GitRequest();
-            String state = str(node, "state");
+        for (GitRequest issue : issueObject.getNodes()) {
+            long createdTimestamp = issue.getCreatedAt();
+            long updatedTimestamp = issue.getUpdatedAt();
+            String state = issue.getState();
 
             issue.setClosedAt(0);
             issue.setResolutiontime(0);
@@ -931,16 +1404,10 @@ public class DefaultGitHubClient implements GitHubClient {
                 issue.setMergedAt(updatedTimestamp);
                 issue.setResolutiontime((updatedTimestamp - createdTimestamp));
             }
-            issue.setUserId(name);
             issue.setScmUrl(gitHubParsed.getUrl());
             issue.setTimestamp(System.currentTimeMillis());
-            issue.setScmRevisionNumber(number);
-            issue.setNumber(number);
-            issue.setScmCommitLog(message);
-            issue.setCreatedAt(createdTimestamp);
-            issue.setUpdatedAt(updatedTimestamp);
+            issue.setScmRevisionNumber(issue.getNumber());
 
-            issue.setNumber(number);
             issue.setRequestType("issue");
             if (Objects.equals("CLOSED", state)) {
                 issue.setState("closed");
@@ -951,14 +1418,14 @@ public class DefaultGitHubClient implements GitHubClient {
             issue.setRepoName(gitHubParsed.getRepoName());
 
             boolean stop = (issue.getUpdatedAt() < historyTimeStamp) ||
-                    ((!MapUtils.isEmpty(issuesMap) && issuesMap.get(issue.getUpdatedAt()) != null) && (Objects.equals(issuesMap.get(issue.getUpdatedAt()), issue.getNumber())));
+                    existingIssues.containsUpdate(issue.getUpdatedAt(), issue.getNumber());
             if (stop) {
                 paging.setLastPage(true);
                 LOG.debug("------ Stopping issue processing. History check is met OR Found matching entry in existing issues. Issue#" + issue.getNumber());
                 break;
             } else {
                 //add to the list
-                issues.add(issue);
+                context.issues.add(issue);
                 localCount++;
             }
         }
@@ -966,21 +1433,13 @@ public class DefaultGitHubClient implements GitHubClient {
         return paging;
     }
 
-    private List<Comment> getComments(GitHubRepo repo, JSONObject commentsJSON) throws RestClientException {
+    private List<Comment> getComments(GitHubRepo repo, GraphQLConnection<Comment> commentsJSON, CollectionContext context) throws RestClientException {
 
         List<Comment> comments = new ArrayList<>();
         if (commentsJSON == null) {
             return comments;
         }
-        JSONArray nodes = getArray(commentsJSON, "nodes");
-        if (CollectionUtils.isEmpty(nodes)) {
-            return comments;
-        }
-        for (Object n : nodes) {
-            JSONObject node = (JSONObject) n;
-            Comment comment = new Comment();
-            comment.setBody(str(node, "bodyText"));
-            comment.setUser(str((JSONObject) node.get("author"), "login"));
+        for (Comment comment : commentsJSON.getNodes()) {
             String userType = getAuthorType(repo, comment.getUser());
             String userLDAPDN = getLDAPDN(repo, comment.getUser());
             if (StringUtils.isNotEmpty(userType)) {
@@ -989,40 +1448,23 @@ public class DefaultGitHubClient implements GitHubClient {
             if (StringUtils.isNotEmpty(userLDAPDN)) {
                 comment.setUserLDAPDN(userLDAPDN);
             }
-            comment.setCreatedAt(getTimeStampMills(str(node, "createdAt")));
-            comment.setUpdatedAt(getTimeStampMills(str(node, "updatedAt")));
-            comment.setStatus(str(node, "state"));
             comments.add(comment);
         }
         return comments;
     }
 
     @SuppressWarnings({"PMD.NPathComplexity"})
-    private List<Commit> getPRCommits(GitHubRepo repo, JSONObject commits, GitRequest pull) {
+    private List<Commit> getPRCommits(GitHubRepo repo, GraphQLConnection<PullRequestCommit> commits, GitRequest pull, CollectionContext context) {
         List<Commit> prCommits = new ArrayList<>();
 
         if (commits == null) {
             return prCommits;
         }
 
-        JSONArray nodes = (JSONArray) commits.get("nodes");
-        if (CollectionUtils.isEmpty(nodes)) {
-            return prCommits;
-        }
-        JSONObject lastCommitStatusObject = null;
+        List<CommitStatus> lastCommitStatuses = null;
         long lastCommitTime = 0L;
-        for (Object n : nodes) {
-            JSONObject c = (JSONObject) n;
-            JSONObject commit = (JSONObject) c.get("commit");
-            Commit newCommit = new Commit();
-            newCommit.setScmRevisionNumber(str(commit, "oid"));
-            newCommit.setScmCommitLog(str(commit, "message"));
-            JSONObject author = (JSONObject) commit.get("author");
-            JSONObject authorUserJSON = (JSONObject) author.get("user");
-            newCommit.setScmAuthor(str(author, "name"));
-            newCommit.setScmAuthorLogin(authorUserJSON == null ? "unknown" : str(authorUserJSON, "login"));
-            String scmAuthorName = authorUserJSON == null ? null : str(authorUserJSON, "name");
-            newCommit.setScmAuthorName(StringUtils.lowerCase(scmAuthorName));
+        for (PullRequestCommit prCommit : commits.getNodes()) {
+            Commit newCommit = prCommit.getCommit();
             String authorType = getAuthorType(repo, newCommit.getScmAuthorLogin());
             String authorLDAPDN = getLDAPDN(repo, newCommit.getScmAuthorLogin());
             if (StringUtils.isNotEmpty(authorType)) {
@@ -1031,31 +1473,26 @@ public class DefaultGitHubClient implements GitHubClient {
             if (StringUtils.isNotEmpty(authorLDAPDN)) {
                 newCommit.setScmAuthorLDAPDN(authorLDAPDN);
             }
-            newCommit.setScmCommitTimestamp(getTimeStampMills(str(author, "date")));
-            JSONObject statusObj = (JSONObject) commit.get("status");
+            List<CommitStatus> statuses = prCommit.getStatuses();
 
-            if (statusObj != null) {
+            if (statuses != null) {
                 if (lastCommitTime <= newCommit.getScmCommitTimestamp()) {
                     lastCommitTime = newCommit.getScmCommitTimestamp();
-                    lastCommitStatusObject = statusObj;
+                    lastCommitStatuses = statuses;
                 }
 
                 if (Objects.equals(newCommit.getScmRevisionNumber(), pull.getHeadSha())) {
-                    List<CommitStatus> commitStatuses = getCommitStatuses(statusObj);
+                    List<CommitStatus> commitStatuses = getCommitStatuses(statuses);
                     if (!CollectionUtils.isEmpty(commitStatuses)) {
                         pull.setCommitStatuses(commitStatuses);
                     }
                 }
             }
-            int changedFiles = NumberUtils.toInt(str(commit, "changedFiles"));
-            int deletions = NumberUtils.toInt(str(commit, "deletions"));
-            int additions = NumberUtils.toInt(str(commit, "additions"));
-            newCommit.setNumberOfChanges(changedFiles + deletions + additions);
             prCommits.add(newCommit);
         }
 
         if (StringUtils.isEmpty(pull.getHeadSha()) || CollectionUtils.isEmpty(pull.getCommitStatuses())) {
-            List<CommitStatus> commitStatuses = getCommitStatuses(lastCommitStatusObject);
+            List<CommitStatus> commitStatuses = getCommitStatuses(lastCommitStatuses);
             if (!CollectionUtils.isEmpty(commitStatuses)) {
                 pull.setCommitStatuses(commitStatuses);
             }
@@ -1063,33 +1500,23 @@ public class DefaultGitHubClient implements GitHubClient {
         return prCommits;
     }
 
-    private static List<CommitStatus> getCommitStatuses(JSONObject statusObject) throws RestClientException {
+    /**
+     * @return the first status of each context
+     */
+    private static List<CommitStatus> getCommitStatuses(List<CommitStatus> contexts) throws RestClientException {
 
         Map<String, CommitStatus> statuses = new HashMap<>();
 
-        if (statusObject == null) {
-            return new ArrayList<>();
-        }
-
-        JSONArray contexts = (JSONArray) statusObject.get("contexts");
-
         if (CollectionUtils.isEmpty(contexts)) {
             return new ArrayList<>();
         }
-        for (Object ctx : contexts) {
-            String ctxStr = str((JSONObject) ctx, "context");
-            if ((ctxStr != null) && !statuses.containsKey(ctxStr)) {
-                CommitStatus status = new CommitStatus();
-                status.setContext(ctxStr);
-                status.setDescription(str((JSONObject) ctx, "description"));
-                status.setState(str((JSONObject) ctx, "state"));
-                statuses.put(ctxStr, status);
-            }
+        for (CommitStatus status : contexts) {
+            statuses.putIfAbsent(status.getContext(), status);
         }
         return new ArrayList<>(statuses.values());
     }
 
-    private List<Review> getReviews(GitHubRepo repo, JSONObject reviewObject) throws RestClientException {
+    private List<Review> getReviews(GitHubRepo repo, GraphQLConnection<Review> reviewObject, CollectionContext context) throws RestClientException {
 
         List<Review> reviews = new ArrayList<>();
 
@@ -1097,19 +1524,7 @@ public class DefaultGitHubClient implements GitHubClient {
             return reviews;
         }
 
-        JSONArray nodes = (JSONArray) reviewObject.get("nodes");
-
-        if (CollectionUtils.isEmpty(nodes)) {
-            return reviews;
-        }
-
-        for (Object n : nodes) {
-            JSONObject node = (JSONObject) n;
-            Review review = new Review();
-            review.setState(str(node, "state"));
-            review.setBody(str(node, "bodyText"));
-            JSONObject authorObj = (JSONObject) node.get("author");
-            review.setAuthor(str(authorObj, "login"));
+        for (Review review : reviewObject.getNodes()) {
             String authorType = getAuthorType(repo, review.getAuthor());
             String authorLDAPDN = getLDAPDN(repo, review.getAuthor());
             if (StringUtils.isNotEmpty(authorType)) {
@@ -1118,80 +1533,28 @@ public class DefaultGitHubClient implements GitHubClient {
             if (StringUtils.isNotEmpty(authorLDAPDN)) {
                 review.setAuthorLDAPDN(authorLDAPDN);
             }
-            review.setCreatedAt(getTimeStampMills(str(node, "createdAt")));
-            review.setUpdatedAt(getTimeStampMills(str(node, "updatedAt")));
             reviews.add(review);
         }
         return reviews;
     }
 
-    private MergeEvent getMergeEvent(GitHubRepo repo, GitRequest pr, JSONObject timelineObject) throws RestClientException {
-        if (timelineObject == null) {
-            return null;
-        }
-        JSONArray edges = (JSONArray) timelineObject.get("edges");
-        if (CollectionUtils.isEmpty(edges)) {
-            return null;
-        }
-
-        for (Object e : edges) {
-            JSONObject edge = (JSONObject) e;
-            JSONObject node = (JSONObject) edge.get("node");
-            if (node != null) {
-                String typeName = str(node, "__typename");
-                if ("MergedEvent".equalsIgnoreCase(typeName)) {
-                    JSONObject timelinePrNbrObj = (JSONObject) node.get("pullRequest");
-                    if (timelinePrNbrObj != null && pr.getNumber().equals(str(timelinePrNbrObj, "number"))) {
-                        MergeEvent mergeEvent = new MergeEvent();
-                        JSONObject commit = (JSONObject) node.get("commit");
-                        mergeEvent.setMergeSha(str(commit, "oid"));
-                        mergeEvent.setMergedAt(getTimeStampMills(str(node, "createdAt")));
-                        JSONObject author = (JSONObject) node.get("actor");
-                        if (author != null) {
-                            mergeEvent.setMergeAuthor(str(author, "login"));
-                            String authorType = getAuthorType(repo, mergeEvent.getMergeAuthor());
-                            String authorLDAPDN = getLDAPDN(repo, mergeEvent.getMergeAuthor());
-                            if (StringUtils.isNotEmpty(authorType)) {
-                                mergeEvent.setMergeAuthorType(authorType);
-                            }
-                            if (StringUtils.isNotEmpty(authorLDAPDN)) {
-                                mergeEvent.setMergeAuthorLDAPDN(authorLDAPDN);
-                            }
-                        }
-                        return mergeEvent;
+    private MergeEvent getMergeEvent(GitHubRepo repo, GitRequest pr, List<MergeEvent> mergeEvents, CollectionContext context) throws RestClientException {
+        for (MergeEvent mergeEvent : mergeEvents) {
+            if (pr.getNumber().equals(mergeEvent.getGitRequestNumber())) {
+                if (mergeEvent.getMergeAuthor() != null) {
+                    String authorType = getAuthorType(repo, mergeEvent.getMergeAuthor());
+                    String authorLDAPDN = getLDAPDN(repo, mergeEvent.getMergeAuthor());
+                    if (StringUtils.isNotEmpty(authorType)) {
+                        mergeEvent.setMergeAuthorType(authorType);
                     }
-                }
-            }
-        }
-        return null;
-    }
-
-    private static String getMergeEventSha(GitRequest pr, JSONObject timelineObject) throws RestClientException {
-        String mergeEventSha = "";
-        if (timelineObject == null) {
-            return mergeEventSha;
-        }
-        JSONArray edges = (JSONArray) timelineObject.get("edges");
-        if (CollectionUtils.isEmpty(edges)) {
-            return mergeEventSha;
-        }
-
-        for (Object e : edges) {
-            JSONObject edge = (JSONObject) e;
-            JSONObject node = (JSONObject) edge.get("node");
-            if (node != null) {
-                String typeName = str(node, "__typename");
-                if ("MergedEvent".equalsIgnoreCase(typeName)) {
-                    JSONObject timelinePrNbrObj = (JSONObject) node.get("pullRequest");
-                    if (timelinePrNbrObj != null && pr.getNumber().equals(str(timelinePrNbrObj, "number"))) {
-                        JSONObject commit = (JSONObject) node.get("commit");
-                        mergeEventSha = str(commit, "oid");
-                        break;
+                    if (StringUtils.isNotEmpty(authorLDAPDN)) {
+                        mergeEvent.setMergeAuthorLDAPDN(authorLDAPDN);
                     }
                 }
+                return mergeEvent;
             }
         }
-        return mergeEventSha;
+        return null;
     }
 
     private CommitType getCommitType(int parentSize, String commitMessage) {
@@ -1210,19 +1573,10 @@ public class DefaultGitHubClient implements GitHubClient {
     @Override
     public boolean isUnderRateLimit() {
         if (!settings.isCheckRateLimit()) return true;
-        if (rateLimit == null) {
-            LOG.info("Rate limit is null");
-            rateLimit = new GitHubRateLimit();
-            return true;
-        }
-        long resetTimeMillis = rateLimit.getResetTime() * 1000L;
-        if ((System.currentTimeMillis() - resetTimeMillis) > 5000L) {
-            LOG.info("reset time is more than 5 seconds in the past, reset the remaining rate lime to max allowed");
-            rateLimit.setRemaining(rateLimit.getLimit());
-        }
-
+        // the scheduler already paces every call; this only catches a budget drained outside the collector
+        GitHubRateLimit rateLimit = rateLimitSnapshot();
         if (rateLimit.getRemaining() > 0) {
-            LOG.info(String.format("Remaining %d of limit %d resetTime %d (%s)", rateLimit.getRemaining(), rateLimit.getLimit(), rateLimit.getResetTime(), new DateTime(resetTimeMillis).toString("yyyy-MM-dd hh:mm:ss.SSa")));
+            LOG.info(String.format("Remaining %d of limit %d resetTime %d (%s)", rateLimit.getRemaining(), rateLimit.getLimit(), rateLimit.getResetTime(), new DateTime(rateLimit.getResetTime() * 1000L).toString("yyyy-MM-dd hh:mm:ss.SSa")));
         } else {
             LOG.info("Rate limit values not available yet");
             return true;
@@ -1231,20 +1585,29 @@ public class DefaultGitHubClient implements GitHubClient {
         return (rateLimit.getRemaining() > settings.getRateLimitThreshold());
     }
 
+    @Override
+    public long getRateLimitResetTime() {
+        return TimeUnit.SECONDS.toMillis(rateLimitSnapshot().getResetTime());
+    }
+
+    private GitHubRateLimit rateLimitSnapshot() {
+        return tokens.snapshot(RateLimitScheduler.Api.GRAPHQL);
+    }
+
     /**
      * @deprecated use isUnderRateLimit() instead.
      */
     @Override
     @Deprecated
     public GitHubRateLimit getRateLimit(GitHubRepo repo) {
-        return rateLimit;
+        return rateLimitSnapshot();
     }
 
-    private void getUser(GitHubRepo repo, String user) {
+    private GitHubUserIdentity getUser(GitHubRepo repo, String user) {
         String repoUrl = (String) repo.getOptions().get("url");
-        if(StringUtils.isEmpty(user)) return;
+        if(StringUtils.isEmpty(user)) return null;
         try {
-            GitHubParsed gitHubParsed = new GitHubParsed(repoUrl);
+            GitHubParsed gitHubParsed = GitHubParsed.of(repoUrl);
             String apiUrl = gitHubParsed.getBaseApiUrl();
             if (StringUtils.isNotEmpty(settings.getBaseApiUrl())) {
                 apiUrl = settings.getBaseApiUrl();
@@ -1252,17 +1615,129 @@ public class DefaultGitHubClient implements GitHubClient {
             String queryUrl = apiUrl.concat("users/").concat(user);
             ResponseEntity<String> response = makeRestCallGet(queryUrl);
             JSONObject userObject = parseAsObject(response);
-            String ldapDN = str(userObject, "ldap_dn");
-            String authorTypeStr = str(userObject, "type");
-            if (StringUtils.isNotEmpty(ldapDN)) {
-                ldapMap.put(user, ldapDN);
-            }
-            if (StringUtils.isNotEmpty(authorTypeStr)) {
-                authorTypeMap.put(user, authorTypeStr);
+            return userCache.put(user, StringUtils.trimToNull(str(userObject, "ldap_dn")), StringUtils.trimToNull(str(userObject, "type")));
+        } catch (HttpStatusCodeException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return userCache.putNotFound(user);
             }
+            LOG.error("Error getting LDAP_DN  ldap_error_user=" + user, e);
         } catch (MalformedURLException | HygieiaException | RestClientException e) {
             LOG.error("Error getting LDAP_DN  ldap_error_user=" + user, e);
         }
+        return null;
+    }
+
+    /**
+     * Resolves the account type of every login on a page that the user cache does not know yet, with aliased
+     * repositoryOwner lookups of github.userBatchSize logins per GraphQL call instead of one users/{login} call each.
+     * GraphQL has no LDAP DN, so this only runs when DNs come from user entitlements (github.optimizeUserCallsToGithub).
+     * Logins GraphQL does not resolve, such as bots, are left to the per-login REST lookup.
+     */
+    void resolveUsers(GitHubParsed gitHubParsed, GitHubRepo repo, String password, String personalAccessToken, Set<String> logins) {
+        int batchSize = settings.getUserBatchSize();
+        if (batchSize <= 0 || !settings.isOptimizeUserCallsToGithub() || CollectionUtils.isEmpty(logins)) return;
+
+        List<String> pending = logins.stream().filter(login -> !userCache.contains(login)).collect(Collectors.toList());
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<String> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            try {
+                JSONObject data = postGraphQL(gitHubParsed, repo, password, personalAccessToken, buildUserQuery(batch), GraphQLResponse.JSON_OBJECT, null).getData();
+                if (data == null) continue;
+                for (int i = 0; i < batch.size(); i++) {
+                    JSONObject owner = (JSONObject) data.get(USER_ALIAS + i);
+                    String type = owner == null ? null : str(owner, "__typename");
+                    if (StringUtils.isNotEmpty(type)) {
+                        userCache.putTypeOnly(batch.get(i), type);
+                    }
+                }
+            } catch (MalformedURLException | RestClientException e) {
+                LOG.warn("Batched user lookup failed for " + batch.size() + " users, falling back to REST", e);
+            }
+        }
+    }
+
+    /**
+     * @return logins of the page's commit authors and of everyone on its pull requests, in the form the users API expects
+     */
+    static Set<String> pageLogins(RepositoryPage page) {
+        Set<String> logins = new LinkedHashSet<>();
+        if (page.getPullRequests() != null) {
+            for (PullRequestNode node : page.getPullRequests().getNodes()) {
+                addLogin(logins, node.getPull().getUserId());
+                if (node.getCommits() != null) {
+                    node.getCommits().getNodes().forEach(prCommit -> addLogin(logins, prCommit.getCommit().getScmAuthorLogin()));
+                }
+                node.getMergeEvents().forEach(mergeEvent -> addLogin(logins, mergeEvent.getMergeAuthor()));
+                if (node.getComments() != null) {
+                    node.getComments().getNodes().forEach(comment -> addLogin(logins, comment.getUser()));
+                }
+                if (node.getReviews() != null) {
+                    node.getReviews().getNodes().forEach(review -> addLogin(logins, review.getAuthor()));
+                }
+            }
+        }
+        if (page.getCommits() != null) {
+            logins.addAll(commitAuthorLogins(page.getCommits().getNodes()));
+        }
+        return logins;
+    }
+
+    static JSONObject buildUserQuery(List<String> logins) {
+        StringBuilder declarations = new StringBuilder();
+        StringBuilder selections = new StringBuilder();
+        JSONObject variables = new JSONObject();
+        for (int i = 0; i < logins.size(); i++) {
+            String alias = USER_ALIAS + i;
+            declarations.append(i == 0 ? "" : ", ").append('$').append(alias).append(": String!");
+            selections.append("  ").append(alias).append(": repositoryOwner(login: $").append(alias).append(") { __typename }\n");
+            variables.put(alias, logins.get(i));
+        }
+        JSONObject query = new JSONObject();
+        query.put("query", "query (" + declarations + ") {\n" + selections + "}\n");
+        query.put("variables", variables.toString());
+        return query;
+    }
+
+    private static void addLogin(Set<String> logins, String login) {
+        if (StringUtils.isNotEmpty(login) && !"unknown".equalsIgnoreCase(login)) {
+            //This is weird. Github does replace the _ in commit author with - in the user api!!!
+            logins.add(login.replace("_", "-"));
+        }
+    }
+
+    private static Set<String> commitAuthorLogins(List<Commit> commits) {
+        Set<String> logins = new HashSet<>();
+        for (Commit commit : commits) {
+            addLogin(logins, commit.getScmAuthorLogin());
+        }
+        return logins;
+    }
+
+    /**
+     * Looks up all users not yet in the user cache in parallel, so the per-commit
+     * getLDAPDN/getAuthorType calls that follow are answered from the cache.
+     * No-op unless a user lookup executor is configured.
+     */
+    private void prefetchUsers(GitHubRepo repo, Set<String> logins) {
+        if (userLookupExecutor == null || CollectionUtils.isEmpty(logins)) return;
+        List<Future<?>> lookups = new ArrayList<>();
+        // user entitlements supply the DNs when optimizing, so the account type is enough
+        boolean typeOnly = settings.isOptimizeUserCallsToGithub();
+        for (String login : logins) {
+            if (typeOnly ? !userCache.contains(login) : !userCache.hasLdapDN(login)) {
+                lookups.add(userLookupExecutor.submit(() -> getUser(repo, login)));
+            }
+        }
+        for (Future<?> lookup : lookups) {
+            try {
+                lookup.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                LOG.error("User lookup failed", e.getCause());
+            }
+        }
     }
 
     @Override
@@ -1275,38 +1750,34 @@ public class DefaultGitHubClient implements GitHubClient {
             return (entitlements == null) ?  "" : entitlements.getEntitlements();
         }
 
-        //This is weird. Github does replace the _ in commit author with - in the user api!!!
-        String formattedUser = user.replace("_", "-");
-        if (ldapMap.containsKey(formattedUser)) {
-            return ldapMap.get(formattedUser);
+        GitHubUserIdentity identity = getUserIdentity(repo, user);
+        if (identity != null && identity.isTypeOnly()) {
+            identity = getUser(repo, identity.getLogin());
         }
-        this.getUser(repo, formattedUser);
-        return ldapMap.get(formattedUser);
+        return identity == null ? null : identity.getLdapDN();
     }
 
     private String getAuthorType(GitHubRepo repo, String user) {
         if (StringUtils.isEmpty(user) || "unknown".equalsIgnoreCase(user)) return null;
+        GitHubUserIdentity identity = getUserIdentity(repo, user);
+        return identity == null ? null : identity.getAuthorType();
+    }
+
+    private GitHubUserIdentity getUserIdentity(GitHubRepo repo, String user) {
         //This is weird. Github does replace the _ in commit author with - in the user api!!!
         String formattedUser = user.replace("_", "-");
-        if (authorTypeMap.containsKey(formattedUser)) {
-            return authorTypeMap.get(formattedUser);
-        }
-        this.getUser(repo, formattedUser);
-        return authorTypeMap.get(formattedUser);
+        GitHubUserIdentity identity = userCache.get(formattedUser);
+        return identity != null ? identity : this.getUser(repo, formattedUser);
     }
 
     /// Utility Methods
-    private static int asInt(JSONObject json, String key) {
-        return NumberUtils.toInt(str(json, key));
-    }
-
     private static long asLong(JSONObject json, String key) {
         return NumberUtils.toLong(str(json, key));
     }
 
 
-    private static long getTimeStampMills(String dateTime) {
-        return StringUtils.isEmpty(dateTime) ? 0 : new DateTime(dateTime).getMillis();
+    static long getTimeStampMills(String dateTime) {
+        return GitHubTimestamps.toEpochMillis(dateTime);
     }
 
 
@@ -1318,28 +1789,32 @@ public class DefaultGitHubClient implements GitHubClient {
      * @param firstRun
      * @return
      */
-    private String getRunDate(GitHubRepo repo, boolean firstRun, boolean missingCommits, int offSetMinutes) {
+    private String getRunDate(GitHubRepo repo, boolean firstRun, boolean missingCommits, int offSetMinutes, CollectionContext context) {
         if (missingCommits) {
-            long repoOffsetTime = getRepoOffsetTime(repo);
+            long repoOffsetTime = getRepoOffsetTime(context);
             if (repoOffsetTime > 0) {
-                return getDate(new DateTime(getRepoOffsetTime(repo)), 0, offSetMinutes).toString();
+                return getDate(new DateTime(repoOffsetTime), 0, offSetMinutes).toString();
             } else {
                 return getDate(new DateTime(repo.getLastUpdated()), 0, offSetMinutes).toString();
             }
         }
         if (firstRun) {
-            int firstRunDaysHistory = settings.getFirstRunHistoryDays();
-            if (firstRunDaysHistory > 0) {
-                return getDate(new DateTime(), firstRunDaysHistory, 0).toString();
-            } else {
-                return getDate(new DateTime(), FIRST_RUN_HISTORY_DEFAULT, 0).toString();
+            // fixed for the whole repo, so every page of it asks for the same history
+            if (context.firstRunSince == null) {
+                int firstRunDaysHistory = settings.getFirstRunHistoryDays();
+                context.firstRunSince = getDate(new DateTime(), firstRunDaysHistory > 0 ? firstRunDaysHistory : FIRST_RUN_HISTORY_DEFAULT, 0).toString();
             }
+            return context.firstRunSince;
         } else {
             return getDate(new DateTime(repo.getLastUpdated()), 0, offSetMinutes).toString();
         }
     }
 
-    public long getRepoOffsetTime(GitHubRepo repo) {
+    private static long getRepoOffsetTime(CollectionContext context) {
+        return StreamedPages.oldest(context.streamed.repoOffsetTime, getRepoOffsetTime(context.pullRequests));
+    }
+
+    private static long getRepoOffsetTime(List<GitRequest> pullRequests) {
         List<Commit> allPrCommits = new ArrayList<>();
         pullRequests.stream()
                 .filter(pr -> "merged".equalsIgnoreCase(pr.getState()))
@@ -1365,46 +1840,19 @@ public class DefaultGitHubClient implements GitHubClient {
 
     // Makes use of the graphQL endpoint, will not work for REST api
     private JSONObject getDataFromRestCallPost(GitHubParsed gitHubParsed, GitHubRepo repo, String password, String personalAccessToken, JSONObject query) throws MalformedURLException, HygieiaException {
-        String graphqlUrl = gitHubParsed.getGraphQLUrl();
-        if (StringUtils.isNotEmpty(settings.getGraphqlUrl())) {
-            graphqlUrl = settings.getGraphqlUrl();
-        }
-        ResponseEntity<String> response;
-        int retryCount = 0;
-        // max retries if HTTP status code is 502 : Bad Gateway
-        while (true) {
-            try {
-                response = makeRestCallPost(graphqlUrl, repo.getUserId(), password, personalAccessToken, query);
-                break;
-            } catch (HttpStatusCodeException hc) {
-                if (hc.getStatusCode() != HttpStatus.BAD_GATEWAY) throw hc;
-                retryCount++;
-                sleep(settings.getDelay());
-                if (retryCount > settings.getMaxRetries()) {
-                    LOG.error("Unable to get data from " + gitHubParsed.getUrl() + " after " + settings.getMaxRetries() + " tries!");
-                    throw hc;
-                }
-            }
-        }
-
-        JSONObject data = (JSONObject) parseAsObject(response).get("data");
-        JSONArray errors = getArray(parseAsObject(response), "errors");
-        HttpHeaders headers = response.getHeaders();
+        return getDataFromRestCallPost(gitHubParsed, repo, password, personalAccessToken, query, GraphQLResponse.JSON_OBJECT, null);
+    }
 
-        if (headers != null && !CollectionUtils.isEmpty(headers.get(X_RATE_LIMIT_LIMIT))
-                && !CollectionUtils.isEmpty(headers.get(X_RATE_LIMIT_REMAINING))
-                && !CollectionUtils.isEmpty(headers.get(X_RATE_LIMIT_RESET))) {
-            int limit = NumberUtils.toInt(headers.get(X_RATE_LIMIT_LIMIT).get(0));
-            int remaining = NumberUtils.toInt(headers.get(X_RATE_LIMIT_REMAINING).get(0));
-            long rateLimitResetAt = NumberUtils.toLong(headers.get(X_RATE_LIMIT_RESET).get(0));
-            LOG.info("limit=" + limit + ", remaining=" + remaining + ", rateLimitResetAt=" + rateLimitResetAt);
+    /**
+     * @param pageSizer shrinks the query's page when GitHub answers 502, null to retry the same query
+     */
+    private <T> T getDataFromRestCallPost(GitHubParsed gitHubParsed, GitHubRepo repo, String password, String personalAccessToken, JSONObject query,
+                                          GraphQLResponse.DataDecoder<T> decoder, PageSizer pageSizer) throws MalformedURLException, HygieiaException {
+        GraphQLResponse<T> response = postGraphQL(gitHubParsed, repo, password, personalAccessToken, query, decoder, pageSizer);
 
-            rateLimit.setLimit(limit);
-            rateLimit.setRemaining(remaining);
-            rateLimit.setResetTime(rateLimitResetAt);
-        }
-        if (CollectionUtils.isEmpty(errors)) {
-            return data;
+        JSONArray errors = response.getErrors();
+        if (!response.hasErrors()) {
+            return response.getData();
         }
 
         JSONObject error = (JSONObject) errors.get(0);
@@ -1433,38 +1881,138 @@ public class DefaultGitHubClient implements GitHubClient {
         } catch (ParseException e) {
             LOG.error("Could not parse JSON String", e);
         }
-        return getDataFromRestCallPost(gitHubParsed, repo, password, personalAccessToken, query);
+        return getDataFromRestCallPost(gitHubParsed, repo, password, personalAccessToken, query, decoder, pageSizer);
     }
 
-    private ResponseEntity<String> makeRestCallPost(String url, String userId, String password, String personalAccessToken, JSONObject query) {
+    /**
+     * Posts a GraphQL query, retrying on 502 Bad Gateway, decodes the response and records its rate limit.
+     */
+    private <T> GraphQLResponse<T> postGraphQL(GitHubParsed gitHubParsed, GitHubRepo repo, String password, String personalAccessToken, JSONObject query,
+                                               GraphQLResponse.DataDecoder<T> decoder, PageSizer pageSizer) throws MalformedURLException {
+        String graphqlUrl = gitHubParsed.getGraphQLUrl();
+        if (StringUtils.isNotEmpty(settings.getGraphqlUrl())) {
+            graphqlUrl = settings.getGraphqlUrl();
+        }
         ResponseEntity<String> response;
+        int retryCount = 0;
+        // max retries if HTTP status code is 502 : Bad Gateway
+        while (true) {
+            try {
+                response = makeRestCallPost(graphqlUrl, repo.getUserId(), password, personalAccessToken, query);
+                break;
+            } catch (HttpStatusCodeException hc) {
+                if (hc.getStatusCode() != HttpStatus.BAD_GATEWAY) throw hc;
+                retryCount++;
+                if (pageSizer != null && pageSizer.onBadGateway()) {
+                    setFetchCount(query, pageSizer.size());
+                    LOG.info("Bad gateway from " + gitHubParsed.getUrl() + ", retrying with page size " + pageSizer.size());
+                }
+                sleep(settings.getDelay());
+                if (retryCount > settings.getMaxRetries()) {
+                    LOG.error("Unable to get data from " + gitHubParsed.getUrl() + " after " + settings.getMaxRetries() + " tries!");
+                    throw hc;
+                }
+            }
+        }
+
+        GraphQLResponse<T> graphQLResponse = GraphQLResponse.of(response, decoder);
+        GitHubRateLimit responseRateLimit = graphQLResponse.getRateLimit();
+        if (responseRateLimit != null) {
+            LOG.info("limit=" + responseRateLimit.getLimit() + ", remaining=" + responseRateLimit.getRemaining() + ", rateLimitResetAt=" + responseRateLimit.getResetTime());
+        }
+        return graphQLResponse;
+    }
+
+    private static void setFetchCount(JSONObject query, int fetchCount) {
+        try {
+            JSONObject variableJSON = (JSONObject) new JSONParser().parse(str(query, "variables"));
+            variableJSON.put("fetchCount", fetchCount);
+            query.put("variables", variableJSON.toString());
+        } catch (ParseException e) {
+            LOG.error("Could not parse JSON String", e);
+        }
+    }
+
+    private ResponseEntity<String> makeRestCallPost(String url, String userId, String password, String personalAccessToken, JSONObject query) {
+        RateLimitScheduler.Api api = RateLimitScheduler.Api.GRAPHQL;
         // Basic Auth only.
         if(!Objects.equals("", userId) && !Objects.equals("", password)){
             RestUserInfo userInfo = new RestUserInfo(userId, password);
-            response = restClient.makeRestCallPost(url, userInfo, query);
-        } else if (personalAccessToken != null && !Objects.equals("", personalAccessToken)) {
-            response = restClient.makeRestCallPost(url, "token", settings.getPersonalAccessToken(), query);
-            if (Objects.nonNull(response) && response.getStatusCode() != HttpStatus.OK) {
-                response = restClient.makeRestCallPost(url, "token", personalAccessToken, query);
-            }
-        } else {
-            // This handles the case when settings.getPersonalAccessToken() is empty
-            response = restClient.makeRestCallPost(url, "token", settings.getPersonalAccessToken(), query);
+            return send(tokens.forCredential(userId), api, () -> restClient.makeRestCallPost(url, userInfo, query));
+        }
+        // This handles the case when settings.getPersonalAccessToken() is empty
+        ResponseEntity<String> response = sendWithPool(api, token -> restClient.makeRestCallPost(url, "token", token, query));
+        if (personalAccessToken != null && !Objects.equals("", personalAccessToken)
+                && Objects.nonNull(response) && response.getStatusCode() != HttpStatus.OK) {
+            response = send(tokens.forCredential(personalAccessToken), api, () -> restClient.makeRestCallPost(url, "token", personalAccessToken, query));
         }
         return response;
     }
 
     private ResponseEntity<String> makeRestCallGet(String url) throws RestClientException {
-        // Basic Auth only.
-        // This handles the case when settings.getPersonalAccessToken() is empty
-        return restClient.makeRestCallGet(url, "token ", settings.getPersonalAccessToken());
+        return sendWithPool(RateLimitScheduler.Api.REST, token -> restClient.makeRestCallGet(url, "token ", token));
+    }
+
+    /**
+     * Calls GitHub with the pooled token that has the most budget left, failing over to the next one
+     * while GitHub answers that the token's rate limit is used up.
+     */
+    private ResponseEntity<String> sendWithPool(RateLimitScheduler.Api api, Function<String, ResponseEntity<String>> call) {
+        List<GitHubTokenPool.Token> tried = new ArrayList<>();
+        GitHubTokenPool.Token token = tokens.select(api);
+        while (true) {
+            GitHubTokenPool.Token current = token;
+            tried.add(current);
+            try {
+                return send(current, api, () -> call.apply(current.getValue()));
+            } catch (HttpStatusCodeException e) {
+                token = isRateLimited(e) ? tokens.failover(api, tried) : null;
+                if (token == null) throw e;
+                LOG.warn(api + " rate limit of " + current + " is used up, failing over to " + token);
+            }
+        }
+    }
+
+    private ResponseEntity<String> send(GitHubTokenPool.Token token, RateLimitScheduler.Api api, Supplier<ResponseEntity<String>> call) {
+        token.getRateLimits().acquire(api);
+        acquireRequestPermit();
+        try {
+            ResponseEntity<String> response = call.get();
+            if (response != null) token.getRateLimits().update(api, response.getHeaders());
+            return response;
+        } catch (HttpStatusCodeException e) {
+            token.getRateLimits().update(api, e.getResponseHeaders());
+            throw e;
+        } finally {
+            releaseRequestPermit();
+        }
+    }
+
+    private static boolean isRateLimited(HttpStatusCodeException e) {
+        if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) return true;
+        if (e.getStatusCode() != HttpStatus.FORBIDDEN || e.getResponseHeaders() == null) return false;
+        return "0".equals(e.getResponseHeaders().getFirst(X_RATE_LIMIT_REMAINING));
+    }
+
+    private void acquireRequestPermit() {
+        if (inFlightRequests == null) return;
+        try {
+            inFlightRequests.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting for a GitHub request slot", e);
+        }
+    }
+
+    private void releaseRequestPermit() {
+        if (inFlightRequests != null) inFlightRequests.release();
     }
 
     private static JSONObject parseAsObject(ResponseEntity<String> response) {
-        if(response == null) return new JSONObject();
+        if(response == null || response.getBody() == null) return new JSONObject();
         try {
-            return (JSONObject) new JSONParser().parse(response.getBody());
-        } catch (ParseException pe) {
+            return GitHubJson.readObject(response.getBody());
+        } catch (IOException pe) {
             LOG.error(pe.getMessage());
         }
         return new JSONObject();
@@ -1472,8 +2020,8 @@ public class DefaultGitHubClient implements GitHubClient {
 
     private static JSONArray parseAsArray(ResponseEntity<String> response) {
         try {
-            return (JSONArray) new JSONParser().parse(response.getBody());
-        } catch (ParseException pe) {
+            return GitHubJson.readArray(response.getBody());
+        } catch (IOException pe) {
             LOG.error(pe.getMessage());
         }
         return new JSONArray();
@@ -1491,18 +2039,6 @@ public class DefaultGitHubClient implements GitHubClient {
         return (JSONArray) json.get(key);
     }
 
-    private static List<String> getParentShas(JSONObject commit) {
-        JSONObject parents = (JSONObject) commit.get("parents");
-        JSONArray parentNodes = (JSONArray) parents.get("nodes");
-        List<String> parentShas = new ArrayList<>();
-        if (!CollectionUtils.isEmpty(parentNodes)) {
-            for (Object parentObj : parentNodes) {
-                parentShas.add(str((JSONObject) parentObj, "oid"));
-            }
-        }
-        return parentShas;
-    }
-
     protected void sleep(long timeToWait) {
         try {
             Thread.sleep(timeToWait);
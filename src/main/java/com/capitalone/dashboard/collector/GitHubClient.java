@@ -3,14 +3,13 @@ package com.capitalone.dashboard.collector;
 import com.capitalone.dashboard.misc.HygieiaException;
 import com.capitalone.dashboard.model.ChangeRepoResponse;
 import com.capitalone.dashboard.model.CollectorItemMetadata;
-import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
 import com.capitalone.dashboard.model.GitHubRateLimit;
-import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.model.RepoCollectionResult;
 import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
 
 import java.net.MalformedURLException;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Client for fetching commit history from GitHub
@@ -19,18 +18,55 @@ public interface GitHubClient {
 
 
     ChangeRepoResponse getChangedRepos(long lastEventId, long lastEventTimeStamp) throws MalformedURLException, HygieiaException;
-	List<Commit> getCommits();
-    List<GitRequest> getPulls();
-    List<GitRequest> getIssues();
     String getLDAPDN(GitHubRepo repo, String user);
 
-    void fireGraphQL(GitHubRepo repo, boolean firstRun, Map<Long, String> existingPRMap, Map<Long, String> prCloseMap, int offsetMinutes) throws MalformedURLException, HygieiaException;
+    /**
+     * Collects commits, pull requests and issues for one repo. Holds no state between calls,
+     * so it is safe to call for many repos at once.
+     */
+    RepoCollectionResult fireGraphQL(GitHubRepo repo, boolean firstRun, ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, int offsetMinutes) throws MalformedURLException, HygieiaException;
+
+    /**
+     * fireGraphQL that hands every page to {@code committer} as soon as it is processed and resumes from the
+     * checkpoint a previous, unfinished call left on the repo. Clients that cannot checkpoint collect as fireGraphQL.
+     */
+    default RepoCollectionResult fireGraphQL(GitHubRepo repo, boolean firstRun, ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, int offsetMinutes,
+                                             PageCommitter committer) throws MalformedURLException, HygieiaException {
+        return fireGraphQL(repo, firstRun, existingPulls, existingIssues, offsetMinutes);
+    }
+
+    /**
+     * fireGraphQL without holding the caller's thread. Failures complete the future exceptionally with the
+     * exception fireGraphQL would have thrown. Blocking clients collect on the calling thread and return a
+     * completed future.
+     */
+    default CompletableFuture<RepoCollectionResult> fireGraphQLAsync(GitHubRepo repo, boolean firstRun, ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, int offsetMinutes) {
+        return fireGraphQLAsync(repo, firstRun, existingPulls, existingIssues, offsetMinutes, null);
+    }
+
+    /**
+     * fireGraphQLAsync with page commits and checkpoints, see fireGraphQL; {@code committer} may be null.
+     */
+    default CompletableFuture<RepoCollectionResult> fireGraphQLAsync(GitHubRepo repo, boolean firstRun, ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, int offsetMinutes,
+                                                                     PageCommitter committer) {
+        CompletableFuture<RepoCollectionResult> result = new CompletableFuture<>();
+        try {
+            result.complete(committer == null ? fireGraphQL(repo, firstRun, existingPulls, existingIssues, offsetMinutes)
+                    : fireGraphQL(repo, firstRun, existingPulls, existingIssues, offsetMinutes, committer));
+        } catch (MalformedURLException | HygieiaException | RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
 
     GitHubRateLimit getRateLimit(GitHubRepo repo) throws MalformedURLException, HygieiaException;
 
     boolean isUnderRateLimit();
 
-    long getRepoOffsetTime(GitHubRepo repo);
+    /**
+     * @return when the GraphQL rate limit resets in epoch milliseconds, or 0 if it is not known yet
+     */
+    long getRateLimitResetTime();
 
     void fetchMetadata (GitHubRepo repo, CollectorItemMetadata collectorItemMetadata) throws MalformedURLException, HygieiaException;
 }
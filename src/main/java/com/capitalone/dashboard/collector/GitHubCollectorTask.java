@@ -10,14 +10,18 @@ import com.capitalone.dashboard.model.CollectorItem;
 import com.capitalone.dashboard.model.CollectorItemMetadata;
 import com.capitalone.dashboard.model.CollectorType;
 import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
 import com.capitalone.dashboard.model.GitHubCollector;
 import com.capitalone.dashboard.model.GitHubParsed;
 import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.model.RepoCollectionResult;
+import com.capitalone.dashboard.model.RepoJob;
 import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
 import com.capitalone.dashboard.repository.BaseCollectorRepository;
 import com.capitalone.dashboard.repository.CollectorItemMetadataRepository;
 import com.capitalone.dashboard.repository.CommitRepository;
 import com.capitalone.dashboard.repository.ComponentRepository;
+import com.capitalone.dashboard.repository.GitHubBulkRepository;
 import com.capitalone.dashboard.repository.GitHubRepoRepository;
 import com.capitalone.dashboard.repository.GitRequestRepository;
 import com.capitalone.dashboard.util.CommitPullMatcher;
@@ -33,21 +37,30 @@ import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 
 import java.net.MalformedURLException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.regex.Pattern;
@@ -68,12 +81,15 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
     private final GitHubSettings gitHubSettings;
     private final ComponentRepository dbComponentRepository;
     private final CollectorItemMetadataRepository collectorItemMetadataRepository;
+    private final GitHubBulkRepository gitHubBulkRepository;
+    private final RepoSharding repoSharding;
+    private final RepoWorkQueue repoWorkQueue;
+    private volatile boolean changedReposOnlyIgnored;
     private static final long ONE_DAY_MILLISECONDS = 24 * 60 * 60 * 1000;
     private static final long ONE_SECOND_IN_MILLISECONDS = 1000;
     private static final long FOURTEEN_DAYS_MILLISECONDS = 14 * ONE_DAY_MILLISECONDS;
     private static final String REPO_NAME = "repoName";
     private static final String ORG_NAME = "orgName";
-    private AtomicInteger count = new AtomicInteger(0);
 
 
     @Autowired
@@ -85,7 +101,10 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
                                GitHubClient gitHubClient,
                                GitHubSettings gitHubSettings,
                                ComponentRepository dbComponentRepository,
-                               CollectorItemMetadataRepository collectorItemMetadataRepository) {
+                               CollectorItemMetadataRepository collectorItemMetadataRepository,
+                               GitHubBulkRepository gitHubBulkRepository,
+                               RepoSharding repoSharding,
+                               RepoWorkQueue repoWorkQueue) {
         super(taskScheduler, "GitHub");
         this.collectorRepository = collectorRepository;
         this.gitHubRepoRepository = gitHubRepoRepository;
@@ -95,6 +114,9 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
         this.dbComponentRepository = dbComponentRepository;
         this.gitRequestRepository = gitRequestRepository;
         this.collectorItemMetadataRepository = collectorItemMetadataRepository;
+        this.gitHubBulkRepository = gitHubBulkRepository;
+        this.repoSharding = repoSharding;
+        this.repoWorkQueue = repoWorkQueue;
     }
 
     @Override
@@ -154,16 +176,18 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
         if ((System.currentTimeMillis() - collector.getLastCleanUpTimestamp()) < ONE_DAY_MILLISECONDS) {
             return;
         }
-        Set<ObjectId> uniqueIDs = new HashSet<>();
+        // how many components use each repo
+        Map<ObjectId, Integer> uniqueIDs = new HashMap<>();
         /*
           Logic: For each component, retrieve the collector item list of the type SCM.
-          Store their IDs in a unique set ONLY if their collector IDs match with GitHub collectors ID.
+          Count their IDs ONLY if their collector IDs match with GitHub collectors ID.
          */
         for (com.capitalone.dashboard.model.Component comp : dbComponentRepository.findAll()) {
             if (!MapUtils.isEmpty(comp.getCollectorItems())) {
                 List<CollectorItem> itemList = comp.getCollectorItems().get(CollectorType.SCM);
                 if (itemList != null) {
-                    itemList.stream().filter(ci -> ci != null && Objects.equals(ci.getCollectorId(), collector.getId())).map(BaseModel::getId).forEach(uniqueIDs::add);
+                    itemList.stream().filter(ci -> ci != null && Objects.equals(ci.getCollectorId(), collector.getId())).map(BaseModel::getId)
+                            .forEach(id -> uniqueIDs.merge(id, 1, Integer::sum));
                 }
             }
         }
@@ -171,17 +195,28 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
           Logic: Get all the collector items from the collector_item collection for this collector.
           If their id is in the unique set (above), keep them enabled; else, disable them.
          */
-        List<GitHubRepo> repoList = new ArrayList<>();
+        // only the fields that changed are written, other instances may be saving the same repos
+        Map<ObjectId, Map<String, Object>> changes = new HashMap<>();
         Set<ObjectId> gitID = new HashSet<>();
         gitID.add(collector.getId());
         gitHubRepoRepository.findByCollectorIdIn(gitID).stream().filter(Objects::nonNull).forEach(repo -> {
             if (repo.isPushed()) {
                 return;
             }
-            repo.setEnabled(uniqueIDs.contains(repo.getId()));
-            repoList.add(repo);
+            Map<String, Object> fields = new HashMap<>();
+            boolean enabled = uniqueIDs.containsKey(repo.getId());
+            if (repo.isEnabled() != enabled) {
+                fields.put("enabled", enabled);
+            }
+            int dashboards = uniqueIDs.getOrDefault(repo.getId(), 0);
+            if (gitHubSettings.isPriorityScheduling() && RepoActivity.of(repo).getDashboards() != dashboards) {
+                fields.put(RepoActivity.DASHBOARDS_FIELD, dashboards);
+            }
+            if (!fields.isEmpty()) {
+                changes.put(repo.getId(), fields);
+            }
         });
-        gitHubRepoRepository.saveAll(repoList);
+        gitHubBulkRepository.updateRepoFields(changes);
         collector.setLastCleanUpTimestamp(System.currentTimeMillis());
     }
 
@@ -192,7 +227,7 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
         clean(collector);
         List<GitHubRepo> enabledRepos = enabledRepos(collector);
         ChangeRepoResponse changeRepoResponse = null;
-        if (gitHubSettings.isCollectChangedReposOnly()) {
+        if (collectChangedReposOnly()) {
             try {
                 changeRepoResponse = gitHubClient.getChangedRepos(collector.getLatestProcessedEventId(), collector.getLatestProcessedEventTimestamp());
                 Set<GitHubRepo> changedRepos = reposToCollect(collector, enabledRepos, changeRepoResponse);
@@ -210,9 +245,16 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
                 enabledRepos = enabledRepos.stream().filter(repo -> GithubRepoMatcher.orgNameMatcher(repo.getRepoUrl(), searchCriteria[1])).collect(Collectors.toList());
             }
         }
+        if (RepoSharding.isEnabled(gitHubSettings)) {
+            enabledRepos = repoSharding.ownedRepos(enabledRepos);
+        }
+        // changed repos are collected whatever their interval
+        if (gitHubSettings.isPriorityScheduling() && changeRepoResponse == null) {
+            enabledRepos = new RepoPriorityScheduler(gitHubSettings).dueRepos(enabledRepos, System.currentTimeMillis());
+        }
         LOG.info("GitHubCollectorTask:collect start, total enabledRepos=" + enabledRepos.size());
         LOG.warn("error threshold error_threshold=" + gitHubSettings.getErrorThreshold());
-        collectProcess(collector, enabledRepos);
+        collectProcess(collector, enabledRepos, changeRepoResponse != null ? RepoWorkQueue.PRIORITY_EVENT : RepoWorkQueue.PRIORITY_CRON, true);
 
         if (changeRepoResponse != null) {
             long processTime = System.currentTimeMillis() - changeRepoResponse.getLastFetchTimestamp();
@@ -227,10 +269,29 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
         collectorRepository.save(collector);
     }
 
+    /**
+     * The event cursor is kept on the collector, shared by all instances. With github.shardMode=hash each instance
+     * would advance it and keep only the changed repos it owns, losing the changes to the others' repos, so hash
+     * sharding always collects every owned repo. In lease mode every instance goes through all changed repos.
+     */
+    private boolean collectChangedReposOnly() {
+        if (!gitHubSettings.isCollectChangedReposOnly()) return false;
+        if (RepoSharding.Mode.of(gitHubSettings.getShardMode()) != RepoSharding.Mode.HASH) return true;
+        if (!changedReposOnlyIgnored) {
+            LOG.warn("github.collectChangedReposOnly is not supported with github.shardMode=hash, collecting all owned repos");
+            changedReposOnlyIgnored = true;
+        }
+        return false;
+    }
+
     public Set<GitHubRepo> reposToCollect(GitHubCollector collector, List<GitHubRepo> enabledRepos, ChangeRepoResponse changeRepoResponse) {
         Set<GitHubParsed> changeRepos = changeRepoResponse.getChangeRepos();
         Map<String, GitHubParsed> changedReposMap = changeRepos.stream().collect(Collectors.toMap(g -> g.getUrl().toLowerCase(), Function.identity()));
         Set<GitHubRepo> repoSet = enabledRepos.stream().filter(e -> changedReposMap.containsKey(e.getRepoUrl().toLowerCase()) && !e.isPushed()).collect(Collectors.toSet());
+        if (gitHubSettings.isPriorityScheduling()) {
+            long now = System.currentTimeMillis();
+            repoSet.forEach(repo -> RepoActivity.of(repo).add(RepoActivity.EVENT_WEIGHT, now, activityHalfLife()).store(repo));
+        }
         collector.setLatestProcessedEventId(changeRepoResponse.getLatestEventId());
         collector.setLatestProcessedEventTimestamp(changeRepoResponse.getLatestEventTimestamp());
         if (collectPrivateRepos(collector)) {
@@ -246,129 +307,491 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
         return repoSet;
     }
 
-    @SuppressWarnings({"PMD.AvoidDeeplyNestedIfStmts"})
+    /**
+     * Collects the given repos right away, as /refresh does. With github.workQueue they are queued first
+     * and only these are worked on.
+     */
     public void collectProcess(Collector collector, List<GitHubRepo> reposToCollect) {
+        collectProcess(collector, reposToCollect, RepoWorkQueue.PRIORITY_REFRESH, false);
+    }
+
+    /**
+     * @param priority   the priority the repos are queued with, for github.workQueue
+     * @param drainQueue with github.workQueue, whether to work on every due job instead of just these repos
+     */
+    private void collectProcess(Collector collector, List<GitHubRepo> reposToCollect, int priority, boolean drainQueue) {
         long start = System.currentTimeMillis();
-        int repoCount = 0;
-        int commitCount = 0;
-        int pullCount = 0;
-        int issueCount = 0;
-        count.set(0);
+        CollectionTotals totals = new CollectionTotals(reposToCollect.size());
 
         int offSetMinutes = collectPrivateRepos(collector) ? gitHubSettings.getPrivateRepoOffsetMinutes() : gitHubSettings.getOffsetMinutes();
+        int concurrency = Math.min(Math.max(gitHubSettings.getRepoConcurrency(), 1), Math.max(reposToCollect.size(), 1));
+
+        if (gitHubSettings.isWorkQueue()) {
+            repoWorkQueue.enqueue(reposToCollect, priority, start);
+            Set<ObjectId> only = drainQueue ? null : reposToCollect.stream().map(GitHubRepo::getId).collect(Collectors.toSet());
+            collectQueued(reposToCollect, only, start, offSetMinutes, totals, Math.max(gitHubSettings.getRepoConcurrency(), 1));
+        } else if (gitHubSettings.isAsyncClient()) {
+            collectReposAsync(reposToCollect, start, offSetMinutes, totals, concurrency);
+        } else {
+            collectRepos(reposToCollect, start, offSetMinutes, totals, concurrency);
+        }
+
+        long end = System.currentTimeMillis();
+        long elapsedSeconds = (end - start) / 1000;
+        int repoCount = totals.repoCount.get();
+        int pullCount = totals.pullCount.get();
+        int commitCount = totals.commitCount.get();
+        int issueCount = totals.issueCount.get();
+        LOG.info(String.format("GitHubCollectorTask:collect stop, totalProcessSeconds=%d, totalRepoCount=%d, totalNewPulls=%d, totalNewCommits=%d totalNewIssues=%d",
+                elapsedSeconds, repoCount, pullCount, commitCount, issueCount));
+
+        collector.setLastExecutionRecordCount(repoCount + pullCount + commitCount + issueCount);
+        collector.setLastExecutedSeconds(elapsedSeconds);
+    }
+
+    private void collectRepos(List<GitHubRepo> reposToCollect, long start, int offSetMinutes, CollectionTotals totals, int concurrency) {
+        ExecutorService workers = WorkerExecutors.newRepoExecutor(gitHubSettings, concurrency);
+        if (workers == null) {
+            for (GitHubRepo repo : reposToCollect) {
+                collectRepo(repo, start, offSetMinutes, totals);
+            }
+        } else {
+            LOG.info(String.format("Collecting %d repos with repo_concurrency=%d, virtual_threads=%s", reposToCollect.size(), concurrency, gitHubSettings.isVirtualThreads()));
+            // virtual threads are not pooled, so this is what keeps repo starts, and their Mongo lookups, at repo_concurrency
+            Semaphore started = new Semaphore(concurrency);
+            try {
+                List<Future<?>> pending = new ArrayList<>();
+                for (GitHubRepo repo : reposToCollect) {
+                    started.acquire();
+                    pending.add(workers.submit(() -> {
+                        try {
+                            collectRepo(repo, start, offSetMinutes, totals);
+                        } finally {
+                            started.release();
+                        }
+                    }));
+                }
+                awaitAll(pending);
+            } catch (InterruptedException ie) {
+                LOG.error("Interrupted while starting repo collections", ie);
+                Thread.currentThread().interrupt();
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code concurrency} workers that claim and collect due jobs from the work queue until none is left.
+     * A job whose repo ended in an exception goes back to the queue to be retried. One that hit the rate limit goes
+     * back to wait for the reset without spending an attempt, and its worker stops claiming, as every other job would
+     * hit the limit too.
+     *
+     * @param only the repos to work on, or null for any job in the queue
+     */
+    private void collectQueued(List<GitHubRepo> knownRepos, Set<ObjectId> only, long start, int offSetMinutes, CollectionTotals totals, int concurrency) {
+        LOG.info(String.format("Collecting queued repos with repo_concurrency=%d, queued here=%d", concurrency, knownRepos.size()));
+        Map<ObjectId, GitHubRepo> reposById = new HashMap<>();
+        knownRepos.forEach(repo -> reposById.put(repo.getId(), repo));
+        Runnable worker = () -> {
+            RepoJob job;
+            while ((job = repoWorkQueue.claim(only)) != null) {
+                GitHubRepo repo = reposById.get(job.getCollectorItemId());
+                // queued by another instance or an earlier cycle
+                if (repo == null) repo = gitHubRepoRepository.findById(job.getCollectorItemId()).orElse(null);
+                if (repo == null || !repo.isEnabled()) {
+                    repoWorkQueue.complete(job);
+                    continue;
+                }
+                RepoStatus status = collectRepo(repo, start, offSetMinutes, totals);
+                if (status.outcome == Outcome.RATE_LIMITED) {
+                    repoWorkQueue.postpone(job, Math.max(gitHubClient.getRateLimitResetTime(), System.currentTimeMillis()), status.text);
+                    return;
+                } else if (status.outcome == Outcome.FAILED) {
+                    repoWorkQueue.fail(job, status.text);
+                } else {
+                    repoWorkQueue.complete(job);
+                }
+            }
+        };
+        ExecutorService workers = WorkerExecutors.newRepoExecutor(gitHubSettings, concurrency);
+        if (workers == null) {
+            worker.run();
+            return;
+        }
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                pending.add(workers.submit(worker));
+            }
+            awaitAll(pending);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
 
-        for (GitHubRepo repo : reposToCollect) {
-            repoCount++;
-            long repoStart = System.currentTimeMillis();
-            String repoUrl = repo == null ? "null" : (repo.getRepoUrl() + "/tree/" + repo.getBranch());
+    /**
+     * Starts up to github.asyncMaxRepos repo collections at once on the async client and saves each as it completes,
+     * on repo_concurrency threads.
+     */
+    private void collectReposAsync(List<GitHubRepo> reposToCollect, long start, int offSetMinutes, CollectionTotals totals, int concurrency) {
+        LOG.info(String.format("Collecting %d repos with async_max_repos=%d, repo_concurrency=%d", reposToCollect.size(), gitHubSettings.getAsyncMaxRepos(), concurrency));
+        Semaphore started = new Semaphore(Math.max(gitHubSettings.getAsyncMaxRepos(), 1));
+        ExecutorService savers = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("github-save-"));
+        try {
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (GitHubRepo repo : reposToCollect) {
+                started.acquire();
+                pending.add(collectRepoAsync(repo, start, offSetMinutes, totals, savers).whenComplete((done, error) -> started.release()));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        } catch (InterruptedException ie) {
+            LOG.error("Interrupted while waiting for repo collection to finish", ie);
+            Thread.currentThread().interrupt();
+        } catch (CompletionException ce) {
+            // collectRepoAsync handles its own failures, this only happens on Errors thrown past it
+            LOG.error("Repo collection worker failed", ce.getCause());
+        } finally {
+            savers.shutdownNow();
+        }
+    }
+
+    /**
+     * Collects a single repo and adds its counts to the run totals. Everything the repo needs
+     * lives on the stack, so this can run on any number of worker threads at once.
+     *
+     * @return how collecting the repo ended
+     */
+    private RepoStatus collectRepo(GitHubRepo repo, long start, int offSetMinutes, CollectionTotals totals) {
+        int repoNumber = totals.repoCount.incrementAndGet();
+        long repoStart = System.currentTimeMillis();
+        String repoUrl = repo == null ? "null" : (repo.getRepoUrl() + "/tree/" + repo.getBranch());
+        RepoStatus status = new RepoStatus(Outcome.FAILED, "UNKNOWN");
+        long lastUpdated = repo == null ? 0 : repo.getLastUpdated();
+        try {
+            RepoStatus skipped = skipReason(repo, start);
+            if (skipped != null) {
+                status = skipped;
+            } else {
+                boolean firstRun = isFirstRun(repo, start);
+                try {
+                    ExistingRequestIndex existingPulls = gitHubBulkRepository.findExistingRequests(repo.getId(), "pull");
+                    ExistingRequestIndex existingIssues = gitHubBulkRepository.findExistingRequests(repo.getId(), "issue");
+
+                    PageSink sink = pageSink(existingPulls, existingIssues, totals);
+                    RepoCollectionResult result = sink != null
+                            ? gitHubClient.fireGraphQL(repo, firstRun, existingPulls, existingIssues, offSetMinutes, sink)
+                            : gitHubClient.fireGraphQL(repo, firstRun, existingPulls, existingIssues, offSetMinutes);
+                    status = new RepoStatus(Outcome.COLLECTED, saveResult(repo, result, existingPulls, existingIssues, totals, sink));
+                } catch (RestClientException | MalformedURLException | HygieiaException ex) {
+                    status = recordError(repo, repoUrl, ex);
+                }
+
+                //enrich the metadata, before saving the collectorItem as it may mark the repo archived
+                enrichMetadata(repo);
+
+                //save the collectorItem
+                gitHubRepoRepository.save(repo);
+            }
+        } catch (Throwable e) {
+            status = new RepoStatus(Outcome.FAILED, String.format("EXCEPTION, %s", e.getClass().getCanonicalName()));
+            LOG.error(String.format("Unexpected exception when collecting url=%s", repoUrl), e);
+        } finally {
+            if (status.outcome != Outcome.SKIPPED && status.outcome != Outcome.RATE_LIMITED) releaseLease(repo);
+            logRepo(repoNumber, totals, repoUrl, repoStart, lastUpdated, start, status.text);
+        }
+        return status;
+    }
+
+    /**
+     * Async counterpart of collectRepo, for github.asyncClient. The checks and the existing-request lookups run on
+     * the calling thread, the collection itself on the client's pools, and saving on {@code saver}.
+     */
+    private CompletableFuture<Void> collectRepoAsync(GitHubRepo repo, long start, int offSetMinutes, CollectionTotals totals, Executor saver) {
+        int repoNumber = totals.repoCount.incrementAndGet();
+        long repoStart = System.currentTimeMillis();
+        String repoUrl = repo == null ? "null" : (repo.getRepoUrl() + "/tree/" + repo.getBranch());
+        long lastUpdated = repo == null ? 0 : repo.getLastUpdated();
+        ExistingRequestIndex existingPulls;
+        ExistingRequestIndex existingIssues;
+        PageSink sink;
+        CompletableFuture<RepoCollectionResult> collection;
+        try {
+            RepoStatus skipped = skipReason(repo, start);
+            if (skipped != null) {
+                logRepo(repoNumber, totals, repoUrl, repoStart, lastUpdated, start, skipped.text);
+                return CompletableFuture.completedFuture(null);
+            }
+            existingPulls = gitHubBulkRepository.findExistingRequests(repo.getId(), "pull");
+            existingIssues = gitHubBulkRepository.findExistingRequests(repo.getId(), "issue");
+            sink = pageSink(existingPulls, existingIssues, totals);
+            collection = sink != null
+                    ? gitHubClient.fireGraphQLAsync(repo, isFirstRun(repo, start), existingPulls, existingIssues, offSetMinutes, sink)
+                    : gitHubClient.fireGraphQLAsync(repo, isFirstRun(repo, start), existingPulls, existingIssues, offSetMinutes);
+        } catch (Throwable e) {
+            LOG.error(String.format("Unexpected exception when collecting url=%s", repoUrl), e);
+            releaseLease(repo);
+            logRepo(repoNumber, totals, repoUrl, repoStart, lastUpdated, start, String.format("EXCEPTION, %s", e.getClass().getCanonicalName()));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return collection.handleAsync((result, error) -> {
             String statusString = "UNKNOWN";
-            long lastUpdated = repo == null ? 0 : repo.getLastUpdated();
             try {
-                if (repo == null)
-                    throw new HygieiaException("Repository returned from github is null", HygieiaException.BAD_DATA);
-                boolean firstRun = ((repo.getLastUpdated() == 0) || ((start - repo.getLastUpdated()) > FOURTEEN_DAYS_MILLISECONDS));
-                if (!repo.checkErrorOrReset(gitHubSettings.getErrorResetWindow(), gitHubSettings.getErrorThreshold())) {
-                    statusString = "SKIPPED, errorThreshold exceeded";
-                } else if (!gitHubClient.isUnderRateLimit()) {
-                    LOG.error(String.format("GraphQL API rate limit reached after %d seconds since start. Stopping processing", (System.currentTimeMillis() - start) / 1000));
-                    // add wait time (default = 0.3s)
-                    statusString = String.format("SKIPPED, rateLimit exceeded, sleep for %d", gitHubSettings.getWaitTime());
-                    sleep(gitHubSettings.getWaitTime());
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause == null) {
+                    statusString = saveResult(repo, result, existingPulls, existingIssues, totals, sink);
+                } else if (cause instanceof RestClientException || cause instanceof MalformedURLException || cause instanceof HygieiaException) {
+                    statusString = recordError(repo, repoUrl, (Exception) cause).text;
                 } else {
-                    try {
-                        List<GitRequest> allRequests = gitRequestRepository.findRequestNumberAndLastUpdated(repo.getId());
-
-                        Map<Long, String> existingPRMap = allRequests.stream().filter(r -> Objects.equals(r.getRequestType(), "pull")).collect(
-                                Collectors.toMap(GitRequest::getUpdatedAt, GitRequest::getNumber,
-                                        (oldValue, newValue) -> oldValue
-                                )
-                        );
-
-                        Map<Long, String> existingIssueMap = allRequests.stream().filter(r -> Objects.equals(r.getRequestType(), "issue")).collect(
-                                Collectors.toMap(GitRequest::getUpdatedAt, GitRequest::getNumber,
-                                        (oldValue, newValue) -> oldValue
-                                )
-                        );
-
-                        gitHubClient.fireGraphQL(repo, firstRun, existingPRMap, existingIssueMap, offSetMinutes);
-
-                        // Get all the commits
-                        int commitCount1 = processCommits(repo);
-                        commitCount += commitCount1;
-
-                        //Get all the Pull Requests
-                        int pullCount1 = processPRorIssueList(repo, allRequests.stream().filter(r -> Objects.equals(r.getRequestType(), "pull")).collect(Collectors.toList()), "pull");
-                        pullCount += pullCount1;
-
-                        //Get all the Issues
-                        int issueCount1 = processPRorIssueList(repo, allRequests.stream().filter(r -> Objects.equals(r.getRequestType(), "issue")).collect(Collectors.toList()), "issue");
-                        issueCount += issueCount;
-
-                        // Due to timing of PRs and Commits in PR merge event, some commits may not be included in the response and will not be connected to a PR.
-                        // This is the place attempting to re-connect the commits and PRs in case they were missed during previous run.
-
-                        processOrphanCommits(repo);
-
-                        repo.setLastUpdated(System.currentTimeMillis());
-                        // if everything went alright, there should be no error!
-                        repo.getErrors().clear();
-                        statusString = String.format("SUCCESS, pulls=%d, commits=%d, issues=%d", pullCount1, commitCount1, issueCount1);
-                    } catch (HttpStatusCodeException hc) {
-                        LOG.error(String.format("Error fetching commits for:%s", repo.getRepoUrl()), hc);
-                        statusString = String.format("EXCEPTION, %s", hc.getClass().getCanonicalName());
-                        CollectionError error = new CollectionError(hc.getStatusCode().toString(), hc.getMessage());
-                        if (hc.getStatusCode() == HttpStatus.UNAUTHORIZED || hc.getStatusCode() == HttpStatus.FORBIDDEN) {
-                            LOG.error(String.format("Received 401/403 HttpStatusCodeException from GitHub. Status code=%s ResponseBody=%s", hc.getStatusCode(), hc.getResponseBodyAsString()));
-                            int retryAfterSeconds = NumberUtils.toInt(hc.getResponseHeaders().get(DefaultGitHubClient.RETRY_AFTER).get(0));
-                            long startSleeping = System.currentTimeMillis();
-                            LOG.info(String.format("Should Retry-After: %d sec. Start sleeping at: %s", retryAfterSeconds, new DateTime(startSleeping).toString("yyyy-MM-dd hh:mm:ss.SSa")));
-                            sleep(retryAfterSeconds * 1000L);
-                            long endSleeping = System.currentTimeMillis();
-                            LOG.info(String.format("Waking up after [%d] sec, at: %s", (endSleeping - startSleeping) / 1000L, new DateTime(endSleeping).toString("yyyy-MM-dd hh:mm:ss.SSa")));
-                        }
-                        if (hc.getStatusCode() == HttpStatus.NOT_FOUND) {
-                            LOG.error(String.format("Received 404 HttpStatusCodeException from GitHub. Status code=%s ResponseBody=%s", hc.getStatusCode(), hc.getResponseBodyAsString()));
-                            LOG.info(String.format("Deleting Github repo from collector-items=%s ", repoUrl));
-                            gitHubRepoRepository.deleteById(repo.getId());
-                        }
-                        repo.getErrors().add(error);
-                    } catch (RestClientException | MalformedURLException ex) {
-                        LOG.error(String.format("Error fetching commits for:%s", repo.getRepoUrl()), ex);
-                        statusString = String.format("EXCEPTION, %s", ex.getClass().getCanonicalName());
-                        CollectionError error = new CollectionError(CollectionError.UNKNOWN_HOST, ex.getMessage());
-                        repo.getErrors().add(error);
-                    } catch (HygieiaException he) {
-                        LOG.error(String.format("Error fetching commits for:%s", repo.getRepoUrl()), he);
-                        statusString = String.format("EXCEPTION, %s", he.getClass().getCanonicalName());
-                        CollectionError error = new CollectionError(String.valueOf(he.getErrorCode()), he.getMessage());
-                        repo.getErrors().add(error);
-                    }
-
-
-                    //save the collectorItem
-                    gitHubRepoRepository.save(repo);
-
-                    //enrich the metadata
-                    enrichMetadata(repo);
+                    throw cause;
                 }
+                enrichMetadata(repo);
+                gitHubRepoRepository.save(repo);
             } catch (Throwable e) {
                 statusString = String.format("EXCEPTION, %s", e.getClass().getCanonicalName());
                 LOG.error(String.format("Unexpected exception when collecting url=%s", repoUrl), e);
             } finally {
-                String age = readableAge(lastUpdated, start);
-                long itemProcessTime = System.currentTimeMillis() - repoStart;
-                LOG.info(String.format("%d of %d, repository=%s, itemProcessTime=%d lastUpdated=%d [%s], status=%s",
-                        repoCount, reposToCollect.size(), repoUrl, itemProcessTime, lastUpdated, age, statusString));
+                releaseLease(repo);
+                logRepo(repoNumber, totals, repoUrl, repoStart, lastUpdated, start, statusString);
+            }
+            return null;
+        }, saver);
+    }
+
+    private static boolean isFirstRun(GitHubRepo repo, long start) {
+        return (repo.getLastUpdated() == 0) || ((start - repo.getLastUpdated()) > FOURTEEN_DAYS_MILLISECONDS);
+    }
+
+    /**
+     * @return why the repo is not collected this time, or null if it should be
+     */
+    private RepoStatus skipReason(GitHubRepo repo, long start) throws HygieiaException {
+        if (repo == null)
+            throw new HygieiaException("Repository returned from github is null", HygieiaException.BAD_DATA);
+        if (!repo.checkErrorOrReset(gitHubSettings.getErrorResetWindow(), gitHubSettings.getErrorThreshold())) {
+            return new RepoStatus(Outcome.SKIPPED, "SKIPPED, errorThreshold exceeded");
+        } else if (!gitHubClient.isUnderRateLimit()) {
+            LOG.error(String.format("GraphQL API rate limit reached after %d seconds since start. Stopping processing", (System.currentTimeMillis() - start) / 1000));
+            // add wait time (default = 0.3s)
+            sleep(gitHubSettings.getWaitTime());
+            return new RepoStatus(Outcome.RATE_LIMITED, String.format("SKIPPED, rateLimit exceeded, sleep for %d", gitHubSettings.getWaitTime()));
+        } else if (RepoSharding.isEnabled(gitHubSettings) && !repoSharding.claim(repo)) {
+            return new RepoStatus(Outcome.SKIPPED, "SKIPPED, leased by another instance");
+        }
+        return null;
+    }
+
+    private void releaseLease(GitHubRepo repo) {
+        if (repo != null && RepoSharding.isEnabled(gitHubSettings)) repoSharding.release(repo);
+    }
+
+    /**
+     * @return a sink saving each page of one repo as the client processes it, or null to save the repo in one go
+     */
+    private PageSink pageSink(ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, CollectionTotals totals) {
+        if (!gitHubSettings.isCheckpointPages() && !gitHubSettings.isStreamPages()) return null;
+        return new PageSink(existingPulls, existingIssues, totals);
+    }
+
+    /**
+     * Writes the pages of one repo to Mongo as they come, for github.checkpointPages and github.streamPages. Commits
+     * already stored are skipped by processCommits. New pull requests and issues get their id here, so one that shows
+     * up again on a later page of the run replaces what the earlier page wrote instead of being inserted twice.
+     */
+    private final class PageSink implements PageCommitter {
+        private final ExistingRequestIndex existingPulls;
+        private final ExistingRequestIndex existingIssues;
+        private final CollectionTotals totals;
+        // ids given to requests this run inserted, by type and number
+        private final Map<String, ObjectId> written = new HashMap<>();
+        private int commitCount;
+        private int pullCount;
+        private int issueCount;
+
+        private PageSink(ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues, CollectionTotals totals) {
+            this.existingPulls = existingPulls;
+            this.existingIssues = existingIssues;
+            this.totals = totals;
+        }
+
+        @Override
+        public void commit(GitHubRepo repo, RepoCollectionResult page) {
+            int commits = processCommits(repo, page.getCommits());
+            int repeatedPulls = assignIds(page.getPulls(), existingPulls, "pull");
+            int pulls = processPRorIssueList(repo, page.getPulls(), existingPulls, "pull") - repeatedPulls;
+            int repeatedIssues = assignIds(page.getIssues(), existingIssues, "issue");
+            int issues = processPRorIssueList(repo, page.getIssues(), existingIssues, "issue") - repeatedIssues;
+            commitCount += commits;
+            pullCount += pulls;
+            issueCount += issues;
+            totals.commitCount.addAndGet(commits);
+            totals.pullCount.addAndGet(pulls);
+            totals.issueCount.addAndGet(issues);
+        }
+
+        @Override
+        public void checkpoint(GitHubRepo repo) {
+            gitHubRepoRepository.save(repo);
+            if (RepoSharding.isEnabled(gitHubSettings)) repoSharding.renew(repo);
+        }
+
+        /**
+         * @return how many of the new entries an earlier page of this run already wrote
+         */
+        private int assignIds(List<GitRequest> entries, ExistingRequestIndex existingIndex, String type) {
+            int repeated = 0;
+            for (GitRequest entry : entries) {
+                if (existingIndex.contains(entry.getNumber())) continue;
+                String key = type + '#' + entry.getNumber();
+                if (written.containsKey(key)) repeated++;
+                entry.setId(written.computeIfAbsent(key, number -> new ObjectId()));
             }
+            return repeated;
         }
-        long end = System.currentTimeMillis();
-        long elapsedSeconds = (end - start) / 1000;
-        count.set(commitCount);
-        LOG.info(String.format("GitHubCollectorTask:collect stop, totalProcessSeconds=%d, totalRepoCount=%d, totalNewPulls=%d, totalNewCommits=%d totalNewIssues=%d",
-                elapsedSeconds, repoCount, pullCount, commitCount, issueCount));
+    }
 
-        collector.setLastExecutionRecordCount(repoCount + pullCount + commitCount + issueCount);
-        collector.setLastExecutedSeconds(elapsedSeconds);
+    private long activityHalfLife() {
+        return TimeUnit.HOURS.toMillis(gitHubSettings.getActivityHalfLifeHours());
+    }
+
+    private String saveResult(GitHubRepo repo, RepoCollectionResult result, ExistingRequestIndex existingPulls, ExistingRequestIndex existingIssues,
+                              CollectionTotals totals, PageSink sink) {
+        RepoCheckpoint checkpoint = RepoCheckpoint.of(repo);
+        if (checkpoint != null) {
+            // the pages were saved as they came in, so what they inserted is existing by now and gets replaced
+            existingPulls = gitHubBulkRepository.findExistingRequests(repo.getId(), "pull");
+            existingIssues = gitHubBulkRepository.findExistingRequests(repo.getId(), "issue");
+        }
+
+        // Get all the commits
+        int commitCount1 = processCommits(repo, result.getCommits());
+        totals.commitCount.addAndGet(commitCount1);
+
+        //Get all the Pull Requests
+        int pullCount1 = processPRorIssueList(repo, result.getPulls(), existingPulls, "pull");
+        totals.pullCount.addAndGet(pullCount1);
+
+        //Get all the Issues
+        int issueCount1 = processPRorIssueList(repo, result.getIssues(), existingIssues, "issue");
+        totals.issueCount.addAndGet(issueCount1);
+
+        // Due to timing of PRs and Commits in PR merge event, some commits may not be included in the response and will not be connected to a PR.
+        // This is the place attempting to re-connect the commits and PRs in case they were missed during previous run.
+
+        processOrphanCommits(repo, result.getRepoOffsetTime());
+
+        if (sink != null) {
+            commitCount1 += sink.commitCount;
+            pullCount1 += sink.pullCount;
+            issueCount1 += sink.issueCount;
+        }
+
+        if (gitHubSettings.isPriorityScheduling()) {
+            RepoActivity.of(repo).add(commitCount1 + pullCount1 + issueCount1, System.currentTimeMillis(), activityHalfLife()).store(repo);
+        }
+
+        // a resumed run only saw what changed before it first started
+        repo.setLastUpdated(checkpoint != null ? checkpoint.getStartedAt() : System.currentTimeMillis());
+        RepoCheckpoint.clear(repo);
+        // if everything went alright, there should be no error!
+        repo.getErrors().clear();
+        return String.format("SUCCESS, pulls=%d, commits=%d, issues=%d", pullCount1, commitCount1, issueCount1);
+    }
+
+    /**
+     * Records a failed collection on the repo's errors, backing off or deleting the repo as GitHub's status asks.
+     */
+    private RepoStatus recordError(GitHubRepo repo, String repoUrl, Exception ex) {
+        LOG.error(String.format("Error fetching commits for:%s", repo.getRepoUrl()), ex);
+        String statusString = String.format("EXCEPTION, %s", ex.getClass().getCanonicalName());
+        Outcome outcome = Outcome.FAILED;
+        CollectionError error;
+        if (ex instanceof HttpStatusCodeException) {
+            HttpStatusCodeException hc = (HttpStatusCodeException) ex;
+            error = new CollectionError(hc.getStatusCode().toString(), hc.getMessage());
+            if (hc.getStatusCode() == HttpStatus.UNAUTHORIZED || hc.getStatusCode() == HttpStatus.FORBIDDEN) {
+                LOG.error(String.format("Received 401/403 HttpStatusCodeException from GitHub. Status code=%s ResponseBody=%s", hc.getStatusCode(), hc.getResponseBodyAsString()));
+                int retryAfterSeconds = NumberUtils.toInt(hc.getResponseHeaders().get(DefaultGitHubClient.RETRY_AFTER).get(0));
+                long startSleeping = System.currentTimeMillis();
+                LOG.info(String.format("Should Retry-After: %d sec. Start sleeping at: %s", retryAfterSeconds, new DateTime(startSleeping).toString("yyyy-MM-dd hh:mm:ss.SSa")));
+                sleep(retryAfterSeconds * 1000L);
+                long endSleeping = System.currentTimeMillis();
+                LOG.info(String.format("Waking up after [%d] sec, at: %s", (endSleeping - startSleeping) / 1000L, new DateTime(endSleeping).toString("yyyy-MM-dd hh:mm:ss.SSa")));
+            }
+            if (hc.getStatusCode() == HttpStatus.NOT_FOUND) {
+                LOG.error(String.format("Received 404 HttpStatusCodeException from GitHub. Status code=%s ResponseBody=%s", hc.getStatusCode(), hc.getResponseBodyAsString()));
+                LOG.info(String.format("Deleting Github repo from collector-items=%s ", repoUrl));
+                gitHubRepoRepository.deleteById(repo.getId());
+                outcome = Outcome.REMOVED;
+            }
+        } else if (ex instanceof HygieiaException) {
+            error = new CollectionError(String.valueOf(((HygieiaException) ex).getErrorCode()), ex.getMessage());
+        } else {
+            error = new CollectionError(CollectionError.UNKNOWN_HOST, ex.getMessage());
+        }
+        repo.getErrors().add(error);
+        return new RepoStatus(outcome, statusString);
+    }
+
+    private enum Outcome {
+        COLLECTED,
+        SKIPPED,
+        // skipped for now, worth trying again once the rate limit resets
+        RATE_LIMITED,
+        FAILED,
+        // GitHub no longer has the repo and its collector item was deleted
+        REMOVED
+    }
+
+    /**
+     * How collecting one repo ended, and the status line logged for it.
+     */
+    private static final class RepoStatus {
+        private final Outcome outcome;
+        private final String text;
+
+        private RepoStatus(Outcome outcome, String text) {
+            this.outcome = outcome;
+            this.text = text;
+        }
+    }
+
+    private static void logRepo(int repoNumber, CollectionTotals totals, String repoUrl, long repoStart, long lastUpdated, long start, String statusString) {
+        String age = readableAge(lastUpdated, start);
+        long itemProcessTime = System.currentTimeMillis() - repoStart;
+        LOG.info(String.format("%d of %d, repository=%s, itemProcessTime=%d lastUpdated=%d [%s], status=%s",
+                repoNumber, totals.totalRepos, repoUrl, itemProcessTime, lastUpdated, age, statusString));
+    }
+
+    private static void awaitAll(List<Future<?>> pending) {
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException ie) {
+                LOG.error("Interrupted while waiting for repo collection to finish", ie);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ee) {
+                // collectRepo handles its own failures, this only happens on Errors thrown past it
+                LOG.error("Repo collection worker failed", ee.getCause());
+            }
+        }
+    }
+
+    /**
+     * Running totals of a collection cycle, shared by all repo workers.
+     */
+    private static final class CollectionTotals {
+        private final int totalRepos;
+        private final AtomicInteger repoCount = new AtomicInteger(0);
+        private final AtomicInteger commitCount = new AtomicInteger(0);
+        private final AtomicInteger pullCount = new AtomicInteger(0);
+        private final AtomicInteger issueCount = new AtomicInteger(0);
+
+        private CollectionTotals(int totalRepos) {
+            this.totalRepos = totalRepos;
+        }
     }
 
 
@@ -409,8 +832,8 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
 
 
     // Retrieves a st of previous commits and Pulls and tries to reconnect them
-    private void processOrphanCommits(GitHubRepo repo) {
-        long refTime = Math.min(System.currentTimeMillis() - gitHubSettings.getCommitPullSyncTime(), gitHubClient.getRepoOffsetTime(repo));
+    private void processOrphanCommits(GitHubRepo repo, long repoOffsetTime) {
+        long refTime = Math.min(System.currentTimeMillis() - gitHubSettings.getCommitPullSyncTime(), repoOffsetTime);
         List<Commit> orphanCommits = commitRepository.findCommitsByCollectorItemIdAndTimestampAfterAndPullNumberIsNull(repo.getId(), refTime);
         List<GitRequest> pulls = gitRequestRepository.findByCollectorItemIdAndMergedAtIsBetween(repo.getId(), refTime, System.currentTimeMillis());
         orphanCommits = CommitPullMatcher.matchCommitToPulls(orphanCommits, pulls);
@@ -426,57 +849,40 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
      * Process commits
      *
      * @param repo
+     * @param commits commits collected for the repo
      * @return count added
      */
-    private int processCommits(GitHubRepo repo) {
-        int count = 0;
-        Long existingCount = commitRepository.countCommitsByCollectorItemId(repo.getId());
+    private int processCommits(GitHubRepo repo, List<Commit> commits) {
         long start = System.currentTimeMillis();
-        if (existingCount == 0) {
-            List<Commit> newCommits = gitHubClient.getCommits();
-            for (Commit c : newCommits) {
+        Map<String, Commit> nonDupCommits = new LinkedHashMap<>();
+        commits.forEach(c -> nonDupCommits.put(c.getScmRevisionNumber(), c));
 
-                if (repo.getRepoUrl().equalsIgnoreCase(c.getScmUrl()) && repo.getBranch().equalsIgnoreCase(c.getScmBranch())){
-                    c.setCollectorItemId(repo.getId());
-                }
+        Set<String> existingRevisions = gitHubBulkRepository.findExistingRevisions(repo.getId(), nonDupCommits.keySet());
+        List<Commit> newCommits = new ArrayList<>();
+        for (Commit commit : nonDupCommits.values()) {
+            if (existingRevisions.contains(commit.getScmRevisionNumber())) continue;
 
-                if (commitRepository.save(c) != null) {
-                    count++;
-                }
-            }
-        } else {
-            Collection<Commit> nonDupCommits = gitHubClient.getCommits().stream()
-                    .<Map<String, Commit>>collect(HashMap::new, (m, c) -> m.put(c.getScmRevisionNumber(), c), Map::putAll)
-                    .values();
-            for (Commit commit : nonDupCommits) {
-                LOG.debug(String.format("%d:::%s", commit.getTimestamp(), commit.getScmCommitLog()));
-                if (isNewCommit(repo, commit)) {
-
-                    if (repo.getRepoUrl().equalsIgnoreCase(commit.getScmUrl()) && repo.getBranch().equalsIgnoreCase(commit.getScmBranch())){
-                        commit.setCollectorItemId(repo.getId());
-                    }
-
-                    commitRepository.save(commit);
-                    count++;
-                }
+            if (repo.getRepoUrl().equalsIgnoreCase(commit.getScmUrl()) && repo.getBranch().equalsIgnoreCase(commit.getScmBranch())){
+                commit.setCollectorItemId(repo.getId());
             }
+            newCommits.add(commit);
         }
-        LOG.info("-- Saved Commits saved_commits=" + count + ", saved_commits_duration=" + (System.currentTimeMillis() - start) + " milliseconds");
+
+        int count = gitHubBulkRepository.insertCommits(newCommits, gitHubSettings.getBulkBatchSize());
+        LOG.info("-- Saved Commits new_commits=" + newCommits.size() + ", saved_commits=" + count + ", saved_commits_duration=" + (System.currentTimeMillis() - start) + " milliseconds");
         return count;
     }
 
-    private int processPRorIssueList(GitHubRepo repo, List<GitRequest> existingList, String type) {
+    int processPRorIssueList(GitHubRepo repo, List<GitRequest> entries, ExistingRequestIndex existingIndex, String type) {
         int count = 0;
         boolean isPull = "pull".equalsIgnoreCase(type);
-        List<GitRequest> entries = isPull ? gitHubClient.getPulls() : gitHubClient.getIssues();
 
         if (CollectionUtils.isEmpty(entries)) return 0;
 
         List<String> pullNumbers = new ArrayList<>();
 
         for (GitRequest entry : entries) {
-            Optional<GitRequest> existingOptional = existingList.stream().filter(r -> Objects.equals(r.getNumber(), entry.getNumber())).findFirst();
-            GitRequest existing = existingOptional.orElse(null);
+            boolean existing = existingIndex.contains(entry.getNumber());
             if (isPull) {
                 if (pullNumbers.size() < 10) {
                     pullNumbers.add(entry.getNumber());
@@ -484,9 +890,9 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
                     pullNumbers.add("...");
                 }
             }
-            if (existing != null) {
+            if (existing) {
                 LOG.info(String.format("Existing PR - collectorItemId=%s, RepoURL=%s, RepoBranch=%s\nEntryURL=%s, EntryBranch=%s", repo.getId().toString(), repo.getRepoUrl(), repo.getBranch(), entry.getScmUrl(), entry.getScmBranch()));
-                entry.setId(existing.getId());
+                entry.setId(existingIndex.findId(entry.getNumber()));
             }else {
                 count++;
                 LOG.info(String.format("Non Existing PR - collectorItemId=%s, RepoURL=%s, RepoBranch=%s\nEntryURL=%s, EntryBranch=%s", repo.getId().toString(), repo.getRepoUrl(), repo.getBranch(), entry.getScmUrl(), entry.getScmBranch()));
@@ -494,9 +900,10 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
             if (repo.getRepoUrl().equalsIgnoreCase(entry.getScmUrl()) && repo.getBranch().equalsIgnoreCase(entry.getScmBranch())){
                 entry.setCollectorItemId(repo.getId());
             }
-            gitRequestRepository.save(entry);
         }
-        LOG.info("-- Saved " + type + '=' + count + (isPull ? pullNumbers : 0));
+        long start = System.currentTimeMillis();
+        int written = gitHubBulkRepository.upsertGitRequests(entries, gitHubSettings.getBulkBatchSize());
+        LOG.info("-- Saved " + type + '=' + count + (isPull ? pullNumbers : 0) + ", written=" + written + ", duration=" + (System.currentTimeMillis() - start) + " milliseconds");
         return count;
     }
 
@@ -515,11 +922,6 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
     }
 
 
-    private boolean isNewCommit(GitHubRepo repo, Commit commit) {
-        return commitRepository.findByCollectorItemIdAndScmRevisionNumber(
-                repo.getId(), commit.getScmRevisionNumber()) == null;
-    }
-
     // Get Metadata for repo
     private void enrichMetadata(GitHubRepo repo) {
         try {
@@ -531,6 +933,9 @@ public class GitHubCollectorTask extends CollectorTask<GitHubCollector> {
             }
 
             gitHubClient.fetchMetadata(repo, collectorItemMetadata);
+            if (gitHubSettings.isPriorityScheduling()) {
+                RepoActivity.of(repo).setArchived(Boolean.parseBoolean(String.valueOf(collectorItemMetadata.getMetadata().get("archived")))).store(repo);
+            }
 
             if (Objects.isNull(collectorItemMetadata)) return;
             collectorItemMetadataRepository.save(collectorItemMetadata);
@@ -0,0 +1,60 @@
+package com.capitalone.dashboard.collector;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes GitHub response bodies with Jackson's streaming parser into the json-simple types the collector
+ * walks: objects become JSONObject, arrays JSONArray and integers Long, as JSONParser would produce,
+ * in a single pass and without JSONParser's per-call lexer and buffers.
+ */
+final class GitHubJson {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new SimpleModule("json-simple")
+                    .addAbstractTypeMapping(Map.class, JSONObject.class)
+                    .addAbstractTypeMapping(List.class, JSONArray.class))
+            .enable(DeserializationFeature.USE_LONG_FOR_INTS);
+
+    private GitHubJson() {
+    }
+
+    /**
+     * @throws IOException if {@code body} is empty, not JSON or not an object
+     */
+    static JSONObject readObject(String body) throws IOException {
+        return MAPPER.readValue(body, JSONObject.class);
+    }
+
+    /**
+     * @throws IOException if {@code body} is empty, not JSON or not an array
+     */
+    static JSONArray readArray(String body) throws IOException {
+        return MAPPER.readValue(body, JSONArray.class);
+    }
+
+    static JsonParser createParser(String body) throws IOException {
+        return MAPPER.getFactory().createParser(body);
+    }
+
+    /**
+     * Reads the object the parser is on, leaving the parser on its closing token.
+     */
+    static JSONObject readObject(JsonParser parser) throws IOException {
+        return MAPPER.readValue(parser, JSONObject.class);
+    }
+
+    /**
+     * Reads the array the parser is on, leaving the parser on its closing token.
+     */
+    static JSONArray readArray(JsonParser parser) throws IOException {
+        return MAPPER.readValue(parser, JSONArray.class);
+    }
+}
@@ -0,0 +1,179 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.client.RestOperationsSupplier;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One shared, pooled HTTP client for every GitHub call, replacing the default client the RestClient would otherwise
+ * build with its small per-route limit and no keep-alive policy. By default an Apache connection pool capped at
+ * github.httpMaxConnections overall and github.httpMaxConnectionsPerRoute per host, whose idle connections are kept
+ * for github.httpKeepAliveMillis (or less when the server's Keep-Alive header says so) and evicted afterwards.
+ * With github.http2 the JDK client is used instead, which multiplexes calls over one HTTP/2 connection where GitHub
+ * Enterprise offers it. Proxy settings are read from the http(s).proxy* system properties either way.
+ */
+@Component
+@Primary
+public class GitHubRestOperationsSupplier implements RestOperationsSupplier {
+    private static final Logger LOG = LoggerFactory.getLogger(GitHubRestOperationsSupplier.class);
+
+    private final PoolingHttpClientConnectionManager pool;
+    private final CloseableHttpClient httpClient;
+    private final JdkClientHttpRequestFactory jdkFactory;
+    private final RestTemplate restTemplate;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Autowired
+    public GitHubRestOperationsSupplier(GitHubSettings settings) {
+        if (settings.isHttp2()) {
+            this.pool = null;
+            this.httpClient = null;
+            this.jdkFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    // GitHub answers GETs for renamed or transferred repos with a 301, follow it like the Apache client does
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .proxy(ProxySelector.getDefault())
+                    .connectTimeout(Duration.ofMillis(positive(settings.getConnectTimeout(), 20000)))
+                    .build(), Duration.ofMillis(positive(settings.getReadTimeout(), 20000)), settings.isHttpGzip());
+            this.restTemplate = new RestTemplate(jdkFactory);
+        } else {
+            this.pool = new PoolingHttpClientConnectionManager();
+            pool.setMaxTotal(positive(settings.getHttpMaxConnections(), 100));
+            pool.setDefaultMaxPerRoute(Math.min(positive(settings.getHttpMaxConnectionsPerRoute(), 20), pool.getMaxTotal()));
+            pool.setValidateAfterInactivity(2000);
+            long keepAlive = positive(settings.getHttpKeepAliveMillis(), 60000L);
+            HttpClientBuilder builder = HttpClientBuilder.create()
+                    .useSystemProperties()
+                    .setConnectionManager(pool)
+                    .setKeepAliveStrategy(keepAliveStrategy(keepAlive))
+                    .evictExpiredConnections()
+                    .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectTimeout(positive(settings.getConnectTimeout(), 20000))
+                            .setSocketTimeout(positive(settings.getReadTimeout(), 20000))
+                            .build());
+            if (!settings.isHttpGzip()) builder.disableContentCompression();
+            this.httpClient = builder.build();
+            this.jdkFactory = null;
+            this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        }
+        restTemplate.setInterceptors(Collections.singletonList(interceptor(settings.isHttpGzipRequests())));
+    }
+
+    @Override
+    public RestOperations get() {
+        return restTemplate;
+    }
+
+    public HttpClientMetrics metrics() {
+        if (pool == null) {
+            return new HttpClientMetrics("jdk " + jdkFactory.version(), -1, -1, -1, -1, -1, -1,
+                    requests.get(), inFlight.get(), failures.get());
+        }
+        PoolStats total = pool.getTotalStats();
+        return new HttpClientMetrics("pooled HTTP/1.1", total.getMax(), pool.getDefaultMaxPerRoute(), total.getLeased(),
+                total.getAvailable(), total.getPending(), pool.getRoutes().size(), requests.get(), inFlight.get(), failures.get());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (httpClient == null) return;
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            LOG.warn("Closing the GitHub HTTP client failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Honours the server's Keep-Alive timeout when it sends one shorter than ours.
+     */
+    static ConnectionKeepAliveStrategy keepAliveStrategy(long keepAliveMillis) {
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    long serverMillis = NumberUtils.toLong(element.getValue(), -1) * 1000;
+                    if (serverMillis >= 0) return Math.min(serverMillis, keepAliveMillis);
+                }
+            }
+            return keepAliveMillis;
+        };
+    }
+
+    private ClientHttpRequestInterceptor interceptor(boolean gzipRequests) {
+        return (request, body, execution) -> {
+            byte[] sent = body;
+            if (gzipRequests && body.length > 0 && !request.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                sent = gzip(body);
+                request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            requests.incrementAndGet();
+            inFlight.incrementAndGet();
+            try {
+                ClientHttpResponse response = execution.execute(request, sent);
+                if (response.getRawStatusCode() >= 500) failures.incrementAndGet();
+                return response;
+            } catch (IOException | RuntimeException e) {
+                failures.incrementAndGet();
+                throw e;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int positive(int value, int fallback) {
+        return value > 0 ? value : fallback;
+    }
+
+    private static long positive(long value, long fallback) {
+        return value > 0 ? value : fallback;
+    }
+}
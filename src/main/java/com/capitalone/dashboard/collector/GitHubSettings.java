@@ -31,6 +31,8 @@ public class GitHubSettings {
 	// set to false to skip this check
 	@Value("${github.checkRateLimit:true}")
 	private boolean checkRateLimit;
+	@Value("${github.rateLimitBurst:100}") // calls let through at once before the rest are spread until the reset
+	private int rateLimitBurst;
 	@Value("${github.commitPullSyncTime:86400000}") // 1 day in milliseconds
 	private long commitPullSyncTime;
 	@Value("${github.offsetMinutes:10}") // 10 mins default
@@ -41,10 +43,21 @@ public class GitHubSettings {
 
 	@Value("${github.fetchCount:50}")
 	private int fetchCount;
+	@Value("${github.adaptivePageSize:false}") // learn the page size per repo, starting from fetchCount
+	private boolean adaptivePageSize;
+	@Value("${github.minPageSize:5}")
+	private int minPageSize;
+	@Value("${github.maxPageSize:100}")
+	private int maxPageSize;
+	@Value("${github.pageLatencyTargetMillis:5000}") // pages slower than this shrink
+	private long pageLatencyTargetMillis;
+	@Value("${github.pageCostTarget:50}") // pages only grow while their GraphQL cost stays under this
+	private int pageCostTarget;
 
 	private String searchCriteria;
 
 	private String personalAccessToken;
+	private List<String> personalAccessTokens; // pooled with personalAccessToken, see GitHubTokenPool
 
 	@Value("${github.connectTimeout:20000}")
 	private int connectTimeout;
@@ -52,6 +65,19 @@ public class GitHubSettings {
 	@Value("${github.readTimeout:20000}")
 	private int readTimeout;
 
+	@Value("${github.httpMaxConnections:100}") // pooled connections across all hosts
+	private int httpMaxConnections;
+	@Value("${github.httpMaxConnectionsPerRoute:20}") // pooled connections to one host
+	private int httpMaxConnectionsPerRoute;
+	@Value("${github.httpKeepAliveMillis:60000}") // idle connections are kept this long unless the server says less
+	private long httpKeepAliveMillis;
+	@Value("${github.httpGzip:true}") // ask for gzip responses
+	private boolean httpGzip;
+	@Value("${github.httpGzipRequests:false}") // gzip request bodies, only if the server accepts Content-Encoding: gzip
+	private boolean httpGzipRequests;
+	@Value("${github.http2:false}") // JDK client, HTTP/2 where the server negotiates it, HTTP/1.1 otherwise
+	private boolean http2;
+
 	private String proxyUrl;
 
 	private String proxyPort;
@@ -75,6 +101,80 @@ public class GitHubSettings {
 	@Value("${github.delay:250}")
 	private long delay;
 
+	@Value("${github.repoConcurrency:1}") // 1 = collect repos one at a time
+	private int repoConcurrency;
+
+	@Value("${github.virtualThreads:false}") // a virtual thread per repo, repoConcurrency at once, and per user lookup, needs java 21+
+	private boolean virtualThreads;
+
+	@Value("${github.maxInFlightRequests:0}") // 0 = no cap on concurrent GitHub calls
+	private int maxInFlightRequests;
+
+	@Value("${github.pipelinePages:false}") // request the next page while the current one is processed
+	private boolean pipelinePages;
+	@Value("${github.splitStreams:false}") // page commits, pull requests and issues of a repo as separate concurrent queries
+	private boolean splitStreams;
+	@Value("${github.checkpointPages:false}") // save each page and a resume checkpoint on the repo as collection goes
+	private boolean checkpointPages;
+	@Value("${github.streamPages:false}") // save each page as it comes and keep none of it in memory
+	private boolean streamPages;
+	@Value("${github.shardMode:none}") // none, hash or lease: how instances sharing the database split the repos, see RepoSharding
+	private String shardMode;
+	@Value("${github.instanceId:}") // this instance's name among the shards, pid@host when empty
+	private String instanceId;
+	@Value("${github.shardLeaseMinutes:30}") // how long a shard heartbeat or repo lease lasts without renewal
+	private int shardLeaseMinutes;
+	@Value("${github.workQueue:false}") // collect repos from a job queue in Mongo shared by all instances, see RepoWorkQueue
+	private boolean workQueue;
+	@Value("${github.workQueueLeaseSeconds:300}") // how long a claimed job stays claimed without a heartbeat
+	private int workQueueLeaseSeconds;
+	@Value("${github.workQueueMaxAttempts:5}") // tries per job before it is dropped
+	private int workQueueMaxAttempts;
+	@Value("${github.workQueueRetrySeconds:60}") // backoff after the first failure, doubling with each further one
+	private int workQueueRetrySeconds;
+	@Value("${github.priorityScheduling:false}") // collect busy repos more often than quiet ones, see RepoPriorityScheduler
+	private boolean priorityScheduling;
+	@Value("${github.hotRepoScore:20}") // activity at which a repo is hot
+	private double hotRepoScore;
+	@Value("${github.dormantRepoScore:1}") // activity below which a repo is dormant
+	private double dormantRepoScore;
+	@Value("${github.hotRepoIntervalMinutes:5}")
+	private int hotRepoIntervalMinutes;
+	@Value("${github.warmRepoIntervalMinutes:60}")
+	private int warmRepoIntervalMinutes;
+	@Value("${github.dormantRepoIntervalMinutes:1440}")
+	private int dormantRepoIntervalMinutes;
+	@Value("${github.archivedRepoIntervalMinutes:10080}")
+	private int archivedRepoIntervalMinutes;
+	@Value("${github.activityHalfLifeHours:72}") // how fast past activity stops counting
+	private int activityHalfLifeHours;
+	@Value("${github.asyncClient:false}") // collect repos as CompletableFuture chains on the pools below, see AsyncGitHubClient
+	private boolean asyncClient;
+	@Value("${github.asyncIoThreads:8}") // threads making GitHub calls for the async client
+	private int asyncIoThreads;
+	@Value("${github.asyncWorkerThreads:4}") // threads turning pages into model objects for the async client
+	private int asyncWorkerThreads;
+	@Value("${github.asyncMaxRepos:50}") // repos collected at once by the async client
+	private int asyncMaxRepos;
+
+	@Value("${github.bulkBatchSize:500}") // max documents per Mongo bulk write
+	private int bulkBatchSize;
+
+	@Value("${github.userCacheSize:10000}") // max logins kept in the user identity cache
+	private int userCacheSize;
+
+	@Value("${github.userCacheTtlMinutes:1440}") // 1 day default
+	private long userCacheTtlMinutes;
+
+	@Value("${github.userCacheNegativeTtlMinutes:60}") // how long a login GitHub does not know stays cached
+	private long userCacheNegativeTtlMinutes;
+
+	@Value("${github.userCachePersist:false}") // keep the user identity cache in Mongo so restarts start warm
+	private boolean userCachePersist;
+
+	@Value("${github.userBatchSize:50}") // logins resolved per GraphQL call, 0 = one REST call per login
+	private int userBatchSize;
+
 
 	public String getCron() {
 		return cron;
@@ -144,6 +244,14 @@ public class GitHubSettings {
 		this.personalAccessToken = personalAccessToken;
 	}
 
+	public List<String> getPersonalAccessTokens() {
+		return personalAccessTokens;
+	}
+
+	public void setPersonalAccessTokens(List<String> personalAccessTokens) {
+		this.personalAccessTokens = personalAccessTokens;
+	}
+
 	public int getErrorResetWindow() {
 		return errorResetWindow;
 	}
@@ -257,4 +365,356 @@ public class GitHubSettings {
 	public void setDelay(long delay) {
 		this.delay = delay;
 	}
-}
\ No newline at end of file
+
+	public int getRepoConcurrency() {
+		return repoConcurrency;
+	}
+
+	public void setRepoConcurrency(int repoConcurrency) {
+		this.repoConcurrency = repoConcurrency;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public int getMaxInFlightRequests() {
+		return maxInFlightRequests;
+	}
+
+	public void setMaxInFlightRequests(int maxInFlightRequests) {
+		this.maxInFlightRequests = maxInFlightRequests;
+	}
+
+	public int getBulkBatchSize() {
+		return bulkBatchSize;
+	}
+
+	public void setBulkBatchSize(int bulkBatchSize) {
+		this.bulkBatchSize = bulkBatchSize;
+	}
+
+	public int getUserCacheSize() {
+		return userCacheSize;
+	}
+
+	public void setUserCacheSize(int userCacheSize) {
+		this.userCacheSize = userCacheSize;
+	}
+
+	public long getUserCacheTtlMinutes() {
+		return userCacheTtlMinutes;
+	}
+
+	public void setUserCacheTtlMinutes(long userCacheTtlMinutes) {
+		this.userCacheTtlMinutes = userCacheTtlMinutes;
+	}
+
+	public long getUserCacheNegativeTtlMinutes() {
+		return userCacheNegativeTtlMinutes;
+	}
+
+	public void setUserCacheNegativeTtlMinutes(long userCacheNegativeTtlMinutes) {
+		this.userCacheNegativeTtlMinutes = userCacheNegativeTtlMinutes;
+	}
+
+	public boolean isUserCachePersist() {
+		return userCachePersist;
+	}
+
+	public void setUserCachePersist(boolean userCachePersist) {
+		this.userCachePersist = userCachePersist;
+	}
+
+	public int getUserBatchSize() {
+		return userBatchSize;
+	}
+
+	public void setUserBatchSize(int userBatchSize) {
+		this.userBatchSize = userBatchSize;
+	}
+
+	public int getRateLimitBurst() {
+		return rateLimitBurst;
+	}
+
+	public void setRateLimitBurst(int rateLimitBurst) {
+		this.rateLimitBurst = rateLimitBurst;
+	}
+
+	public boolean isAdaptivePageSize() {
+		return adaptivePageSize;
+	}
+
+	public void setAdaptivePageSize(boolean adaptivePageSize) {
+		this.adaptivePageSize = adaptivePageSize;
+	}
+
+	public int getMinPageSize() {
+		return minPageSize;
+	}
+
+	public void setMinPageSize(int minPageSize) {
+		this.minPageSize = minPageSize;
+	}
+
+	public int getMaxPageSize() {
+		return maxPageSize;
+	}
+
+	public void setMaxPageSize(int maxPageSize) {
+		this.maxPageSize = maxPageSize;
+	}
+
+	public long getPageLatencyTargetMillis() {
+		return pageLatencyTargetMillis;
+	}
+
+	public void setPageLatencyTargetMillis(long pageLatencyTargetMillis) {
+		this.pageLatencyTargetMillis = pageLatencyTargetMillis;
+	}
+
+	public int getPageCostTarget() {
+		return pageCostTarget;
+	}
+
+	public void setPageCostTarget(int pageCostTarget) {
+		this.pageCostTarget = pageCostTarget;
+	}
+
+	public int getHttpMaxConnections() {
+		return httpMaxConnections;
+	}
+
+	public void setHttpMaxConnections(int httpMaxConnections) {
+		this.httpMaxConnections = httpMaxConnections;
+	}
+
+	public int getHttpMaxConnectionsPerRoute() {
+		return httpMaxConnectionsPerRoute;
+	}
+
+	public void setHttpMaxConnectionsPerRoute(int httpMaxConnectionsPerRoute) {
+		this.httpMaxConnectionsPerRoute = httpMaxConnectionsPerRoute;
+	}
+
+	public long getHttpKeepAliveMillis() {
+		return httpKeepAliveMillis;
+	}
+
+	public void setHttpKeepAliveMillis(long httpKeepAliveMillis) {
+		this.httpKeepAliveMillis = httpKeepAliveMillis;
+	}
+
+	public boolean isHttpGzip() {
+		return httpGzip;
+	}
+
+	public void setHttpGzip(boolean httpGzip) {
+		this.httpGzip = httpGzip;
+	}
+
+	public boolean isHttpGzipRequests() {
+		return httpGzipRequests;
+	}
+
+	public void setHttpGzipRequests(boolean httpGzipRequests) {
+		this.httpGzipRequests = httpGzipRequests;
+	}
+
+	public boolean isHttp2() {
+		return http2;
+	}
+
+	public void setHttp2(boolean http2) {
+		this.http2 = http2;
+	}
+
+	public boolean isAsyncClient() {
+		return asyncClient;
+	}
+
+	public void setAsyncClient(boolean asyncClient) {
+		this.asyncClient = asyncClient;
+	}
+
+	public int getAsyncIoThreads() {
+		return asyncIoThreads;
+	}
+
+	public void setAsyncIoThreads(int asyncIoThreads) {
+		this.asyncIoThreads = asyncIoThreads;
+	}
+
+	public int getAsyncWorkerThreads() {
+		return asyncWorkerThreads;
+	}
+
+	public void setAsyncWorkerThreads(int asyncWorkerThreads) {
+		this.asyncWorkerThreads = asyncWorkerThreads;
+	}
+
+	public int getAsyncMaxRepos() {
+		return asyncMaxRepos;
+	}
+
+	public void setAsyncMaxRepos(int asyncMaxRepos) {
+		this.asyncMaxRepos = asyncMaxRepos;
+	}
+
+	public boolean isPipelinePages() {
+		return pipelinePages;
+	}
+
+	public void setPipelinePages(boolean pipelinePages) {
+		this.pipelinePages = pipelinePages;
+	}
+
+	public boolean isSplitStreams() {
+		return splitStreams;
+	}
+
+	public void setSplitStreams(boolean splitStreams) {
+		this.splitStreams = splitStreams;
+	}
+
+	public boolean isCheckpointPages() {
+		return checkpointPages;
+	}
+
+	public void setCheckpointPages(boolean checkpointPages) {
+		this.checkpointPages = checkpointPages;
+	}
+
+	public boolean isStreamPages() {
+		return streamPages;
+	}
+
+	public void setStreamPages(boolean streamPages) {
+		this.streamPages = streamPages;
+	}
+
+	public String getShardMode() {
+		return shardMode;
+	}
+
+	public void setShardMode(String shardMode) {
+		this.shardMode = shardMode;
+	}
+
+	public String getInstanceId() {
+		return instanceId;
+	}
+
+	public void setInstanceId(String instanceId) {
+		this.instanceId = instanceId;
+	}
+
+	public int getShardLeaseMinutes() {
+		return shardLeaseMinutes;
+	}
+
+	public void setShardLeaseMinutes(int shardLeaseMinutes) {
+		this.shardLeaseMinutes = shardLeaseMinutes;
+	}
+
+	public boolean isWorkQueue() {
+		return workQueue;
+	}
+
+	public void setWorkQueue(boolean workQueue) {
+		this.workQueue = workQueue;
+	}
+
+	public int getWorkQueueLeaseSeconds() {
+		return workQueueLeaseSeconds;
+	}
+
+	public void setWorkQueueLeaseSeconds(int workQueueLeaseSeconds) {
+		this.workQueueLeaseSeconds = workQueueLeaseSeconds;
+	}
+
+	public int getWorkQueueMaxAttempts() {
+		return workQueueMaxAttempts;
+	}
+
+	public void setWorkQueueMaxAttempts(int workQueueMaxAttempts) {
+		this.workQueueMaxAttempts = workQueueMaxAttempts;
+	}
+
+	public int getWorkQueueRetrySeconds() {
+		return workQueueRetrySeconds;
+	}
+
+	public void setWorkQueueRetrySeconds(int workQueueRetrySeconds) {
+		this.workQueueRetrySeconds = workQueueRetrySeconds;
+	}
+
+	public boolean isPriorityScheduling() {
+		return priorityScheduling;
+	}
+
+	public void setPriorityScheduling(boolean priorityScheduling) {
+		this.priorityScheduling = priorityScheduling;
+	}
+
+	public double getHotRepoScore() {
+		return hotRepoScore;
+	}
+
+	public void setHotRepoScore(double hotRepoScore) {
+		this.hotRepoScore = hotRepoScore;
+	}
+
+	public double getDormantRepoScore() {
+		return dormantRepoScore;
+	}
+
+	public void setDormantRepoScore(double dormantRepoScore) {
+		this.dormantRepoScore = dormantRepoScore;
+	}
+
+	public int getHotRepoIntervalMinutes() {
+		return hotRepoIntervalMinutes;
+	}
+
+	public void setHotRepoIntervalMinutes(int hotRepoIntervalMinutes) {
+		this.hotRepoIntervalMinutes = hotRepoIntervalMinutes;
+	}
+
+	public int getWarmRepoIntervalMinutes() {
+		return warmRepoIntervalMinutes;
+	}
+
+	public void setWarmRepoIntervalMinutes(int warmRepoIntervalMinutes) {
+		this.warmRepoIntervalMinutes = warmRepoIntervalMinutes;
+	}
+
+	public int getDormantRepoIntervalMinutes() {
+		return dormantRepoIntervalMinutes;
+	}
+
+	public void setDormantRepoIntervalMinutes(int dormantRepoIntervalMinutes) {
+		this.dormantRepoIntervalMinutes = dormantRepoIntervalMinutes;
+	}
+
+	public int getArchivedRepoIntervalMinutes() {
+		return archivedRepoIntervalMinutes;
+	}
+
+	public void setArchivedRepoIntervalMinutes(int archivedRepoIntervalMinutes) {
+		this.archivedRepoIntervalMinutes = archivedRepoIntervalMinutes;
+	}
+
+	public int getActivityHalfLifeHours() {
+		return activityHalfLifeHours;
+	}
+
+	public void setActivityHalfLifeHours(int activityHalfLifeHours) {
+		this.activityHalfLifeHours = activityHalfLifeHours;
+	}
+}
@@ -0,0 +1,75 @@
+package com.capitalone.dashboard.collector;
+
+import org.apache.commons.lang3.StringUtils;
+import org.joda.time.DateTime;
+
+/**
+ * Converts GitHub timestamps to epoch millis. GitHub sends UTC in the fixed form {@code yyyy-MM-ddTHH:mm:ssZ},
+ * which is read digit by digit without allocating; anything else goes through Joda as before.
+ */
+final class GitHubTimestamps {
+    private static final int LENGTH = "yyyy-MM-ddTHH:mm:ssZ".length();
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private GitHubTimestamps() {
+    }
+
+    /**
+     * @return epoch millis of {@code dateTime}, or 0 when it is empty
+     */
+    static long toEpochMillis(String dateTime) {
+        if (StringUtils.isEmpty(dateTime)) return 0;
+        long millis = parseUtc(dateTime);
+        return millis != Long.MIN_VALUE ? millis : new DateTime(dateTime).getMillis();
+    }
+
+    /**
+     * @return epoch millis of a {@code yyyy-MM-ddTHH:mm:ssZ} timestamp, or Long.MIN_VALUE if it has any other form
+     */
+    static long parseUtc(String s) {
+        if (s.length() != LENGTH || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T'
+                || s.charAt(13) != ':' || s.charAt(16) != ':' || s.charAt(19) != 'Z') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+        return epochDay(year, month, day) * MILLIS_PER_DAY + ((hour * 60L + minute) * 60L + second) * 1000L;
+    }
+
+    // -1 if any of the chars is not a digit
+    private static int digits(String s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // days since 1970-01-01 in the proleptic Gregorian calendar, counting years from March
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+}
@@ -0,0 +1,140 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.GitHubRateLimit;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The collector's own tokens, github.personalAccessToken plus github.personalAccessTokens, each with its
+ * own rate-limit buckets. Calls take the token with the most budget left, so load spreads over the pool
+ * and an exhausted token is skipped until its reset. Credentials configured on a repo are not pooled,
+ * but get buckets of their own as well.
+ */
+final class GitHubTokenPool {
+    private static final Logger LOG = LoggerFactory.getLogger(GitHubTokenPool.class);
+
+    static final class Token {
+        private final String value;
+        private final String name;
+        private final RateLimitScheduler rateLimits;
+
+        private Token(String value, String name, RateLimitScheduler rateLimits) {
+            this.value = value;
+            this.name = name;
+            this.rateLimits = rateLimits;
+        }
+
+        /**
+         * @return the token itself, null when the collector has none configured
+         */
+        String getValue() {
+            return value;
+        }
+
+        RateLimitScheduler getRateLimits() {
+            return rateLimits;
+        }
+
+        // never the token itself, safe to log
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final List<Token> tokens = new ArrayList<>();
+    // repo credential -> its buckets
+    private final Map<String, Token> credentials = new ConcurrentHashMap<>();
+    private final Supplier<RateLimitScheduler> schedulers;
+    // rotates the starting point so tokens with equal budgets take turns
+    private final AtomicInteger next = new AtomicInteger();
+
+    GitHubTokenPool(GitHubSettings settings) {
+        this(settings, () -> new RateLimitScheduler(settings));
+    }
+
+    GitHubTokenPool(GitHubSettings settings, Supplier<RateLimitScheduler> schedulers) {
+        this.schedulers = schedulers;
+        Set<String> values = new LinkedHashSet<>();
+        if (StringUtils.isNotEmpty(settings.getPersonalAccessToken())) values.add(settings.getPersonalAccessToken());
+        if (!CollectionUtils.isEmpty(settings.getPersonalAccessTokens())) {
+            settings.getPersonalAccessTokens().stream().filter(StringUtils::isNotBlank).map(String::trim).forEach(values::add);
+        }
+        for (String value : values) {
+            tokens.add(new Token(value, "token#" + (tokens.size() + 1), schedulers.get()));
+        }
+        if (tokens.isEmpty()) {
+            // unauthenticated, or GitHub Enterprise with auth on each repo: keeps the settings token as is
+            tokens.add(new Token(settings.getPersonalAccessToken(), "token#1", schedulers.get()));
+        } else if (tokens.size() > 1) {
+            LOG.info("Collecting with a pool of " + tokens.size() + " GitHub tokens");
+        }
+    }
+
+    /**
+     * @return the pooled token with the most {@code api} budget left; when all are used up, the one that resets first
+     */
+    Token select(RateLimitScheduler.Api api) {
+        return best(api, tokens, true);
+    }
+
+    /**
+     * @return the pooled token with the most {@code api} budget left other than {@code tried}, or null if none has any left
+     */
+    Token failover(RateLimitScheduler.Api api, Collection<Token> tried) {
+        List<Token> candidates = new ArrayList<>(tokens);
+        candidates.removeAll(tried);
+        return best(api, candidates, false);
+    }
+
+    /**
+     * @return the buckets of a credential configured on a repo
+     */
+    Token forCredential(String credential) {
+        return credentials.computeIfAbsent(credential, c -> new Token(c, "repo credential", schedulers.get()));
+    }
+
+    int size() {
+        return tokens.size();
+    }
+
+    /**
+     * @return the {@code api} budget of the token that has the most left
+     */
+    GitHubRateLimit snapshot(RateLimitScheduler.Api api) {
+        return select(api).getRateLimits().snapshot(api);
+    }
+
+    private Token best(RateLimitScheduler.Api api, List<Token> candidates, boolean exhaustedToo) {
+        if (candidates.isEmpty()) return null;
+        int start = Math.floorMod(next.getAndIncrement(), candidates.size());
+        Token best = null;
+        long bestAvailable = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            Token token = candidates.get((start + i) % candidates.size());
+            long available = token.getRateLimits().available(api);
+            if (best == null || available > bestAvailable
+                    || (available <= 0 && bestAvailable <= 0 && resetTime(token, api) < resetTime(best, api))) {
+                best = token;
+                bestAvailable = available;
+            }
+        }
+        return bestAvailable > 0 || exhaustedToo ? best : null;
+    }
+
+    private static long resetTime(Token token, RateLimitScheduler.Api api) {
+        return token.getRateLimits().snapshot(api).getResetTime();
+    }
+}
@@ -0,0 +1,43 @@
+package com.capitalone.dashboard.collector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a GraphQL connection: its paging info and the decoded nodes of its edges, in order.
+ * Decoding stops at the first edge without a node, as the tree-walking code did.
+ */
+final class GraphQLConnection<T> {
+    private int totalCount;
+    private String endCursor = "";
+    private boolean hasNextPage;
+    private final List<T> nodes = new ArrayList<>();
+
+    int getTotalCount() {
+        return totalCount;
+    }
+
+    void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    String getEndCursor() {
+        return endCursor;
+    }
+
+    void setEndCursor(String endCursor) {
+        this.endCursor = endCursor;
+    }
+
+    boolean hasNextPage() {
+        return hasNextPage;
+    }
+
+    void setHasNextPage(boolean hasNextPage) {
+        this.hasNextPage = hasNextPage;
+    }
+
+    List<T> getNodes() {
+        return nodes;
+    }
+}
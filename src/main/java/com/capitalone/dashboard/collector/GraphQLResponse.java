@@ -0,0 +1,101 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.GitHubRateLimit;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+
+/**
+ * A GraphQL response decoded once: its {@code data} and {@code errors} and the rate limit from its headers.
+ * The envelope is read token by token; {@code data} is handed to a {@link DataDecoder}, so callers choose
+ * between a json-simple tree and a decoder that maps it straight to model objects.
+ *
+ * @param <T> what {@code data} is decoded to
+ */
+final class GraphQLResponse<T> {
+    private static final Logger LOG = LoggerFactory.getLogger(GraphQLResponse.class);
+
+    /**
+     * Decodes the value of {@code data}. Called with the parser on the value's first token, which is never null;
+     * the decoder must consume the whole value.
+     */
+    interface DataDecoder<T> {
+        T decode(JsonParser parser) throws IOException;
+    }
+
+    static final DataDecoder<JSONObject> JSON_OBJECT = GitHubJson::readObject;
+
+    private final T data;
+    private final JSONArray errors;
+    private final GitHubRateLimit rateLimit;
+
+    private GraphQLResponse(T data, JSONArray errors, GitHubRateLimit rateLimit) {
+        this.data = data;
+        this.errors = errors;
+        this.rateLimit = rateLimit;
+    }
+
+    static GraphQLResponse<JSONObject> of(ResponseEntity<String> response) {
+        return of(response, JSON_OBJECT);
+    }
+
+    static <T> GraphQLResponse<T> of(ResponseEntity<String> response, DataDecoder<T> decoder) {
+        if (response == null) return new GraphQLResponse<>(null, new JSONArray(), null);
+
+        T data = null;
+        JSONArray errors = new JSONArray();
+        if (response.getBody() != null) {
+            try (JsonParser parser = GitHubJson.createParser(response.getBody())) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("GraphQL response is not a JSON object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.VALUE_NULL) continue;
+                    if ("data".equals(field)) {
+                        data = decoder.decode(parser);
+                    } else if ("errors".equals(field) && value == JsonToken.START_ARRAY) {
+                        errors = GitHubJson.readArray(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } catch (IOException e) {
+                LOG.error(e.getMessage());
+            }
+        }
+        return new GraphQLResponse<>(data, errors, RateLimitScheduler.rateLimit(response.getHeaders()));
+    }
+
+    /**
+     * @return the decoded {@code data}, or null if the response has none
+     */
+    T getData() {
+        return data;
+    }
+
+    /**
+     * @return the {@code errors} array, empty if there were no errors
+     */
+    JSONArray getErrors() {
+        return errors;
+    }
+
+    boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * @return the rate limit reported in the response headers, or null if they were missing
+     */
+    GitHubRateLimit getRateLimit() {
+        return rateLimit;
+    }
+}
@@ -0,0 +1,81 @@
+package com.capitalone.dashboard.collector;
+
+/**
+ * Point-in-time view of the HTTP client used for GitHub calls. Connection pool figures are -1 when the
+ * client does not expose its pool (the JDK client used for HTTP/2).
+ */
+public final class HttpClientMetrics {
+    private final String client;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int routes;
+    private final long requests;
+    private final int inFlight;
+    private final long failures;
+
+    HttpClientMetrics(String client, int maxConnections, int maxConnectionsPerRoute, int leased, int available, int pending,
+                      int routes, long requests, int inFlight, long failures) {
+        this.client = client;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+        this.routes = routes;
+        this.requests = requests;
+        this.inFlight = inFlight;
+        this.failures = failures;
+    }
+
+    public String getClient() {
+        return client;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /** connections currently handed out to requests */
+    public int getLeased() {
+        return leased;
+    }
+
+    /** idle connections kept alive for reuse */
+    public int getAvailable() {
+        return available;
+    }
+
+    /** requests waiting for a connection because the pool is exhausted */
+    public int getPending() {
+        return pending;
+    }
+
+    public int getRoutes() {
+        return routes;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("client=%s, leased=%d, available=%d, pending=%d, max=%d, maxPerRoute=%d, routes=%d, requests=%d, inFlight=%d, failures=%d",
+                client, leased, available, pending, maxConnections, maxConnectionsPerRoute, routes, requests, inFlight, failures);
+    }
+}
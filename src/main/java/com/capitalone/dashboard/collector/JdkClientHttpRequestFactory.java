@@ -0,0 +1,169 @@
+package com.capitalone.dashboard.collector;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Spring request factory over the JDK {@link HttpClient}, which negotiates HTTP/2 through ALPN and multiplexes
+ * concurrent calls to one host over a single connection, falling back to HTTP/1.1 when the server does not offer it.
+ * Bodies are buffered, as GitHub requests and responses are read whole anyway. The JDK client does not decompress,
+ * so gzip responses are inflated here.
+ */
+final class JdkClientHttpRequestFactory implements ClientHttpRequestFactory {
+    // headers the JDK client sets itself and refuses from callers
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.addAll(Arrays.asList(HttpHeaders.CONNECTION, HttpHeaders.CONTENT_LENGTH, HttpHeaders.EXPECT,
+                HttpHeaders.HOST, HttpHeaders.UPGRADE, HttpHeaders.DATE, HttpHeaders.FROM, HttpHeaders.REFERER, HttpHeaders.VIA,
+                HttpHeaders.WARNING));
+    }
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+    private final boolean gzip;
+
+    JdkClientHttpRequestFactory(HttpClient client, Duration readTimeout, boolean gzip) {
+        this.client = client;
+        this.readTimeout = readTimeout;
+        this.gzip = gzip;
+    }
+
+    HttpClient.Version version() {
+        return client.version();
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new Request(uri, httpMethod);
+    }
+
+    private final class Request implements ClientHttpRequest {
+        private final URI uri;
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+        private Request(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+            if (readTimeout != null) builder.timeout(readTimeout);
+            headers.forEach((name, values) -> {
+                if (RESTRICTED_HEADERS.contains(name)) return;
+                values.forEach(value -> builder.header(name, value));
+            });
+            if (gzip && !headers.containsKey(HttpHeaders.ACCEPT_ENCODING)) builder.header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            byte[] bytes = body.toByteArray();
+            builder.method(method.name(), bytes.length == 0 ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(bytes));
+            try {
+                return new Response(client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interrupted = new InterruptedIOException("Interrupted calling " + uri);
+                interrupted.initCause(e);
+                throw interrupted;
+            }
+        }
+    }
+
+    private static final class Response extends AbstractClientHttpResponse {
+        private final HttpResponse<InputStream> response;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final boolean gzipped;
+        private InputStream body;
+
+        private Response(HttpResponse<InputStream> response) {
+            this.response = response;
+            boolean gzipped = false;
+            for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+                String name = header.getKey();
+                if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) && header.getValue().contains("gzip")) {
+                    gzipped = true;
+                } else if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                    headers.addAll(name, header.getValue());
+                }
+            }
+            // the inflated length is unknown, so Content-Length only survives uncompressed bodies
+            if (!gzipped) response.headers().firstValue(HttpHeaders.CONTENT_LENGTH).ifPresent(length -> headers.set(HttpHeaders.CONTENT_LENGTH, length));
+            this.gzipped = gzipped;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus status = HttpStatus.resolve(response.statusCode());
+            return status == null ? "" : status.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) body = gzipped ? new GZIPInputStream(response.body()) : response.body();
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                (body == null ? response.body() : body).close();
+            } catch (IOException ignored) {
+                // the connection goes back to the client either way
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.RepoCollectionResult;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+
+/**
+ * Saves a repo's collection page by page, so a run that dies halfway does not lose what it already fetched.
+ * The client calls {@link #commit} with what a page added and, once that returned, {@link #checkpoint} with the
+ * repo's checkpoint moved past the page. Calls for one repo never overlap.
+ */
+public interface PageCommitter {
+
+    /**
+     * Saves the commits, pull requests and issues of one page.
+     */
+    void commit(GitHubRepo repo, RepoCollectionResult page);
+
+    /**
+     * Saves the repo, whose options now hold the checkpoint after the committed page.
+     */
+    void checkpoint(GitHubRepo repo);
+}
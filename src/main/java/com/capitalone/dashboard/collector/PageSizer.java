@@ -0,0 +1,116 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * Learns how many commits, pull requests and issues to ask for per page of one repo. The size shrinks
+ * when GitHub answers 502 or a page takes longer than the latency target, and grows while pages come back
+ * fast and the query cost GitHub reports stays under the cost target. The learned size is kept in the
+ * repo's options, so the next run starts from it. With github.splitStreams each stream of a repo learns its own
+ * size under its own option. A page fetched ahead by the pipeline may report back
+ * while the previous page is still being processed, so its methods are synchronized.
+ */
+final class PageSizer {
+    static final String PAGE_SIZE = "pageSize";
+    // GitHub's cap on first: in a connection
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final boolean adaptive;
+    private final int minSize;
+    private final int maxSize;
+    private final long latencyTargetMillis;
+    private final int costTarget;
+    // the repo option the size is kept in
+    private final String option;
+    private int size;
+    private boolean badGateway;
+
+    PageSizer(boolean adaptive, int initialSize, int minSize, int maxSize, long latencyTargetMillis, int costTarget) {
+        this(adaptive, initialSize, minSize, maxSize, latencyTargetMillis, costTarget, PAGE_SIZE);
+    }
+
+    PageSizer(boolean adaptive, int initialSize, int minSize, int maxSize, long latencyTargetMillis, int costTarget, String option) {
+        this.adaptive = adaptive;
+        this.minSize = Math.max(1, Math.min(minSize, MAX_PAGE_SIZE));
+        this.maxSize = Math.max(this.minSize, Math.min(maxSize, MAX_PAGE_SIZE));
+        this.latencyTargetMillis = latencyTargetMillis;
+        this.costTarget = costTarget;
+        this.option = option;
+        this.size = adaptive ? clamp(initialSize) : initialSize;
+    }
+
+    /**
+     * @return a sizer starting from the size learned for {@code repo}, or from github.fetchCount on its first run;
+     * one that always returns github.fetchCount when github.adaptivePageSize is off
+     */
+    static PageSizer forRepo(GitHubSettings settings, GitHubRepo repo) {
+        return forRepo(settings, repo, PAGE_SIZE);
+    }
+
+    /**
+     * @param option the repo option the size is learned under
+     */
+    static PageSizer forRepo(GitHubSettings settings, GitHubRepo repo, String option) {
+        int initialSize = settings.getFetchCount();
+        Object learned = repo.getOptions().get(option);
+        if (settings.isAdaptivePageSize() && learned != null) {
+            initialSize = NumberUtils.toInt(learned.toString(), initialSize);
+        }
+        return new PageSizer(settings.isAdaptivePageSize(), initialSize, settings.getMinPageSize(), settings.getMaxPageSize(),
+                settings.getPageLatencyTargetMillis(), settings.getPageCostTarget(), option);
+    }
+
+    boolean isAdaptive() {
+        return adaptive;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Halves the size after GitHub gave up on a page.
+     *
+     * @return true if the size changed
+     */
+    synchronized boolean onBadGateway() {
+        if (!adaptive) return false;
+        badGateway = true;
+        int previous = size;
+        size = clamp(size / 2);
+        return size != previous;
+    }
+
+    /**
+     * Adjusts the size after a page came back.
+     *
+     * @param latencyMillis how long the page took, retries included
+     * @param cost          the query cost GitHub reported, 0 if it reported none
+     */
+    synchronized void onPage(long latencyMillis, int cost) {
+        if (!adaptive) return;
+        boolean hadBadGateway = badGateway;
+        badGateway = false;
+        if (latencyMillis > latencyTargetMillis) {
+            size = clamp(size * 3 / 4);
+        } else if (!hadBadGateway && latencyMillis < latencyTargetMillis / 2) {
+            int grown = clamp(size + Math.max(1, size / 4));
+            // the cost of a query grows with the page size
+            if (cost <= 0 || (long) cost * grown / size <= costTarget) {
+                size = grown;
+            }
+        }
+    }
+
+    /**
+     * Keeps the learned size on the repo for its next run.
+     */
+    synchronized void store(GitHubRepo repo) {
+        if (adaptive) repo.getOptions().put(option, size);
+    }
+
+    private int clamp(int value) {
+        return Math.max(minSize, Math.min(maxSize, value));
+    }
+}
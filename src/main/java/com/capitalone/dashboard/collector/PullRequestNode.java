@@ -0,0 +1,120 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.Comment;
+import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.CommitStatus;
+import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.model.MergeEvent;
+import com.capitalone.dashboard.model.Review;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pull request node of a collection query, or the {@code pullRequest} of a follow-up query for more comments and
+ * reviews, as RepositoryPageDecoder maps it. The request carries the fields GitHub sent; processPullRequest adds
+ * the repo-specific ones and the users. The rest is kept beside it until processing decides what to use, which
+ * depends on whether the pull request was merged.
+ */
+final class PullRequestNode {
+    private final GitRequest pull = new GitRequest();
+    private boolean merged;
+    private String mergeCommitSha = "";
+    private String headRepositoryUrl;
+    private GraphQLConnection<PullRequestCommit> commits;
+    private GraphQLConnection<Comment> comments;
+    private GraphQLConnection<Review> reviews;
+    private final List<MergeEvent> mergeEvents = new ArrayList<>();
+
+    /**
+     * A commit of the pull request with the status contexts GitHub reported for it.
+     */
+    static final class PullRequestCommit {
+        private final Commit commit;
+        private List<CommitStatus> statuses;
+
+        PullRequestCommit(Commit commit) {
+            this.commit = commit;
+        }
+
+        Commit getCommit() {
+            return commit;
+        }
+
+        /**
+         * @return every context of the commit's status in the order GitHub sent them, or null if it has no status
+         */
+        List<CommitStatus> getStatuses() {
+            return statuses;
+        }
+
+        void setStatuses(List<CommitStatus> statuses) {
+            this.statuses = statuses;
+        }
+    }
+
+    GitRequest getPull() {
+        return pull;
+    }
+
+    /**
+     * @return true if GitHub sent a mergedAt
+     */
+    boolean isMerged() {
+        return merged;
+    }
+
+    void setMerged(boolean merged) {
+        this.merged = merged;
+    }
+
+    String getMergeCommitSha() {
+        return mergeCommitSha;
+    }
+
+    void setMergeCommitSha(String mergeCommitSha) {
+        this.mergeCommitSha = mergeCommitSha;
+    }
+
+    /**
+     * @return the url of the repository the pull request comes from, or null if GitHub sent none
+     */
+    String getHeadRepositoryUrl() {
+        return headRepositoryUrl;
+    }
+
+    void setHeadRepositoryUrl(String headRepositoryUrl) {
+        this.headRepositoryUrl = headRepositoryUrl;
+    }
+
+    GraphQLConnection<PullRequestCommit> getCommits() {
+        return commits;
+    }
+
+    void setCommits(GraphQLConnection<PullRequestCommit> commits) {
+        this.commits = commits;
+    }
+
+    GraphQLConnection<Comment> getComments() {
+        return comments;
+    }
+
+    void setComments(GraphQLConnection<Comment> comments) {
+        this.comments = comments;
+    }
+
+    GraphQLConnection<Review> getReviews() {
+        return reviews;
+    }
+
+    void setReviews(GraphQLConnection<Review> reviews) {
+        this.reviews = reviews;
+    }
+
+    /**
+     * @return the MergedEvents of the timeline, with the number of the pull request each one merged
+     */
+    List<MergeEvent> getMergeEvents() {
+        return mergeEvents;
+    }
+}
@@ -0,0 +1,181 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.GitHubRateLimit;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.RestClientException;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces every GitHub call against the budget GitHub reports in its {@code X-RateLimit-*} headers.
+ * The GraphQL point budget and the REST budget are separate buckets. Each hands out up to {@code burst}
+ * calls at once, then spaces the rest evenly over the time left until its reset, always keeping
+ * {@code reserve} calls back. A bucket that has not seen any headers yet lets everything through.
+ */
+final class RateLimitScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(RateLimitScheduler.class);
+    // GitHub's budget window, assumed for the next window until a response says otherwise
+    private static final long WINDOW_MILLIS = 60 * 60 * 1000L;
+    private static final long LOG_WAIT_MILLIS = 1000L;
+
+    enum Api { GRAPHQL, REST }
+
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final boolean enabled;
+    private final int reserve;
+    private final int burst;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+    private final Map<Api, Bucket> buckets = new EnumMap<>(Api.class);
+
+    RateLimitScheduler(GitHubSettings settings) {
+        this(settings.isCheckRateLimit(), settings.getRateLimitThreshold(), settings.getRateLimitBurst(), System::currentTimeMillis, Thread::sleep);
+    }
+
+    RateLimitScheduler(boolean enabled, int reserve, int burst, LongSupplier clock, Sleeper sleeper) {
+        this.enabled = enabled;
+        this.reserve = Math.max(reserve, 0);
+        this.burst = Math.max(burst, 1);
+        this.clock = clock;
+        this.sleeper = sleeper;
+        for (Api api : Api.values()) {
+            buckets.put(api, new Bucket());
+        }
+    }
+
+    /**
+     * Blocks until {@code api} may be called again.
+     */
+    void acquire(Api api) {
+        if (!enabled) return;
+        Bucket bucket = buckets.get(api);
+        while (true) {
+            long reserved = bucket.reserve(clock.getAsLong(), reserve, burst);
+            if (reserved == 0) return;
+            long wait = Math.abs(reserved);
+            if (wait >= LOG_WAIT_MILLIS) {
+                LOG.info("Waiting " + wait + " ms for the " + api + " rate limit, " + bucket);
+            }
+            try {
+                sleeper.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RestClientException("Interrupted while waiting for the GitHub " + api + " rate limit", e);
+            }
+            if (reserved > 0) return;
+        }
+    }
+
+    /**
+     * Feeds the budget from a response's headers; responses without them are ignored.
+     */
+    void update(Api api, HttpHeaders headers) {
+        update(api, rateLimit(headers));
+    }
+
+    void update(Api api, GitHubRateLimit rateLimit) {
+        if (rateLimit == null) return;
+        buckets.get(api).update(rateLimit.getLimit(), rateLimit.getRemaining(), rateLimit.getResetTime());
+    }
+
+    /**
+     * @return calls {@code api} has left above the reserve before it waits for its reset,
+     * Long.MAX_VALUE while its budget is unknown
+     */
+    long available(Api api) {
+        return buckets.get(api).available(clock.getAsLong(), reserve);
+    }
+
+    /**
+     * @return a copy of the last known budget of {@code api}, all zero if none is known yet
+     */
+    GitHubRateLimit snapshot(Api api) {
+        return buckets.get(api).snapshot(clock.getAsLong());
+    }
+
+    /**
+     * @return the rate limit in {@code X-RateLimit-*} headers, or null if any of them is missing
+     */
+    static GitHubRateLimit rateLimit(HttpHeaders headers) {
+        if (headers == null) return null;
+        List<String> limit = headers.get(DefaultGitHubClient.X_RATE_LIMIT_LIMIT);
+        List<String> remaining = headers.get(DefaultGitHubClient.X_RATE_LIMIT_REMAINING);
+        List<String> reset = headers.get(DefaultGitHubClient.X_RATE_LIMIT_RESET);
+        if (CollectionUtils.isEmpty(limit) || CollectionUtils.isEmpty(remaining) || CollectionUtils.isEmpty(reset)) return null;
+
+        GitHubRateLimit rateLimit = new GitHubRateLimit();
+        rateLimit.setLimit(NumberUtils.toInt(limit.get(0)));
+        rateLimit.setRemaining(NumberUtils.toInt(remaining.get(0)));
+        rateLimit.setResetTime(NumberUtils.toLong(reset.get(0)));
+        return rateLimit;
+    }
+
+    /**
+     * One budget, paced with a generic cell rate algorithm: {@code nextFree} is when the bucket would be
+     * empty again if every granted call had been spread out evenly.
+     */
+    private static final class Bucket {
+        private boolean known;
+        private long limit;
+        private long remaining;
+        private long resetMillis;
+        private long nextFree;
+
+        synchronized void update(long limit, long remaining, long resetSeconds) {
+            this.known = true;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetMillis = resetSeconds * 1000L;
+        }
+
+        /**
+         * @return 0 if the call may go now, how long to wait before it may go if positive, or if negative,
+         * how long to wait before asking again because the budget is used up until the reset
+         */
+        synchronized long reserve(long now, int reserve, int burst) {
+            if (!known) return 0;
+            if (now >= resetMillis) {
+                remaining = limit;
+                resetMillis = now + WINDOW_MILLIS;
+                nextFree = now;
+            }
+            long available = remaining - reserve;
+            if (available <= 0) return -(resetMillis - now);
+
+            long interval = (resetMillis - now) / available;
+            long start = Math.max(nextFree, now);
+            nextFree = start + interval;
+            remaining--;
+            return Math.max(0, nextFree - burst * interval - now);
+        }
+
+        synchronized long available(long now, int reserve) {
+            if (!known) return Long.MAX_VALUE;
+            return (now >= resetMillis ? limit : remaining) - reserve;
+        }
+
+        synchronized GitHubRateLimit snapshot(long now) {
+            GitHubRateLimit rateLimit = new GitHubRateLimit();
+            if (!known) return rateLimit;
+            rateLimit.setLimit(limit);
+            rateLimit.setRemaining(now >= resetMillis ? limit : remaining);
+            rateLimit.setResetTime(resetMillis / 1000L);
+            return rateLimit;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "remaining=" + remaining + ", limit=" + limit + ", resetAt=" + resetMillis / 1000L;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How busy a repo is, kept in the repo's options for github.priorityScheduling: the new commits, pull requests
+ * and issues past runs found plus the events API hits, decaying with github.activityHalfLifeHours, the number of
+ * dashboards showing the repo, and whether GitHub reports it archived.
+ */
+final class RepoActivity {
+    static final String ACTIVITY = "activity";
+    // the dashboard count in a repo document, for updates that leave the rest of the activity alone
+    static final String DASHBOARDS_FIELD = "options." + ACTIVITY + ".dashboards";
+
+    // an events API hit counts as much as this many new items
+    static final double EVENT_WEIGHT = 5;
+
+    private static final String SCORE = "score";
+    private static final String SCORED_AT = "scoredAt";
+    private static final String DASHBOARDS = "dashboards";
+    private static final String ARCHIVED = "archived";
+
+    private double score;
+    private long scoredAt;
+    private int dashboards;
+    private boolean archived;
+
+    /**
+     * @return the activity kept on {@code repo}, or an empty one if it has none yet
+     */
+    static RepoActivity of(GitHubRepo repo) {
+        RepoActivity activity = new RepoActivity();
+        Object stored = repo.getOptions().get(ACTIVITY);
+        if (!(stored instanceof Map)) return activity;
+        Map<?, ?> map = (Map<?, ?>) stored;
+        activity.score = asNumber(map.get(SCORE)).doubleValue();
+        activity.scoredAt = asNumber(map.get(SCORED_AT)).longValue();
+        activity.dashboards = asNumber(map.get(DASHBOARDS)).intValue();
+        activity.archived = Boolean.TRUE.equals(map.get(ARCHIVED));
+        return activity;
+    }
+
+    void store(GitHubRepo repo) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(SCORE, score);
+        map.put(SCORED_AT, scoredAt);
+        map.put(DASHBOARDS, dashboards);
+        map.put(ARCHIVED, archived);
+        repo.getOptions().put(ACTIVITY, map);
+    }
+
+    /**
+     * Adds {@code weight} to the activity, after decaying what was there to {@code now}.
+     */
+    RepoActivity add(double weight, long now, long halfLifeMillis) {
+        score = score(now, halfLifeMillis) + weight;
+        scoredAt = now;
+        return this;
+    }
+
+    /**
+     * @return the decayed activity at {@code now}
+     */
+    double score(long now, long halfLifeMillis) {
+        if (score == 0 || halfLifeMillis <= 0 || now <= scoredAt) return score;
+        return score * Math.pow(0.5, (double) (now - scoredAt) / halfLifeMillis);
+    }
+
+    /**
+     * @return the decayed activity weighted by dashboard usage: a repo on more dashboards ranks higher
+     */
+    double priority(long now, long halfLifeMillis) {
+        return score(now, halfLifeMillis) * (1 + Math.log(1 + dashboards) / Math.log(2));
+    }
+
+    RepoActivity setDashboards(int dashboards) {
+        this.dashboards = dashboards;
+        return this;
+    }
+
+    RepoActivity setArchived(boolean archived) {
+        this.archived = archived;
+        return this;
+    }
+
+    int getDashboards() {
+        return dashboards;
+    }
+
+    boolean isArchived() {
+        return archived;
+    }
+
+    private static Number asNumber(Object value) {
+        return value instanceof Number ? (Number) value : NumberUtils.toDouble(value == null ? null : value.toString());
+    }
+}
@@ -0,0 +1,132 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.GitHubPaging;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How far an unfinished collection of a repo got: the cursor of each of its commit, pull request and issue streams
+ * after the last page that was saved, and the watermarks the run started from. Kept in the repo's options while the
+ * repo is being collected with github.checkpointPages, so a collector restarted mid-repo picks up from the last saved
+ * page instead of the beginning. Removed once the repo has been collected completely.
+ */
+final class RepoCheckpoint {
+    static final String CHECKPOINT = "checkpoint";
+
+    private static final String STARTED_AT = "startedAt";
+    private static final String FIRST_RUN = "firstRun";
+    private static final String SINCE = "since";
+    private static final String HISTORY_TIMESTAMP = "historyTimeStamp";
+    private static final String PAGES = "pages";
+    private static final String CURSOR = "Cursor";
+    private static final String DONE = "Done";
+
+    // when the interrupted run started, and so the lastUpdated the repo gets once it is done
+    private final long startedAt;
+    private final boolean firstRun;
+    // the commit history the run asked for, and the oldest issue update it looked at
+    private final String since;
+    private final long historyTimeStamp;
+    private final Map<DefaultGitHubClient.PageStream, String> cursors = new LinkedHashMap<>();
+    private final Map<DefaultGitHubClient.PageStream, Boolean> done = new LinkedHashMap<>();
+    private int pages;
+
+    RepoCheckpoint(long startedAt, boolean firstRun, String since, long historyTimeStamp) {
+        this.startedAt = startedAt;
+        this.firstRun = firstRun;
+        this.since = since;
+        this.historyTimeStamp = historyTimeStamp;
+    }
+
+    /**
+     * @return the checkpoint kept on {@code repo}, or null if it has none
+     */
+    static RepoCheckpoint of(GitHubRepo repo) {
+        Object stored = repo.getOptions().get(CHECKPOINT);
+        if (!(stored instanceof Map)) return null;
+        Map<?, ?> map = (Map<?, ?>) stored;
+        RepoCheckpoint checkpoint = new RepoCheckpoint(asLong(map.get(STARTED_AT)), Boolean.TRUE.equals(map.get(FIRST_RUN)),
+                map.get(SINCE) == null ? null : map.get(SINCE).toString(), asLong(map.get(HISTORY_TIMESTAMP)));
+        checkpoint.pages = (int) asLong(map.get(PAGES));
+        for (DefaultGitHubClient.PageStream stream : DefaultGitHubClient.PageStream.values()) {
+            Object cursor = map.get(key(stream) + CURSOR);
+            if (cursor != null) checkpoint.cursors.put(stream, cursor.toString());
+            if (Boolean.TRUE.equals(map.get(key(stream) + DONE))) checkpoint.done.put(stream, true);
+        }
+        return checkpoint;
+    }
+
+    static void clear(GitHubRepo repo) {
+        repo.getOptions().remove(CHECKPOINT);
+    }
+
+    void store(GitHubRepo repo) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(STARTED_AT, startedAt);
+        map.put(FIRST_RUN, firstRun);
+        map.put(SINCE, since);
+        map.put(HISTORY_TIMESTAMP, historyTimeStamp);
+        map.put(PAGES, pages);
+        cursors.forEach((stream, cursor) -> map.put(key(stream) + CURSOR, cursor));
+        done.forEach((stream, isDone) -> map.put(key(stream) + DONE, isDone));
+        repo.getOptions().put(CHECKPOINT, map);
+    }
+
+    /**
+     * Moves a stream past a saved page.
+     */
+    void advance(DefaultGitHubClient.PageStream stream, GitHubPaging paging) {
+        if (paging.getCursor() != null) cursors.put(stream, paging.getCursor());
+        if (paging.isLastPage()) done.put(stream, true);
+    }
+
+    void pageSaved() {
+        pages++;
+    }
+
+    /**
+     * @return the paging to continue {@code stream} from, or null if none of its pages was saved yet
+     */
+    GitHubPaging paging(DefaultGitHubClient.PageStream stream) {
+        if (!isDone(stream) && !cursors.containsKey(stream)) return null;
+        GitHubPaging paging = new GitHubPaging();
+        paging.setCursor(cursors.get(stream));
+        paging.setLastPage(isDone(stream));
+        return paging;
+    }
+
+    boolean isDone(DefaultGitHubClient.PageStream stream) {
+        return done.containsKey(stream);
+    }
+
+    long getStartedAt() {
+        return startedAt;
+    }
+
+    boolean isFirstRun() {
+        return firstRun;
+    }
+
+    String getSince() {
+        return since;
+    }
+
+    long getHistoryTimeStamp() {
+        return historyTimeStamp;
+    }
+
+    int getPages() {
+        return pages;
+    }
+
+    private static String key(DefaultGitHubClient.PageStream stream) {
+        return stream.name().toLowerCase();
+    }
+
+    private static long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : NumberUtils.toLong(value == null ? null : value.toString());
+    }
+}
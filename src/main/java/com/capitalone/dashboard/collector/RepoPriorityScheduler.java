@@ -0,0 +1,74 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the repos a cycle collects for github.priorityScheduling. Each repo gets a collection interval from its
+ * {@link RepoActivity}: hot repos every github.hotRepoIntervalMinutes, dormant ones every
+ * github.dormantRepoIntervalMinutes, archived ones every github.archivedRepoIntervalMinutes and the rest every
+ * github.warmRepoIntervalMinutes. Only repos whose interval has passed are collected, busiest first, so when the
+ * rate limit runs out it is the quiet repos that wait. With the cron set to the hot interval, busy repos are
+ * collected every few minutes on the budget the quiet ones no longer use.
+ */
+final class RepoPriorityScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(RepoPriorityScheduler.class);
+
+    enum Tier { HOT, WARM, DORMANT, ARCHIVED }
+
+    private final Map<Tier, Long> intervals = new EnumMap<>(Tier.class);
+    private final double hotScore;
+    private final double dormantScore;
+    private final long halfLifeMillis;
+
+    RepoPriorityScheduler(GitHubSettings settings) {
+        intervals.put(Tier.HOT, TimeUnit.MINUTES.toMillis(settings.getHotRepoIntervalMinutes()));
+        intervals.put(Tier.WARM, TimeUnit.MINUTES.toMillis(settings.getWarmRepoIntervalMinutes()));
+        intervals.put(Tier.DORMANT, TimeUnit.MINUTES.toMillis(settings.getDormantRepoIntervalMinutes()));
+        intervals.put(Tier.ARCHIVED, TimeUnit.MINUTES.toMillis(settings.getArchivedRepoIntervalMinutes()));
+        this.hotScore = settings.getHotRepoScore();
+        this.dormantScore = settings.getDormantRepoScore();
+        this.halfLifeMillis = TimeUnit.HOURS.toMillis(settings.getActivityHalfLifeHours());
+    }
+
+    /**
+     * @return the repos due at {@code now}, highest priority first
+     */
+    List<GitHubRepo> dueRepos(List<GitHubRepo> repos, long now) {
+        Map<GitHubRepo, Double> priorities = new HashMap<>();
+        Map<Tier, Integer> due = new EnumMap<>(Tier.class);
+        List<GitHubRepo> dueRepos = new ArrayList<>();
+        for (GitHubRepo repo : repos) {
+            RepoActivity activity = RepoActivity.of(repo);
+            Tier tier = tier(activity, now);
+            // never collected, or a run that did not finish
+            boolean pending = repo.getLastUpdated() == 0 || repo.getOptions().containsKey(RepoCheckpoint.CHECKPOINT);
+            if (pending || now - repo.getLastUpdated() >= intervals.get(tier)) {
+                dueRepos.add(repo);
+                priorities.put(repo, activity.priority(now, halfLifeMillis));
+                due.merge(tier, 1, Integer::sum);
+            }
+        }
+        dueRepos.sort(Comparator.comparing((GitHubRepo repo) -> priorities.get(repo)).reversed()
+                .thenComparing(GitHubRepo::getLastUpdated));
+        LOG.info(String.format("Priority scheduling: %d of %d repos due, by tier %s", dueRepos.size(), repos.size(), due));
+        return dueRepos;
+    }
+
+    Tier tier(RepoActivity activity, long now) {
+        if (activity.isArchived()) return Tier.ARCHIVED;
+        double score = activity.score(now, halfLifeMillis);
+        if (score >= hotScore) return Tier.HOT;
+        if (score < dormantScore) return Tier.DORMANT;
+        return Tier.WARM;
+    }
+}
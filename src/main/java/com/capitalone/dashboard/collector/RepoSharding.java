@@ -0,0 +1,146 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import com.capitalone.dashboard.repository.GitHubShardRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Splits the enabled repos between collector instances sharing one database, for github.shardMode.
+ * <ul>
+ * <li>hash: every instance heartbeats into Mongo each cycle and keeps the repos that a consistent-hash ring over the
+ * live instances maps to it. An instance that stops heartbeating drops off the ring once its heartbeat expires, and
+ * only its slice moves to the others.</li>
+ * <li>lease: every instance goes through all repos and collects the ones it can lease with an atomic findAndModify.
+ * Leases expire, so the repos of an instance that died mid-repo are taken over once theirs run out.</li>
+ * </ul>
+ * Both expire after github.shardLeaseMinutes, which should be longer than a cycle in hash mode and longer than
+ * the slowest repo in lease mode.
+ */
+@Component
+public class RepoSharding {
+    private static final Logger LOG = LoggerFactory.getLogger(RepoSharding.class);
+
+    // points per instance on the ring, so slices come out about even
+    private static final int VIRTUAL_NODES = 128;
+
+    public enum Mode {
+        NONE, HASH, LEASE;
+
+        static Mode of(String value) {
+            if (StringUtils.isBlank(value)) return NONE;
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Unknown github.shardMode=" + value + ", collecting all repos");
+                return NONE;
+            }
+        }
+    }
+
+    private final GitHubShardRepository shardRepository;
+    private final Mode mode;
+    private final String instanceId;
+    private final long leaseMillis;
+
+    @Autowired
+    public RepoSharding(GitHubSettings settings, GitHubShardRepository shardRepository) {
+        this.shardRepository = shardRepository;
+        this.mode = Mode.of(settings.getShardMode());
+        this.instanceId = instanceId(settings);
+        this.leaseMillis = TimeUnit.MINUTES.toMillis(Math.max(settings.getShardLeaseMinutes(), 1));
+    }
+
+    /**
+     * @return github.instanceId, or pid@host when it is not set
+     */
+    static String instanceId(GitHubSettings settings) {
+        return StringUtils.isBlank(settings.getInstanceId()) ? ManagementFactory.getRuntimeMXBean().getName() : settings.getInstanceId();
+    }
+
+    static boolean isEnabled(GitHubSettings settings) {
+        return Mode.of(settings.getShardMode()) != Mode.NONE;
+    }
+
+    /**
+     * @return the repos this instance collects this cycle; all of them unless in hash mode
+     */
+    public List<GitHubRepo> ownedRepos(List<GitHubRepo> repos) {
+        if (mode != Mode.HASH) return repos;
+        long now = System.currentTimeMillis();
+        List<String> instances = shardRepository.heartbeat(instanceId, now, now + leaseMillis);
+        TreeMap<Long, String> ring = ring(instances);
+        List<GitHubRepo> owned = repos.stream()
+                .filter(repo -> instanceId.equals(owner(ring, repo.getId().toHexString())))
+                .collect(Collectors.toList());
+        LOG.info(String.format("Instance %s owns %d of %d repos, live instances=%s", instanceId, owned.size(), repos.size(), instances));
+        return owned;
+    }
+
+    /**
+     * @return true if this instance may collect the repo now; in lease mode only once it holds the repo's lease
+     */
+    public boolean claim(GitHubRepo repo) {
+        if (mode != Mode.LEASE) return true;
+        long now = System.currentTimeMillis();
+        return shardRepository.claim(repo.getId(), instanceId, now, now + leaseMillis);
+    }
+
+    /**
+     * Extends the lease of a repo still being collected.
+     */
+    public void renew(GitHubRepo repo) {
+        if (mode == Mode.LEASE && !claim(repo)) {
+            LOG.warn(String.format("Lost the lease on %s, another instance may be collecting it too", repo.getRepoUrl()));
+        }
+    }
+
+    public void release(GitHubRepo repo) {
+        if (mode == Mode.LEASE) shardRepository.release(repo.getId(), instanceId);
+    }
+
+    static TreeMap<Long, String> ring(List<String> instances) {
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String instance : instances) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(instance + '#' + i), instance);
+            }
+        }
+        return ring;
+    }
+
+    /**
+     * @return the instance owning {@code key}: the first point on the ring at or after its hash
+     */
+    static String owner(TreeMap<Long, String> ring, String key) {
+        if (ring.isEmpty()) return null;
+        Map.Entry<Long, String> point = ring.ceilingEntry(hash(key));
+        return (point == null ? ring.firstEntry() : point).getValue();
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.RepoJob;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import com.capitalone.dashboard.repository.GitHubRepoJobRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The persistent queue repos are collected from with github.workQueue. Cron cycles, /refresh calls and repos
+ * changed according to the events API enqueue jobs with a priority and a not-before time, and any number of workers
+ * in any number of collector instances claim them atomically. A claimed job is heartbeated while its repo is
+ * collected; one whose worker died is claimed again once its lease runs out, and a failed one is retried with
+ * exponential backoff until github.workQueueMaxAttempts. One that hit the rate limit waits for the reset without
+ * spending an attempt.
+ */
+@Component
+public class RepoWorkQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(RepoWorkQueue.class);
+
+    public static final int PRIORITY_CRON = 0;
+    public static final int PRIORITY_EVENT = 5;
+    public static final int PRIORITY_REFRESH = 10;
+
+    private final GitHubRepoJobRepository jobRepository;
+    private final String instanceId;
+    private final long leaseMillis;
+    private final int maxAttempts;
+    private final long retryMillis;
+    // jobs this instance is working on, heartbeated until completed
+    private final Set<RepoJob> held = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeats;
+
+    @Autowired
+    public RepoWorkQueue(GitHubSettings settings, GitHubRepoJobRepository jobRepository) {
+        this.jobRepository = jobRepository;
+        this.instanceId = RepoSharding.instanceId(settings);
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(Math.max(settings.getWorkQueueLeaseSeconds(), 3));
+        this.maxAttempts = Math.max(settings.getWorkQueueMaxAttempts(), 1);
+        this.retryMillis = TimeUnit.SECONDS.toMillis(Math.max(settings.getWorkQueueRetrySeconds(), 0));
+        if (settings.isWorkQueue()) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("github-queue-");
+            threadFactory.setDaemon(true);
+            heartbeats = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            long period = leaseMillis / 3;
+            heartbeats.scheduleAtFixedRate(this::heartbeat, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            heartbeats = null;
+        }
+    }
+
+    public void enqueue(Collection<GitHubRepo> repos, int priority, long notBefore) {
+        long now = System.currentTimeMillis();
+        int queued = jobRepository.enqueue(repos.stream().map(GitHubRepo::getId).collect(Collectors.toList()), priority, notBefore, now);
+        LOG.info(String.format("Queued %d repo jobs with priority=%d", queued, priority));
+    }
+
+    /**
+     * @param only the repos to consider, or null for any repo
+     * @return the next job this instance should work on, or null if none is due
+     */
+    public RepoJob claim(Collection<ObjectId> only) {
+        long now = System.currentTimeMillis();
+        RepoJob job = jobRepository.claim(instanceId, now, now + leaseMillis, only);
+        if (job != null) held.add(job);
+        return job;
+    }
+
+    public void complete(RepoJob job) {
+        held.remove(job);
+        jobRepository.complete(job);
+    }
+
+    /**
+     * Queues the job again after a backoff that doubles with each attempt, or drops it after the last attempt.
+     */
+    public void fail(RepoJob job, String error) {
+        held.remove(job);
+        if (job.getAttempts() >= maxAttempts) {
+            LOG.error(String.format("Dropping job for collector item %s after %d attempts: %s", job.getCollectorItemId(), job.getAttempts(), error));
+            jobRepository.drop(job);
+            return;
+        }
+        long backoff = retryMillis << Math.min(job.getAttempts() - 1, 16);
+        jobRepository.retry(job, System.currentTimeMillis() + backoff, error);
+    }
+
+    /**
+     * Queues the job again at {@code retryAt} without spending one of its attempts, for a job that could not run
+     * yet, such as one that hit the rate limit.
+     */
+    public void postpone(RepoJob job, long retryAt, String reason) {
+        held.remove(job);
+        jobRepository.postpone(job, retryAt, reason);
+    }
+
+    private void heartbeat() {
+        long leaseExpiresAt = System.currentTimeMillis() + leaseMillis;
+        for (RepoJob job : held) {
+            try {
+                if (!jobRepository.heartbeat(job, leaseExpiresAt)) {
+                    LOG.warn(String.format("Lost the job for collector item %s, another worker may be collecting it too", job.getCollectorItemId()));
+                }
+            } catch (RuntimeException e) {
+                LOG.error("Repo job heartbeat failed", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeats != null) heartbeats.shutdownNow();
+    }
+}
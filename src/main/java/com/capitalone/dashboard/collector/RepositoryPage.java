@@ -0,0 +1,66 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.GitRequest;
+
+/**
+ * The {@code data.repository} of one collection query, or of a follow-up query for a pull request's comments and
+ * reviews, decoded straight to model objects.
+ * A connection is null when the query did not ask for it or the repository has none.
+ */
+final class RepositoryPage {
+    private GraphQLConnection<PullRequestNode> pullRequests;
+    private PullRequestNode pullRequest;
+    private GraphQLConnection<GitRequest> issues;
+    private GraphQLConnection<Commit> commits;
+    private int queryCost;
+
+    GraphQLConnection<PullRequestNode> getPullRequests() {
+        return pullRequests;
+    }
+
+    void setPullRequests(GraphQLConnection<PullRequestNode> pullRequests) {
+        this.pullRequests = pullRequests;
+    }
+
+    /**
+     * @return the single pull request a follow-up query asked for, or null
+     */
+    PullRequestNode getPullRequest() {
+        return pullRequest;
+    }
+
+    void setPullRequest(PullRequestNode pullRequest) {
+        this.pullRequest = pullRequest;
+    }
+
+    GraphQLConnection<GitRequest> getIssues() {
+        return issues;
+    }
+
+    void setIssues(GraphQLConnection<GitRequest> issues) {
+        this.issues = issues;
+    }
+
+    /**
+     * @return the branch history, or null if the ref or its history is missing
+     */
+    GraphQLConnection<Commit> getCommits() {
+        return commits;
+    }
+
+    void setCommits(GraphQLConnection<Commit> commits) {
+        this.commits = commits;
+    }
+
+    /**
+     * @return the cost GitHub charged for the query, 0 if the query did not ask for {@code rateLimit { cost }}
+     */
+    int getQueryCost() {
+        return queryCost;
+    }
+
+    void setQueryCost(int queryCost) {
+        this.queryCost = queryCost;
+    }
+}
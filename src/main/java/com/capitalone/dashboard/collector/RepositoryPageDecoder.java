@@ -0,0 +1,649 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.collector.PullRequestNode.PullRequestCommit;
+import com.capitalone.dashboard.model.Comment;
+import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.CommitStatus;
+import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.model.MergeEvent;
+import com.capitalone.dashboard.model.Review;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the {@code data} of a collection query token by token into a {@link RepositoryPage}, without building
+ * a tree of the whole response. Field values default the way the json-simple walkers read them: missing or null
+ * strings are empty and missing numbers are 0.
+ */
+final class RepositoryPageDecoder implements GraphQLResponse.DataDecoder<RepositoryPage> {
+    static final RepositoryPageDecoder INSTANCE = new RepositoryPageDecoder();
+
+    private RepositoryPageDecoder() {
+    }
+
+    @FunctionalInterface
+    private interface FieldReader {
+        /**
+         * Reads the value of {@code field}, the parser being on its first token, which is never VALUE_NULL.
+         */
+        void read(String field, JsonToken value) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface NodeReader<T> {
+        /**
+         * @return the node the parser is on, or null to leave it out
+         */
+        T read(JsonParser parser) throws IOException;
+    }
+
+    @Override
+    public RepositoryPage decode(JsonParser parser) throws IOException {
+        RepositoryPage page = new RepositoryPage();
+        forEachField(parser, (field, value) -> {
+            if ("repository".equals(field) && value == JsonToken.START_OBJECT) {
+                readRepository(parser, page);
+            } else if ("rateLimit".equals(field) && value == JsonToken.START_OBJECT) {
+                forEachField(parser, (limitField, limitValue) -> {
+                    if ("cost".equals(limitField)) {
+                        page.setQueryCost(parser.getValueAsInt());
+                    } else {
+                        parser.skipChildren();
+                    }
+                });
+            } else {
+                parser.skipChildren();
+            }
+        });
+        return page;
+    }
+
+    private static void readRepository(JsonParser parser, RepositoryPage page) throws IOException {
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "pullRequests":
+                    page.setPullRequests(readConnection(parser, RepositoryPageDecoder::readPullRequest));
+                    break;
+                case "pullRequest":
+                    if (value == JsonToken.START_OBJECT) {
+                        page.setPullRequest(readPullRequest(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "issues":
+                    page.setIssues(readConnection(parser, RepositoryPageDecoder::readIssue));
+                    break;
+                case "ref":
+                    readRef(parser, page);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+    }
+
+    private static void readRef(JsonParser parser, RepositoryPage page) throws IOException {
+        forEachField(parser, (field, value) -> {
+            if ("target".equals(field)) {
+                forEachField(parser, (targetField, targetValue) -> {
+                    if ("history".equals(targetField)) {
+                        page.setCommits(readConnection(parser, RepositoryPageDecoder::readCommit));
+                    } else {
+                        parser.skipChildren();
+                    }
+                });
+            } else {
+                parser.skipChildren();
+            }
+        });
+    }
+
+    private static <T> GraphQLConnection<T> readConnection(JsonParser parser, NodeReader<T> nodeReader) throws IOException {
+        GraphQLConnection<T> connection = new GraphQLConnection<>();
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "totalCount":
+                    connection.setTotalCount(parser.getValueAsInt());
+                    break;
+                case "pageInfo":
+                    forEachField(parser, (pageField, pageValue) -> {
+                        if ("endCursor".equals(pageField)) {
+                            connection.setEndCursor(text(parser));
+                        } else if ("hasNextPage".equals(pageField)) {
+                            connection.setHasNextPage(parser.getValueAsBoolean());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    });
+                    break;
+                case "edges":
+                    if (value == JsonToken.START_ARRAY) {
+                        readEdges(parser, nodeReader, connection.getNodes(), true);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "nodes":
+                    readNodes(parser, nodeReader, connection.getNodes());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return connection;
+    }
+
+    /**
+     * @param stopAtMissingNode skip the edges after the first one without a node, as the connections of a page do
+     */
+    private static <T> void readEdges(JsonParser parser, NodeReader<T> nodeReader, List<T> nodes, boolean stopAtMissingNode) throws IOException {
+        boolean missingNode = false;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (missingNode || parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            boolean[] found = {false};
+            forEachField(parser, (field, value) -> {
+                if ("node".equals(field) && value == JsonToken.START_OBJECT) {
+                    T node = nodeReader.read(parser);
+                    if (node != null) nodes.add(node);
+                    found[0] = true;
+                } else {
+                    parser.skipChildren();
+                }
+            });
+            missingNode = stopAtMissingNode && !found[0];
+        }
+    }
+
+    /**
+     * Reads a {@code nodes} array, skipping null nodes.
+     */
+    private static <T> void readNodes(JsonParser parser, NodeReader<T> nodeReader, List<T> nodes) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            T node = nodeReader.read(parser);
+            if (node != null) nodes.add(node);
+        }
+    }
+
+    private static Commit readCommit(JsonParser parser) throws IOException {
+        Commit commit = new Commit();
+        commit.setScmRevisionNumber("");
+        commit.setScmCommitLog("");
+        commit.setScmAuthor("");
+        commit.setScmAuthorLogin("unknown");
+        List<String> parentShas = new ArrayList<>();
+        int[] changes = {0};
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "oid":
+                    commit.setScmRevisionNumber(text(parser));
+                    break;
+                case "changedFiles":
+                case "deletions":
+                case "additions":
+                    changes[0] += parser.getValueAsInt();
+                    break;
+                case "message":
+                    commit.setScmCommitLog(text(parser));
+                    break;
+                case "parents":
+                    readParents(parser, parentShas);
+                    break;
+                case "author":
+                    readCommitAuthor(parser, commit);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        commit.setNumberOfChanges(changes[0]);
+        commit.setScmParentRevisionNumbers(parentShas);
+        return commit;
+    }
+
+    private static void readParents(JsonParser parser, List<String> parentShas) throws IOException {
+        forEachField(parser, (field, value) -> {
+            if (!"nodes".equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() != JsonToken.START_OBJECT) continue;
+                forEachField(parser, (parentField, parentValue) -> {
+                    if ("oid".equals(parentField)) {
+                        parentShas.add(text(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                });
+            }
+        });
+    }
+
+    private static void readCommitAuthor(JsonParser parser, Commit commit) throws IOException {
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "name":
+                    commit.setScmAuthor(text(parser));
+                    break;
+                case "date":
+                    commit.setScmCommitTimestamp(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "user":
+                    commit.setScmAuthorLogin("");
+                    commit.setScmAuthorName("");
+                    forEachField(parser, (userField, userValue) -> {
+                        if ("login".equals(userField)) {
+                            commit.setScmAuthorLogin(text(parser));
+                        } else if ("name".equals(userField)) {
+                            commit.setScmAuthorName(text(parser));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    });
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+    }
+
+    /**
+     * Reads a pull request with its commits, timeline, comments and reviews. State is left as GitHub sends it.
+     */
+    private static PullRequestNode readPullRequest(JsonParser parser) throws IOException {
+        PullRequestNode node = new PullRequestNode();
+        GitRequest pull = node.getPull();
+        pull.setNumber("");
+        pull.setState("");
+        pull.setScmCommitLog("");
+        pull.setUserId("");
+        pull.setSourceBranch("");
+        pull.setTargetBranch("");
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "number":
+                    pull.setNumber(text(parser));
+                    break;
+                case "state":
+                    pull.setState(text(parser));
+                    break;
+                case "title":
+                    pull.setScmCommitLog(text(parser));
+                    break;
+                case "createdAt":
+                    pull.setCreatedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "updatedAt":
+                    pull.setUpdatedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "closedAt":
+                    pull.setClosedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "mergedAt":
+                    String mergedAt = text(parser);
+                    node.setMerged(!mergedAt.isEmpty());
+                    pull.setMergedAt(DefaultGitHubClient.getTimeStampMills(mergedAt));
+                    break;
+                case "changedFiles":
+                    pull.setCountFilesChanged(parser.getValueAsLong());
+                    break;
+                case "additions":
+                    pull.setLineAdditions(parser.getValueAsLong());
+                    break;
+                case "deletions":
+                    pull.setLineDeletions(parser.getValueAsLong());
+                    break;
+                case "author":
+                    pull.setUserId(readLogin(parser));
+                    break;
+                case "headRefName":
+                    pull.setSourceBranch(text(parser));
+                    break;
+                case "baseRefName":
+                    pull.setTargetBranch(text(parser));
+                    break;
+                case "headRef":
+                    pull.setHeadSha(readTargetOid(parser));
+                    break;
+                case "baseRef":
+                    pull.setBaseSha(readTargetOid(parser));
+                    break;
+                case "mergeCommit":
+                    node.setMergeCommitSha(readOid(parser));
+                    break;
+                case "headRepository":
+                    String[] url = {""};
+                    forEachField(parser, (repoField, repoValue) -> {
+                        if ("url".equals(repoField)) {
+                            url[0] = text(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    });
+                    node.setHeadRepositoryUrl(url[0]);
+                    break;
+                case "commits":
+                    node.setCommits(readConnection(parser, RepositoryPageDecoder::readPullRequestCommit));
+                    break;
+                case "timeline":
+                    forEachField(parser, (timelineField, timelineValue) -> {
+                        if ("edges".equals(timelineField) && timelineValue == JsonToken.START_ARRAY) {
+                            readEdges(parser, RepositoryPageDecoder::readMergeEvent, node.getMergeEvents(), false);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    });
+                    break;
+                case "comments":
+                    node.setComments(readConnection(parser, RepositoryPageDecoder::readComment));
+                    break;
+                case "reviews":
+                    node.setReviews(readConnection(parser, RepositoryPageDecoder::readReview));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return node;
+    }
+
+    /**
+     * Reads a {@code { commit { ... } }} node of a pull request's commits, null if it has no commit.
+     */
+    private static PullRequestCommit readPullRequestCommit(JsonParser parser) throws IOException {
+        PullRequestCommit[] prCommit = {null};
+        forEachField(parser, (field, value) -> {
+            if ("commit".equals(field) && value == JsonToken.START_OBJECT) {
+                prCommit[0] = readCommitWithStatus(parser);
+            } else {
+                parser.skipChildren();
+            }
+        });
+        return prCommit[0];
+    }
+
+    private static PullRequestCommit readCommitWithStatus(JsonParser parser) throws IOException {
+        Commit commit = new Commit();
+        commit.setScmRevisionNumber("");
+        commit.setScmCommitLog("");
+        commit.setScmAuthor("");
+        commit.setScmAuthorLogin("unknown");
+        PullRequestCommit prCommit = new PullRequestCommit(commit);
+        int[] changes = {0};
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "oid":
+                    commit.setScmRevisionNumber(text(parser));
+                    break;
+                case "message":
+                    commit.setScmCommitLog(text(parser));
+                    break;
+                case "changedFiles":
+                case "deletions":
+                case "additions":
+                    changes[0] += parser.getValueAsInt();
+                    break;
+                case "author":
+                    readCommitAuthor(parser, commit);
+                    break;
+                case "status":
+                    prCommit.setStatuses(readStatusContexts(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        commit.setNumberOfChanges(changes[0]);
+        if (commit.getScmAuthorName() != null) {
+            commit.setScmAuthorName(commit.getScmAuthorName().toLowerCase());
+        }
+        return prCommit;
+    }
+
+    private static List<CommitStatus> readStatusContexts(JsonParser parser) throws IOException {
+        List<CommitStatus> statuses = new ArrayList<>();
+        forEachField(parser, (field, value) -> {
+            if ("contexts".equals(field)) {
+                readNodes(parser, RepositoryPageDecoder::readStatusContext, statuses);
+            } else {
+                parser.skipChildren();
+            }
+        });
+        return statuses;
+    }
+
+    private static CommitStatus readStatusContext(JsonParser parser) throws IOException {
+        CommitStatus status = new CommitStatus();
+        status.setContext("");
+        status.setDescription("");
+        status.setState("");
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "context":
+                    status.setContext(text(parser));
+                    break;
+                case "description":
+                    status.setDescription(text(parser));
+                    break;
+                case "state":
+                    status.setState(text(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return status;
+    }
+
+    /**
+     * Reads a timeline item, null unless it is a MergedEvent.
+     */
+    private static MergeEvent readMergeEvent(JsonParser parser) throws IOException {
+        MergeEvent event = new MergeEvent();
+        event.setMergeSha("");
+        String[] typeName = {""};
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "__typename":
+                    typeName[0] = text(parser);
+                    break;
+                case "createdAt":
+                    event.setMergedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "commit":
+                    event.setMergeSha(readOid(parser));
+                    break;
+                case "pullRequest":
+                    String[] number = {""};
+                    forEachField(parser, (prField, prValue) -> {
+                        if ("number".equals(prField)) {
+                            number[0] = text(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    });
+                    event.setGitRequestNumber(number[0]);
+                    break;
+                case "actor":
+                    event.setMergeAuthor(readLogin(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return "MergedEvent".equalsIgnoreCase(typeName[0]) ? event : null;
+    }
+
+    private static Comment readComment(JsonParser parser) throws IOException {
+        Comment comment = new Comment();
+        comment.setBody("");
+        comment.setUser("");
+        comment.setStatus("");
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "bodyText":
+                    comment.setBody(text(parser));
+                    break;
+                case "author":
+                    comment.setUser(readLogin(parser));
+                    break;
+                case "createdAt":
+                    comment.setCreatedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "updatedAt":
+                    comment.setUpdatedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "state":
+                    comment.setStatus(text(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return comment;
+    }
+
+    private static Review readReview(JsonParser parser) throws IOException {
+        Review review = new Review();
+        review.setState("");
+        review.setBody("");
+        review.setAuthor("");
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "state":
+                    review.setState(text(parser));
+                    break;
+                case "bodyText":
+                    review.setBody(text(parser));
+                    break;
+                case "author":
+                    review.setAuthor(readLogin(parser));
+                    break;
+                case "createdAt":
+                    review.setCreatedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "updatedAt":
+                    review.setUpdatedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return review;
+    }
+
+    /**
+     * @return the {@code login} of the user object the parser is on, empty if it has none
+     */
+    private static String readLogin(JsonParser parser) throws IOException {
+        return readField(parser, "login");
+    }
+
+    /**
+     * @return the {@code oid} of the object the parser is on, empty if it has none
+     */
+    private static String readOid(JsonParser parser) throws IOException {
+        return readField(parser, "oid");
+    }
+
+    /**
+     * @return the {@code target.oid} of the ref the parser is on, empty if it has none
+     */
+    private static String readTargetOid(JsonParser parser) throws IOException {
+        String[] oid = {""};
+        forEachField(parser, (field, value) -> {
+            if ("target".equals(field)) {
+                oid[0] = readOid(parser);
+            } else {
+                parser.skipChildren();
+            }
+        });
+        return oid[0];
+    }
+
+    private static String readField(JsonParser parser, String name) throws IOException {
+        String[] text = {""};
+        forEachField(parser, (field, value) -> {
+            if (name.equals(field)) {
+                text[0] = text(parser);
+            } else {
+                parser.skipChildren();
+            }
+        });
+        return text[0];
+    }
+
+    /**
+     * Reads the fields of an issue node. State is left as GitHub sends it (OPEN or CLOSED).
+     */
+    private static GitRequest readIssue(JsonParser parser) throws IOException {
+        GitRequest issue = new GitRequest();
+        issue.setNumber("");
+        issue.setState("");
+        issue.setScmCommitLog("");
+        issue.setUserId("");
+        forEachField(parser, (field, value) -> {
+            switch (field) {
+                case "number":
+                    issue.setNumber(text(parser));
+                    break;
+                case "state":
+                    issue.setState(text(parser));
+                    break;
+                case "createdAt":
+                    issue.setCreatedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "updatedAt":
+                    issue.setUpdatedAt(DefaultGitHubClient.getTimeStampMills(text(parser)));
+                    break;
+                case "title":
+                    issue.setScmCommitLog(text(parser));
+                    break;
+                case "author":
+                    issue.setUserId(readLogin(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        });
+        return issue;
+    }
+
+    /**
+     * Calls {@code reader} for each non-null field of the object the parser is on, leaving the parser on its END_OBJECT.
+     */
+    private static void forEachField(JsonParser parser, FieldReader reader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_NULL) {
+                reader.read(field, value);
+            }
+        }
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        return StringUtils.defaultString(parser.getValueAsString());
+    }
+}
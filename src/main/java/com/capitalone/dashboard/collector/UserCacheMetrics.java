@@ -0,0 +1,52 @@
+package com.capitalone.dashboard.collector;
+
+/**
+ * Point-in-time view of the user identity cache shared by all repos, with counters since startup.
+ */
+public final class UserCacheMetrics {
+    private final int size;
+    private final int maxSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    UserCacheMetrics(int size, int maxSize, long hits, long misses, long evictions) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /** percentage of lookups answered from the cache, 0 before the first lookup */
+    public long getHitRate() {
+        return (hits + misses) == 0 ? 0 : (100 * hits) / (hits + misses);
+    }
+
+    /** entries dropped to stay within github.userCacheSize */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        return "user_cache_size=" + size + " user_cache_hits=" + hits + " user_cache_misses=" + misses
+                + " user_cache_hit_rate=" + getHitRate() + "% user_cache_evictions=" + evictions;
+    }
+}
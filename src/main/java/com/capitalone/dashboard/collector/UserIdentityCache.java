@@ -0,0 +1,188 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.GitHubUserIdentity;
+import com.capitalone.dashboard.repository.GitHubUserIdentityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide cache of GitHub user identities (LDAP DN and account type), shared by all repos and runs
+ * so each login costs one /users/{login} call per TTL instead of one per repo per run.
+ * Entries are evicted least recently used first once {@code github.userCacheSize} is reached.
+ * Logins GitHub does not know are cached too, for the shorter {@code github.userCacheNegativeTtlMinutes}.
+ */
+@Component
+public class UserIdentityCache {
+    private static final Logger LOG = LoggerFactory.getLogger(UserIdentityCache.class);
+
+    private final GitHubUserIdentityRepository repository;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final boolean persist;
+    private final LongSupplier clock;
+
+    // access ordered, guarded by its own monitor
+    private final LinkedHashMap<String, GitHubUserIdentity> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public UserIdentityCache(GitHubSettings settings, GitHubUserIdentityRepository repository) {
+        this(settings, repository, System::currentTimeMillis);
+    }
+
+    UserIdentityCache(GitHubSettings settings, GitHubUserIdentityRepository repository, LongSupplier clock) {
+        this.repository = repository;
+        this.maxSize = Math.max(settings.getUserCacheSize(), 1);
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(settings.getUserCacheTtlMinutes());
+        this.negativeTtlMillis = TimeUnit.MINUTES.toMillis(settings.getUserCacheNegativeTtlMinutes());
+        this.persist = settings.isUserCachePersist() && repository != null;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, GitHubUserIdentity>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GitHubUserIdentity> eldest) {
+                if (size() <= maxSize) return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+        if (persist) {
+            load();
+        }
+    }
+
+    /**
+     * @return the cached identity of {@code login}, or null if there is none or it has expired
+     */
+    public GitHubUserIdentity get(String login) {
+        GitHubUserIdentity identity = peek(login);
+        if (identity == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return identity;
+    }
+
+    /**
+     * @return true if {@code login} has an unexpired entry; does not count as a hit or miss
+     */
+    public boolean contains(String login) {
+        return peek(login) != null;
+    }
+
+    /**
+     * @return true if {@code login} has an unexpired entry that carries its LDAP DN, even if that is null;
+     * does not count as a hit or miss
+     */
+    public boolean hasLdapDN(String login) {
+        GitHubUserIdentity identity = peek(login);
+        return identity != null && !identity.isTypeOnly();
+    }
+
+    public GitHubUserIdentity put(String login, String ldapDN, String authorType) {
+        return store(new GitHubUserIdentity(login, ldapDN, authorType, true, clock.getAsLong()));
+    }
+
+    /**
+     * Remembers the account type of {@code login} without its LDAP DN, which a later lookup still fetches.
+     */
+    public GitHubUserIdentity putTypeOnly(String login, String authorType) {
+        return store(GitHubUserIdentity.typeOnly(login, authorType, clock.getAsLong()));
+    }
+
+    /**
+     * Remembers that GitHub has no user {@code login}, for the negative TTL.
+     */
+    public GitHubUserIdentity putNotFound(String login) {
+        return store(GitHubUserIdentity.notFound(login, clock.getAsLong()));
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public UserCacheMetrics metrics() {
+        return new UserCacheMetrics(size(), maxSize, hits.get(), misses.get(), evictions.get());
+    }
+
+    public String stats() {
+        return metrics().toString();
+    }
+
+    private GitHubUserIdentity peek(String login) {
+        if (login == null) return null;
+        synchronized (entries) {
+            GitHubUserIdentity identity = entries.get(login);
+            if (identity == null) return null;
+            if (isExpired(identity)) {
+                entries.remove(login);
+                return null;
+            }
+            return identity;
+        }
+    }
+
+    private boolean isExpired(GitHubUserIdentity identity) {
+        long ttl = identity.isFound() ? ttlMillis : negativeTtlMillis;
+        return clock.getAsLong() - identity.getFetchedAt() >= ttl;
+    }
+
+    private GitHubUserIdentity store(GitHubUserIdentity identity) {
+        synchronized (entries) {
+            entries.put(identity.getLogin(), identity);
+        }
+        if (persist) {
+            try {
+                repository.save(identity);
+            } catch (RuntimeException e) {
+                LOG.warn("Could not persist user identity for " + identity.getLogin(), e);
+            }
+        }
+        return identity;
+    }
+
+    private void load() {
+        try {
+            List<GitHubUserIdentity> stored = repository.findFetchedSince(clock.getAsLong() - Math.max(ttlMillis, negativeTtlMillis), maxSize);
+            synchronized (entries) {
+                // oldest first, so the most recently fetched end up most recently used
+                for (int i = stored.size() - 1; i >= 0; i--) {
+                    GitHubUserIdentity identity = stored.get(i);
+                    if (!isExpired(identity)) {
+                        entries.put(identity.getLogin(), identity);
+                    }
+                }
+            }
+            LOG.info("Loaded " + size() + " user identities into the user cache");
+        } catch (RuntimeException e) {
+            LOG.warn("Could not load persisted user identities, starting with an empty user cache", e);
+        }
+    }
+}
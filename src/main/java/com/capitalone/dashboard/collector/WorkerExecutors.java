@@ -0,0 +1,65 @@
+package com.capitalone.dashboard.collector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the executors used to collect repos and look up users.
+ * Virtual threads are looked up reflectively so the collector still builds and runs on JDKs without them.
+ */
+final class WorkerExecutors {
+    private static final Logger LOG = LoggerFactory.getLogger(WorkerExecutors.class);
+
+    private WorkerExecutors() {
+    }
+
+    /**
+     * @return an executor that starts a virtual thread per task, or null if this JVM has no virtual threads
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOG.warn("Virtual threads are not available on java " + System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    /**
+     * Executor for collecting repos. Virtual threads when enabled and supported, otherwise a fixed pool
+     * of {@code poolSize} platform threads. Returns null when repos should be collected on the calling thread.
+     */
+    static ExecutorService newRepoExecutor(GitHubSettings settings, int poolSize) {
+        if (settings.isVirtualThreads()) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) return virtual;
+            LOG.warn("github.virtualThreads is set, falling back to repo_concurrency=" + poolSize);
+        }
+        if (poolSize <= 1) return null;
+        return Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("github-repo-"));
+    }
+
+    /**
+     * Fixed pool of daemon threads named {@code prefix} + n, for pools that live as long as the collector.
+     */
+    static ExecutorService newDaemonPool(String prefix, int poolSize) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(Math.max(poolSize, 1), threadFactory);
+    }
+
+    /**
+     * Daemon threads named {@code prefix} + n, created as needed and reused while idle.
+     */
+    static ExecutorService newCachedDaemonPool(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+}
@@ -0,0 +1,47 @@
+package com.capitalone.dashboard.controller;
+
+import com.capitalone.dashboard.collector.GitHubRestOperationsSupplier;
+import com.capitalone.dashboard.collector.HttpClientMetrics;
+import com.capitalone.dashboard.collector.UserCacheMetrics;
+import com.capitalone.dashboard.collector.UserIdentityCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+
+@RestController
+public class MetricsController {
+
+    private final GitHubRestOperationsSupplier restOperationsSupplier;
+    private final UserIdentityCache userCache;
+
+    @Autowired
+    public MetricsController(GitHubRestOperationsSupplier restOperationsSupplier, UserIdentityCache userCache) {
+        this.restOperationsSupplier = restOperationsSupplier;
+        this.userCache = userCache;
+    }
+
+    /**
+     * Connection pool utilization and request counts of the HTTP client used for GitHub calls.
+     */
+    @RequestMapping(value = "/metrics/http", method = GET, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<HttpClientMetrics> http() {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(restOperationsSupplier.metrics());
+    }
+
+    /**
+     * Size, hits, misses and evictions of the user identity cache shared by all repos.
+     */
+    @RequestMapping(value = "/metrics/userCache", method = GET, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserCacheMetrics> userCache() {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(userCache.metrics());
+    }
+}
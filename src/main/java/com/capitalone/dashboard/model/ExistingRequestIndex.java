@@ -0,0 +1,160 @@
+package com.capitalone.dashboard.model;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.bson.types.ObjectId;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Stored pull requests or issues of one repo, reduced to number, updatedAt and id.
+ * Both lookups are binary searches over sorted primitive arrays, so even repos with
+ * 100k+ requests cost a few MB at most and no per-entry objects beyond the numbers and ids.
+ */
+public final class ExistingRequestIndex {
+    private static final ExistingRequestIndex EMPTY = builder().build();
+
+    // updatedAt -> number
+    private final long[] updatedAts;
+    private final String[] numbersByUpdatedAt;
+    // number -> id, numeric numbers only; anything else goes to otherIds
+    private final long[] numbers;
+    private final ObjectId[] idsByNumber;
+    private final Map<String, ObjectId> otherIds;
+
+    private ExistingRequestIndex(long[] updatedAts, String[] numbersByUpdatedAt, long[] numbers, ObjectId[] idsByNumber,
+                                 Map<String, ObjectId> otherIds) {
+        this.updatedAts = updatedAts;
+        this.numbersByUpdatedAt = numbersByUpdatedAt;
+        this.numbers = numbers;
+        this.idsByNumber = idsByNumber;
+        this.otherIds = otherIds;
+    }
+
+    public static ExistingRequestIndex empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static ExistingRequestIndex of(Collection<GitRequest> requests) {
+        Builder builder = new Builder();
+        requests.forEach(r -> builder.add(r.getNumber(), r.getUpdatedAt(), r.getId()));
+        return builder.build();
+    }
+
+    /**
+     * @return true if the stored request last updated at {@code updatedAt} has this number,
+     * i.e. the entry has not changed since the previous run
+     */
+    public boolean containsUpdate(long updatedAt, String number) {
+        int i = Arrays.binarySearch(updatedAts, updatedAt);
+        return i >= 0 && numbersByUpdatedAt[i].equals(number);
+    }
+
+    /**
+     * @return id of the stored request with this number, or null if there is none
+     */
+    public ObjectId findId(String number) {
+        if (number == null) return null;
+        long key = NumberUtils.toLong(number, -1);
+        if (key < 0 || !String.valueOf(key).equals(number)) return otherIds.get(number);
+        int i = Arrays.binarySearch(numbers, key);
+        return i >= 0 ? idsByNumber[i] : null;
+    }
+
+    public boolean contains(String number) {
+        if (number == null) return false;
+        long key = NumberUtils.toLong(number, -1);
+        if (key < 0 || !String.valueOf(key).equals(number)) return otherIds.containsKey(number);
+        return Arrays.binarySearch(numbers, key) >= 0;
+    }
+
+    public int size() {
+        return numbers.length + otherIds.size();
+    }
+
+    public boolean isEmpty() {
+        return updatedAts.length == 0 && size() == 0;
+    }
+
+    /**
+     * Accumulates rows into growable primitive arrays. When a number or updatedAt shows up twice,
+     * the first row added wins.
+     */
+    public static final class Builder {
+        private long[] updatedAts = new long[16];
+        private String[] numbers = new String[16];
+        private ObjectId[] ids = new ObjectId[16];
+        private int count;
+
+        private Builder() {
+        }
+
+        public Builder add(String number, long updatedAt, ObjectId id) {
+            if (number == null) return this;
+            if (count == updatedAts.length) {
+                int capacity = count * 2;
+                updatedAts = Arrays.copyOf(updatedAts, capacity);
+                numbers = Arrays.copyOf(numbers, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            updatedAts[count] = updatedAt;
+            numbers[count] = number;
+            ids[count] = id;
+            count++;
+            return this;
+        }
+
+        public ExistingRequestIndex build() {
+            // stable sort keeps the first row for equal keys in front
+            int[] byUpdatedAt = IntStream.range(0, count).boxed()
+                    .sorted(Comparator.comparingLong(i -> updatedAts[i])).mapToInt(Integer::intValue).toArray();
+            long[] sortedUpdatedAts = new long[count];
+            String[] numbersByUpdatedAt = new String[count];
+            int unique = 0;
+            for (int i : byUpdatedAt) {
+                if (unique > 0 && sortedUpdatedAts[unique - 1] == updatedAts[i]) continue;
+                sortedUpdatedAts[unique] = updatedAts[i];
+                numbersByUpdatedAt[unique] = numbers[i];
+                unique++;
+            }
+
+            Map<String, ObjectId> otherIds = new HashMap<>();
+            long[] numericKeys = new long[count];
+            int numeric = 0;
+            int[] numericRows = new int[count];
+            for (int i = 0; i < count; i++) {
+                long key = NumberUtils.toLong(numbers[i], -1);
+                if (key < 0 || !String.valueOf(key).equals(numbers[i])) {
+                    otherIds.putIfAbsent(numbers[i], ids[i]);
+                } else {
+                    numericKeys[numeric] = key;
+                    numericRows[numeric] = i;
+                    numeric++;
+                }
+            }
+            long[] keys = numericKeys;
+            int[] byNumber = IntStream.range(0, numeric).boxed()
+                    .sorted(Comparator.comparingLong(i -> keys[i])).mapToInt(Integer::intValue).toArray();
+            long[] sortedNumbers = new long[numeric];
+            ObjectId[] idsByNumber = new ObjectId[numeric];
+            int uniqueNumbers = 0;
+            for (int i : byNumber) {
+                if (uniqueNumbers > 0 && sortedNumbers[uniqueNumbers - 1] == keys[i]) continue;
+                sortedNumbers[uniqueNumbers] = keys[i];
+                idsByNumber[uniqueNumbers] = ids[numericRows[i]];
+                uniqueNumbers++;
+            }
+
+            return new ExistingRequestIndex(Arrays.copyOf(sortedUpdatedAts, unique), Arrays.copyOf(numbersByUpdatedAt, unique),
+                    Arrays.copyOf(sortedNumbers, uniqueNumbers), Arrays.copyOf(idsByNumber, uniqueNumbers), otherIds);
+        }
+    }
+}
@@ -5,9 +5,15 @@ import org.springframework.util.StringUtils;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.IntStream;
 
 public class GitHubParsed {
+    // raw url -> parsed instance shared by every caller of of(); cleared when it outgrows MAX_CACHED
+    private static final ConcurrentMap<String, GitHubParsed> CACHE = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED = 10000;
+
     private String url;
     private String apiUrl;
     private String baseApiUrl;
@@ -31,7 +37,32 @@ public class GitHubParsed {
         parse();
     }
 
+    /**
+     * Parsed coordinates of {@code url}, shared with every other caller asking for the same url.
+     * Callers must not call {@link #updateForRedirect(String)} on the returned instance; use the
+     * constructor for a private copy that may follow a redirect.
+     */
+    public static GitHubParsed of(String url) throws MalformedURLException, HygieiaException {
+        if (url == null) return new GitHubParsed(null);
+        GitHubParsed parsed = CACHE.get(url);
+        if (parsed != null) return parsed;
+
+        parsed = new GitHubParsed(url);
+        if (CACHE.size() >= MAX_CACHED) CACHE.clear();
+        GitHubParsed existing = CACHE.putIfAbsent(url, parsed);
+        return existing != null ? existing : parsed;
+    }
+
+    /**
+     * Drops the cached coordinates of {@code url}, e.g. once the repo behind it has moved.
+     */
+    public static void invalidate(String url) {
+        if (url != null) CACHE.remove(url);
+    }
+
     public void updateForRedirect(String redirectedUrl) throws MalformedURLException, HygieiaException {
+        invalidate(url);
+        invalidate(redirectedUrl);
         this.url = redirectedUrl;
         parse();
     }
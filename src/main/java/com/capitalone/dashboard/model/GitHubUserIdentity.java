@@ -0,0 +1,95 @@
+package com.capitalone.dashboard.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * What the collector knows about a GitHub login: its LDAP DN and account type, or that GitHub
+ * has no such user. Held in the process-wide user cache and, optionally, persisted so restarts start warm.
+ */
+@Document(collection = "github_user_identities")
+public class GitHubUserIdentity {
+    @Id
+    private String login;
+    private String ldapDN;
+    private String authorType;
+    private boolean found;
+    // resolved by the batched GraphQL lookup, which has the account type but no LDAP DN
+    private boolean typeOnly;
+    private long fetchedAt;
+
+    public GitHubUserIdentity() {
+    }
+
+    public GitHubUserIdentity(String login, String ldapDN, String authorType, boolean found, long fetchedAt) {
+        this.login = login;
+        this.ldapDN = ldapDN;
+        this.authorType = authorType;
+        this.found = found;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public static GitHubUserIdentity notFound(String login, long fetchedAt) {
+        return new GitHubUserIdentity(login, null, null, false, fetchedAt);
+    }
+
+    public static GitHubUserIdentity typeOnly(String login, String authorType, long fetchedAt) {
+        GitHubUserIdentity identity = new GitHubUserIdentity(login, null, authorType, true, fetchedAt);
+        identity.typeOnly = true;
+        return identity;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public String getLdapDN() {
+        return ldapDN;
+    }
+
+    public void setLdapDN(String ldapDN) {
+        this.ldapDN = ldapDN;
+    }
+
+    public String getAuthorType() {
+        return authorType;
+    }
+
+    public void setAuthorType(String authorType) {
+        this.authorType = authorType;
+    }
+
+    /**
+     * @return false if GitHub answered 404 for this login
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+
+    /**
+     * @return true if only the account type is known, so the LDAP DN still takes a users/{login} call
+     */
+    public boolean isTypeOnly() {
+        return typeOnly;
+    }
+
+    public void setTypeOnly(boolean typeOnly) {
+        this.typeOnly = typeOnly;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(long fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+}
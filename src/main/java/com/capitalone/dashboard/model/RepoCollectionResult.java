@@ -0,0 +1,63 @@
+package com.capitalone.dashboard.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything one fireGraphQL call collected for a repo. Instances are immutable,
+ * so they can be handed between threads without copying.
+ */
+public final class RepoCollectionResult {
+    private final List<Commit> commits;
+    private final List<GitRequest> pulls;
+    private final List<GitRequest> issues;
+    private final GitHubRateLimit rateLimit;
+    private final long repoOffsetTime;
+
+    public RepoCollectionResult(List<Commit> commits, List<GitRequest> pulls, List<GitRequest> issues,
+                                GitHubRateLimit rateLimit, long repoOffsetTime) {
+        // copied, so the collector's own lists can change afterwards without changing the result
+        this.commits = Collections.unmodifiableList(new ArrayList<>(commits));
+        this.pulls = Collections.unmodifiableList(new ArrayList<>(pulls));
+        this.issues = Collections.unmodifiableList(new ArrayList<>(issues));
+        this.rateLimit = copyOf(rateLimit);
+        this.repoOffsetTime = repoOffsetTime;
+    }
+
+    public List<Commit> getCommits() {
+        return commits;
+    }
+
+    public List<GitRequest> getPulls() {
+        return pulls;
+    }
+
+    public List<GitRequest> getIssues() {
+        return issues;
+    }
+
+    /**
+     * @return the rate limit as it stood when collection finished; a copy, so changing it has no effect
+     */
+    public GitHubRateLimit getRateLimit() {
+        return copyOf(rateLimit);
+    }
+
+    /**
+     * @return commit timestamp of the oldest commit on a merged pull request, or 0 if there is none
+     */
+    public long getRepoOffsetTime() {
+        return repoOffsetTime;
+    }
+
+    private static GitHubRateLimit copyOf(GitHubRateLimit source) {
+        GitHubRateLimit copy = new GitHubRateLimit();
+        if (source != null) {
+            copy.setLimit(source.getLimit());
+            copy.setRemaining(source.getRemaining());
+            copy.setResetTime(source.getResetTime());
+        }
+        return copy;
+    }
+}
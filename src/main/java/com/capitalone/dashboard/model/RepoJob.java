@@ -0,0 +1,45 @@
+package com.capitalone.dashboard.model;
+
+import org.bson.types.ObjectId;
+
+/**
+ * A repo collection job claimed from the work queue, as the claiming worker saw it.
+ */
+public class RepoJob {
+    private final ObjectId collectorItemId;
+    private final String owner;
+    private final int priority;
+    private final long claimedAt;
+    private final int attempts;
+
+    public RepoJob(ObjectId collectorItemId, String owner, int priority, long claimedAt, int attempts) {
+        this.collectorItemId = collectorItemId;
+        this.owner = owner;
+        this.priority = priority;
+        this.claimedAt = claimedAt;
+        this.attempts = attempts;
+    }
+
+    public ObjectId getCollectorItemId() {
+        return collectorItemId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getClaimedAt() {
+        return claimedAt;
+    }
+
+    /**
+     * @return how often the job was claimed, this claim included
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+}
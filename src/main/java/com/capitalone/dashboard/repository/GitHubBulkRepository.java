@@ -0,0 +1,53 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
+import com.capitalone.dashboard.model.GitRequest;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batched reads and writes for the collections the collector fills on every run.
+ */
+public interface GitHubBulkRepository {
+
+    /**
+     * @return the SHAs from {@code revisions} already stored for the collector item, found with a single $in query
+     */
+    Set<String> findExistingRevisions(ObjectId collectorItemId, Collection<String> revisions);
+
+    /**
+     * Inserts commits with unordered bulk writes of at most {@code batchSize} documents each.
+     *
+     * @return number of commits inserted
+     */
+    int insertCommits(List<Commit> commits, int batchSize);
+
+    /**
+     * Writes pull requests and issues with unordered bulk writes: requests that already have an id
+     * replace the stored document (inserting it if it is gone), the rest are inserted.
+     *
+     * @return number of requests inserted, replaced or upserted
+     */
+    int upsertGitRequests(List<GitRequest> requests, int batchSize);
+
+    /**
+     * Streams number, updatedAt and id of the collector item's stored requests of one type
+     * ("pull" or "issue") into an index, without loading the full documents.
+     */
+    ExistingRequestIndex findExistingRequests(ObjectId collectorItemId, String requestType);
+
+    /**
+     * Sets the given fields of each repo with one unordered bulk write, leaving the rest of its document alone,
+     * so collector instances sharing the database do not overwrite each other's changes. Field names may be
+     * dotted paths, such as {@code options.activity.dashboards}.
+     *
+     * @param fieldsByRepo the fields to set, by repo id
+     * @return number of repos matched
+     */
+    int updateRepoFields(Map<ObjectId, Map<String, Object>> fieldsByRepo);
+}
@@ -0,0 +1,146 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
+import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import com.mongodb.bulk.BulkWriteResult;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+public class GitHubBulkRepositoryImpl implements GitHubBulkRepository {
+    private static final Logger LOG = LoggerFactory.getLogger(GitHubBulkRepositoryImpl.class);
+
+    private static final String COLLECTOR_ITEM_ID = "collectorItemId";
+    private static final String SCM_REVISION_NUMBER = "scmRevisionNumber";
+    private static final String REQUEST_TYPE = "requestType";
+    private static final String NUMBER = "number";
+    private static final String UPDATED_AT = "updatedAt";
+    private static final int STREAM_BATCH_SIZE = 1000;
+
+    private final MongoTemplate template;
+
+    @Autowired
+    public GitHubBulkRepositoryImpl(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public Set<String> findExistingRevisions(ObjectId collectorItemId, Collection<String> revisions) {
+        Set<String> existing = new HashSet<>();
+        if (CollectionUtils.isEmpty(revisions)) return existing;
+
+        Query query = new Query(Criteria.where(COLLECTOR_ITEM_ID).is(collectorItemId).and(SCM_REVISION_NUMBER).in(revisions));
+        query.fields().include(SCM_REVISION_NUMBER).exclude("_id");
+        for (Document document : template.find(query, Document.class, template.getCollectionName(Commit.class))) {
+            existing.add(document.getString(SCM_REVISION_NUMBER));
+        }
+        return existing;
+    }
+
+    @Override
+    public int insertCommits(List<Commit> commits, int batchSize) {
+        if (CollectionUtils.isEmpty(commits)) return 0;
+
+        int size = Math.max(batchSize, 1);
+        int inserted = 0;
+        for (int from = 0; from < commits.size(); from += size) {
+            List<Commit> batch = commits.subList(from, Math.min(from + size, commits.size()));
+            try {
+                BulkWriteResult result = template.bulkOps(BulkOperations.BulkMode.UNORDERED, Commit.class).insert(batch).execute();
+                inserted += result.getInsertedCount();
+            } catch (BulkOperationException e) {
+                // unordered: everything but the failed documents was still written
+                LOG.error("Bulk commit insert failed for " + e.getErrors().size() + " of " + batch.size() + " commits", e);
+                inserted += e.getResult().getInsertedCount();
+            }
+        }
+        return inserted;
+    }
+
+    @Override
+    public int upsertGitRequests(List<GitRequest> requests, int batchSize) {
+        if (CollectionUtils.isEmpty(requests)) return 0;
+
+        int size = Math.max(batchSize, 1);
+        int written = 0;
+        for (int from = 0; from < requests.size(); from += size) {
+            BulkOperations bulk = template.bulkOps(BulkOperations.BulkMode.UNORDERED, GitRequest.class);
+            for (GitRequest request : requests.subList(from, Math.min(from + size, requests.size()))) {
+                if (request.getId() == null) {
+                    bulk.insert(request);
+                } else {
+                    bulk.replaceOne(new Query(Criteria.where("_id").is(request.getId())), request, FindAndReplaceOptions.options().upsert());
+                }
+            }
+            try {
+                written += writtenCount(bulk.execute());
+            } catch (BulkOperationException e) {
+                LOG.error("Bulk git request write failed for " + e.getErrors().size() + " requests", e);
+                written += writtenCount(e.getResult());
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public ExistingRequestIndex findExistingRequests(ObjectId collectorItemId, String requestType) {
+        Query query = new Query(Criteria.where(COLLECTOR_ITEM_ID).is(collectorItemId).and(REQUEST_TYPE).is(requestType));
+        query.fields().include(NUMBER).include(UPDATED_AT);
+        query.cursorBatchSize(STREAM_BATCH_SIZE);
+
+        ExistingRequestIndex.Builder builder = ExistingRequestIndex.builder();
+        try (CloseableIterator<Document> cursor = template.stream(query, Document.class, template.getCollectionName(GitRequest.class))) {
+            while (cursor.hasNext()) {
+                Document document = cursor.next();
+                Object updatedAt = document.get(UPDATED_AT);
+                builder.add(document.getString(NUMBER), updatedAt instanceof Number ? ((Number) updatedAt).longValue() : 0L,
+                        document.getObjectId("_id"));
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int updateRepoFields(Map<ObjectId, Map<String, Object>> fieldsByRepo) {
+        if (MapUtils.isEmpty(fieldsByRepo)) return 0;
+
+        BulkOperations bulk = template.bulkOps(BulkOperations.BulkMode.UNORDERED, GitHubRepo.class);
+        fieldsByRepo.forEach((repoId, fields) -> {
+            Update update = new Update();
+            fields.forEach(update::set);
+            bulk.updateOne(new Query(Criteria.where("_id").is(repoId)), update);
+        });
+        try {
+            return bulk.execute().getMatchedCount();
+        } catch (BulkOperationException e) {
+            LOG.error("Bulk repo update failed for " + e.getErrors().size() + " of " + fieldsByRepo.size() + " repos", e);
+            return e.getResult().getMatchedCount();
+        }
+    }
+
+    private static int writtenCount(BulkWriteResult result) {
+        return result.getInsertedCount() + result.getMatchedCount() + result.getUpserts().size();
+    }
+}
@@ -0,0 +1,57 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.RepoJob;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+
+/**
+ * The persistent queue of repo collection jobs, one job per collector item at most.
+ */
+public interface GitHubRepoJobRepository {
+
+    /**
+     * Queues a job for each collector item with bulk upserts. A job already queued or running for an item is not
+     * duplicated: it keeps the higher priority and the earlier not-before time, and a running one is queued again
+     * once it completes.
+     *
+     * @return number of jobs inserted or updated
+     */
+    int enqueue(Collection<ObjectId> collectorItemIds, int priority, long notBefore, long now);
+
+    /**
+     * Atomically claims the highest priority job that is due and not held by a live worker, with findAndModify.
+     *
+     * @param only the collector items to consider, or null for all
+     * @return the claimed job, or null if none is due
+     */
+    RepoJob claim(String owner, long now, long leaseExpiresAt, Collection<ObjectId> only);
+
+    /**
+     * Extends the lease of a job {@code job.getOwner()} still holds.
+     *
+     * @return false if the job was lost to another worker
+     */
+    boolean heartbeat(RepoJob job, long leaseExpiresAt);
+
+    /**
+     * Removes a finished job, or hands it back to the queue if it was enqueued again while running.
+     */
+    void complete(RepoJob job);
+
+    /**
+     * Hands a failed job back to the queue, not to be claimed before {@code retryAt}.
+     */
+    void retry(RepoJob job, long retryAt, String error);
+
+    /**
+     * Hands a job that could not run yet back to the queue, not to be claimed before {@code retryAt}, without
+     * counting the attempt its claim made.
+     */
+    void postpone(RepoJob job, long retryAt, String reason);
+
+    /**
+     * Removes a job that is not retried any more.
+     */
+    void drop(RepoJob job);
+}
@@ -0,0 +1,104 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.RepoJob;
+import com.mongodb.bulk.BulkWriteResult;
+import org.apache.commons.collections.CollectionUtils;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public class GitHubRepoJobRepositoryImpl implements GitHubRepoJobRepository {
+    static final String JOBS = "github_repo_jobs";
+
+    private static final String ID = "_id";
+    private static final String PRIORITY = "priority";
+    private static final String NOT_BEFORE = "notBefore";
+    private static final String RETRY_AT = "retryAt";
+    private static final String ENQUEUED_AT = "enqueuedAt";
+    private static final String OWNER = "owner";
+    private static final String LEASE_EXPIRES_AT = "leaseExpiresAt";
+    private static final String CLAIMED_AT = "claimedAt";
+    private static final String ATTEMPTS = "attempts";
+    private static final String LAST_ERROR = "lastError";
+
+    private final MongoTemplate template;
+
+    @Autowired
+    public GitHubRepoJobRepositoryImpl(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public int enqueue(Collection<ObjectId> collectorItemIds, int priority, long notBefore, long now) {
+        if (CollectionUtils.isEmpty(collectorItemIds)) return 0;
+
+        BulkOperations bulk = template.bulkOps(BulkOperations.BulkMode.UNORDERED, JOBS);
+        for (ObjectId collectorItemId : collectorItemIds) {
+            bulk.upsert(new Query(Criteria.where(ID).is(collectorItemId)), new Update()
+                    .max(PRIORITY, priority)
+                    .min(NOT_BEFORE, notBefore)
+                    .max(ENQUEUED_AT, now)
+                    .setOnInsert(RETRY_AT, 0L)
+                    .setOnInsert(ATTEMPTS, 0));
+        }
+        BulkWriteResult result = bulk.execute();
+        return result.getMatchedCount() + result.getUpserts().size();
+    }
+
+    @Override
+    public RepoJob claim(String owner, long now, long leaseExpiresAt, Collection<ObjectId> only) {
+        Criteria due = Criteria.where(NOT_BEFORE).lte(now).and(RETRY_AT).lte(now)
+                .orOperator(Criteria.where(OWNER).is(null), Criteria.where(LEASE_EXPIRES_AT).lt(now));
+        if (only != null) due = due.and(ID).in(only);
+        Query query = new Query(due).with(Sort.by(Sort.Order.desc(PRIORITY), Sort.Order.asc(NOT_BEFORE)));
+        Update update = new Update().set(OWNER, owner).set(LEASE_EXPIRES_AT, leaseExpiresAt).set(CLAIMED_AT, now).inc(ATTEMPTS, 1);
+
+        Document claimed = template.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Document.class, JOBS);
+        if (claimed == null) return null;
+        return new RepoJob(claimed.getObjectId(ID), owner, ((Number) claimed.get(PRIORITY)).intValue(), now,
+                ((Number) claimed.get(ATTEMPTS)).intValue());
+    }
+
+    @Override
+    public boolean heartbeat(RepoJob job, long leaseExpiresAt) {
+        return template.updateFirst(held(job), new Update().set(LEASE_EXPIRES_AT, leaseExpiresAt), JOBS).getMatchedCount() > 0;
+    }
+
+    @Override
+    public void complete(RepoJob job) {
+        Query notRequeued = held(job).addCriteria(Criteria.where(ENQUEUED_AT).lte(job.getClaimedAt()));
+        if (template.remove(notRequeued, JOBS).getDeletedCount() > 0) return;
+        // enqueued again while it ran, so it runs again
+        template.updateFirst(held(job), new Update().unset(OWNER).unset(LEASE_EXPIRES_AT).set(ATTEMPTS, 0).set(RETRY_AT, 0L), JOBS);
+    }
+
+    @Override
+    public void retry(RepoJob job, long retryAt, String error) {
+        template.updateFirst(held(job), new Update().unset(OWNER).unset(LEASE_EXPIRES_AT).set(RETRY_AT, retryAt).set(LAST_ERROR, error), JOBS);
+    }
+
+    @Override
+    public void postpone(RepoJob job, long retryAt, String reason) {
+        template.updateFirst(held(job), new Update().unset(OWNER).unset(LEASE_EXPIRES_AT).set(RETRY_AT, retryAt).set(LAST_ERROR, reason).inc(ATTEMPTS, -1), JOBS);
+    }
+
+    @Override
+    public void drop(RepoJob job) {
+        template.remove(held(job), JOBS);
+    }
+
+    private static Query held(RepoJob job) {
+        return new Query(Criteria.where(ID).is(job.getCollectorItemId()).and(OWNER).is(job.getOwner()));
+    }
+}
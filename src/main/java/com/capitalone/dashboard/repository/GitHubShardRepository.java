@@ -0,0 +1,31 @@
+package com.capitalone.dashboard.repository;
+
+import org.bson.types.ObjectId;
+
+import java.util.List;
+
+/**
+ * Membership and repo leases shared by collector instances running side by side on one database.
+ */
+public interface GitHubShardRepository {
+
+    /**
+     * Records that {@code instanceId} is alive until {@code expiresAt}.
+     *
+     * @return the ids of all instances alive at {@code now}, this one included, sorted
+     */
+    List<String> heartbeat(String instanceId, long now, long expiresAt);
+
+    /**
+     * Takes or extends the lease on a collector item with a single findAndModify. Succeeds when nobody holds it,
+     * {@code owner} already does, or the previous holder's lease ran out before {@code now}.
+     *
+     * @return true if {@code owner} holds the lease until {@code expiresAt}
+     */
+    boolean claim(ObjectId collectorItemId, String owner, long now, long expiresAt);
+
+    /**
+     * Drops the lease on a collector item if {@code owner} still holds it.
+     */
+    void release(ObjectId collectorItemId, String owner);
+}
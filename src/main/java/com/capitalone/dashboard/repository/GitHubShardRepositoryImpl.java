@@ -0,0 +1,64 @@
+package com.capitalone.dashboard.repository;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class GitHubShardRepositoryImpl implements GitHubShardRepository {
+    static final String INSTANCES = "github_collector_instances";
+    static final String LEASES = "github_repo_leases";
+
+    private static final String ID = "_id";
+    private static final String OWNER = "owner";
+    private static final String EXPIRES_AT = "expiresAt";
+
+    private final MongoTemplate template;
+
+    @Autowired
+    public GitHubShardRepositoryImpl(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public List<String> heartbeat(String instanceId, long now, long expiresAt) {
+        template.upsert(new Query(Criteria.where(ID).is(instanceId)), new Update().set(EXPIRES_AT, expiresAt), INSTANCES);
+
+        Query alive = new Query(Criteria.where(EXPIRES_AT).gt(now)).with(Sort.by(ID));
+        alive.fields().include(ID);
+        List<String> instances = new ArrayList<>();
+        for (Document document : template.find(alive, Document.class, INSTANCES)) {
+            instances.add(document.getString(ID));
+        }
+        return instances;
+    }
+
+    @Override
+    public boolean claim(ObjectId collectorItemId, String owner, long now, long expiresAt) {
+        Query free = new Query(Criteria.where(ID).is(collectorItemId)
+                .orOperator(Criteria.where(OWNER).is(owner), Criteria.where(EXPIRES_AT).lt(now)));
+        Update take = new Update().set(OWNER, owner).set(EXPIRES_AT, expiresAt);
+        try {
+            // a lease held by someone else does not match, and the upsert then collides with it on _id
+            return template.findAndModify(free, take, FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, LEASES) != null;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void release(ObjectId collectorItemId, String owner) {
+        template.remove(new Query(Criteria.where(ID).is(collectorItemId).and(OWNER).is(owner)), LEASES);
+    }
+}
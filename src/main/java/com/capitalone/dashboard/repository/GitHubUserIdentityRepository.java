@@ -0,0 +1,21 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.GitHubUserIdentity;
+
+import java.util.List;
+
+/**
+ * Persistence for the collector's user identity cache.
+ */
+public interface GitHubUserIdentityRepository {
+
+    /**
+     * @return at most {@code limit} identities fetched at or after {@code fetchedSince}, newest first
+     */
+    List<GitHubUserIdentity> findFetchedSince(long fetchedSince, int limit);
+
+    /**
+     * Inserts or replaces the identity stored for its login.
+     */
+    void save(GitHubUserIdentity identity);
+}
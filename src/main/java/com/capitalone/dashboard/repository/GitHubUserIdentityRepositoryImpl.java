@@ -0,0 +1,36 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.GitHubUserIdentity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class GitHubUserIdentityRepositoryImpl implements GitHubUserIdentityRepository {
+    private static final String FETCHED_AT = "fetchedAt";
+
+    private final MongoTemplate template;
+
+    @Autowired
+    public GitHubUserIdentityRepositoryImpl(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public List<GitHubUserIdentity> findFetchedSince(long fetchedSince, int limit) {
+        Query query = new Query(Criteria.where(FETCHED_AT).gte(fetchedSince))
+                .with(Sort.by(Sort.Direction.DESC, FETCHED_AT))
+                .limit(limit);
+        return template.find(query, GitHubUserIdentity.class);
+    }
+
+    @Override
+    public void save(GitHubUserIdentity identity) {
+        template.save(identity);
+    }
+}
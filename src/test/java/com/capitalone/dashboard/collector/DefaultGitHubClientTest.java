@@ -5,31 +5,58 @@ import com.capitalone.dashboard.client.RestOperationsSupplier;
 import com.capitalone.dashboard.collector.DefaultGitHubClient.RedirectedStatus;
 import com.capitalone.dashboard.misc.HygieiaException;
 import com.capitalone.dashboard.model.ChangeRepoResponse;
+import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.CommitType;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
 import com.capitalone.dashboard.model.GitHubParsed;
+import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.model.RepoCollectionResult;
 import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
 import com.capitalone.dashboard.repository.UserEntitlementsRepository;
 import com.google.common.io.Resources;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestOperations;
 
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +70,7 @@ public class DefaultGitHubClientTest {
     private RestClient restClient;
     private GitHubSettings settings;
     private DefaultGitHubClient defaultGitHubClient;
+    private UserIdentityCache userCache;
 
     private static final String URL_USER = "http://mygithub.com/api/v3/users/";
 
@@ -51,12 +79,20 @@ public class DefaultGitHubClientTest {
         when(restOperationsSupplier.get()).thenReturn(rest);
         settings = new GitHubSettings();
         settings.setOptimizeUserCallsToGithub(false);
+        settings.setUserCacheSize(100);
+        settings.setUserCacheTtlMinutes(60);
+        settings.setUserCacheNegativeTtlMinutes(60);
+        userCache = new UserIdentityCache(settings, null);
         defaultGitHubClient = new DefaultGitHubClient(settings, new RestClient(restOperationsSupplier),
-                userEntitlementsRepository);
-        defaultGitHubClient.setLdapMap(new HashMap<>());
+                userEntitlementsRepository, userCache);
 
     }
 
+    @AfterEach
+    public void shutdown() {
+        defaultGitHubClient.shutdown();
+    }
+
     @Test
     public void getLDAPDN_With_Underscore() {
         String userhyphen = "this-has-underscore";
@@ -65,12 +101,12 @@ public class DefaultGitHubClientTest {
         when(rest.exchange(eq(URL_USER + userhyphen), eq(HttpMethod.GET),
                 eq(null), eq(String.class)))
                 .thenReturn(new ResponseEntity<>(goodLdapResponse(), HttpStatus.OK));
-        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(),userUnderscore);
+        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(), userUnderscore);
         assertEquals(ldapUser, "CN=ldapUser,OU=Developers,OU=All Users,DC=cof,DC=ds,DC=mycompany,DC=com");
-        assertTrue(defaultGitHubClient.getLdapMap().containsKey(userhyphen));
-        assertFalse(defaultGitHubClient.getLdapMap().containsKey(userUnderscore));
-        assertEquals(defaultGitHubClient.getLdapMap().get(userhyphen), "CN=ldapUser,OU=Developers,OU=All Users,DC=cof,DC=ds,DC=mycompany,DC=com");
-        assertNull(defaultGitHubClient.getLdapMap().get(userUnderscore));
+        assertTrue(userCache.contains(userhyphen));
+        assertFalse(userCache.contains(userUnderscore));
+        assertEquals(userCache.get(userhyphen).getLdapDN(), "CN=ldapUser,OU=Developers,OU=All Users,DC=cof,DC=ds,DC=mycompany,DC=com");
+        assertNull(userCache.get(userUnderscore));
     }
 
     @Test
@@ -80,9 +116,9 @@ public class DefaultGitHubClientTest {
         when(rest.exchange(eq(URL_USER + userhyphen), eq(HttpMethod.GET),
                 eq(null), eq(String.class)))
                 .thenReturn(new ResponseEntity<>(goodLdapResponse(), HttpStatus.OK));
-        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(),userhyphen);
+        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(), userhyphen);
         assertEquals(ldapUser, "CN=ldapUser,OU=Developers,OU=All Users,DC=cof,DC=ds,DC=mycompany,DC=com");
-        assertTrue(defaultGitHubClient.getLdapMap().containsKey(userhyphen));
+        assertTrue(userCache.contains(userhyphen));
     }
 
     @Test
@@ -92,9 +128,9 @@ public class DefaultGitHubClientTest {
         when(rest.exchange(eq(URL_USER + user), eq(HttpMethod.GET),
                 eq(null), eq(String.class)))
                 .thenReturn(new ResponseEntity<>(goodLdapResponse(), HttpStatus.OK));
-        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(),user);
+        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(), user);
         assertEquals(ldapUser, "CN=ldapUser,OU=Developers,OU=All Users,DC=cof,DC=ds,DC=mycompany,DC=com");
-        assertTrue(defaultGitHubClient.getLdapMap().containsKey(user));
+        assertTrue(userCache.contains(user));
     }
 
     @Test
@@ -104,9 +140,474 @@ public class DefaultGitHubClientTest {
         when(rest.exchange(eq(URL_USER + user), eq(HttpMethod.GET),
                 eq(null), eq(String.class)))
                 .thenReturn(new ResponseEntity<>("", HttpStatus.OK));
-        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(),user);
+        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(), user);
         assertNull(ldapUser);
-        assertFalse(defaultGitHubClient.getLdapMap().containsKey(user));
+        assertNull(userCache.get(user).getLdapDN());
+    }
+
+    @Test
+    public void getLDAPDN_UnknownUserIsCached() {
+        String user = "someuser-gone";
+
+        when(rest.exchange(eq(URL_USER + user), eq(HttpMethod.GET),
+                eq(null), eq(String.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        assertNull(defaultGitHubClient.getLDAPDN(getGitRepo(), user));
+        assertNull(defaultGitHubClient.getLDAPDN(getGitRepo(), user));
+        verify(rest, times(1)).exchange(eq(URL_USER + user), eq(HttpMethod.GET), eq(null), eq(String.class));
+        assertFalse(userCache.get(user).isFound());
+    }
+
+    @Test
+    public void getLDAPDN_CachedAcrossRepos() {
+        String user = "someuser";
+
+        when(rest.exchange(eq(URL_USER + user), eq(HttpMethod.GET),
+                eq(null), eq(String.class)))
+                .thenReturn(new ResponseEntity<>(goodLdapResponse(), HttpStatus.OK));
+        defaultGitHubClient.getLDAPDN(getGitRepo(), user);
+        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(), user);
+        assertEquals(ldapUser, "CN=ldapUser,OU=Developers,OU=All Users,DC=cof,DC=ds,DC=mycompany,DC=com");
+        verify(rest, times(1)).exchange(eq(URL_USER + user), eq(HttpMethod.GET), eq(null), eq(String.class));
+        assertEquals(1, userCache.getHits());
+        assertEquals(1, userCache.getMisses());
+    }
+
+    @Test
+    public void resolveUsersInBatches() throws Exception {
+        settings.setOptimizeUserCallsToGithub(true);
+        settings.setUserBatchSize(2);
+        userCache.put("known", null, "User");
+        GitHubRepo repo = getGitRepo();
+        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        String pageBody = "{\"data\": {\"repository\": {\"pullRequests\": {\"edges\": ["
+                + "{\"node\": {\"author\": {\"login\": \"first\"}, \"comments\": {\"nodes\": [{\"author\": {\"login\": \"known\"}}]}}},"
+                + "{\"node\": {\"author\": {\"login\": \"second_user\"}, \"reviews\": {\"nodes\": [{\"author\": {\"login\": \"some-bot\"}}]}}}]}}}}";
+        RepositoryPage page = GraphQLResponse.of(new ResponseEntity<>(pageBody, HttpStatus.OK), RepositoryPageDecoder.INSTANCE).getData();
+
+        // answers every alias in the request: bots are not repository owners, "second-user" is an organization
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    JSONObject query = (JSONObject) ((HttpEntity<?>) invocation.getArgument(2)).getBody();
+                    JSONObject variables = (JSONObject) new JSONParser().parse((String) query.get("variables"));
+                    JSONObject data = new JSONObject();
+                    for (Object alias : variables.keySet()) {
+                        String login = (String) variables.get(alias);
+                        JSONObject owner = new JSONObject();
+                        owner.put("__typename", "second-user".equals(login) ? "Organization" : "User");
+                        data.put(alias, login.endsWith("-bot") ? null : owner);
+                    }
+                    JSONObject body = new JSONObject();
+                    body.put("data", data);
+                    return new ResponseEntity<>(body.toJSONString(), HttpStatus.OK);
+                });
+
+        Set<String> logins = DefaultGitHubClient.pageLogins(page);
+        assertEquals(new LinkedHashSet<>(Arrays.asList("first", "known", "second-user", "some-bot")), logins);
+        defaultGitHubClient.resolveUsers(gitHubParsed, repo, "", "", logins);
+
+        verify(rest, times(2)).exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class));
+        assertEquals("User", userCache.get("first").getAuthorType());
+        assertEquals("Organization", userCache.get("second-user").getAuthorType());
+        assertFalse(userCache.hasLdapDN("first"));
+        assertFalse(userCache.contains("some-bot"));
+    }
+
+    @Test
+    public void getLDAPDNFetchesTypeOnlyUser() throws Exception {
+        String user = "ldapUser";
+        userCache.putTypeOnly(user, "User");
+        when(rest.exchange(eq(URL_USER + user), eq(HttpMethod.GET), eq(null), eq(String.class)))
+                .thenReturn(new ResponseEntity<>(goodLdapResponse(), HttpStatus.OK));
+
+        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(), user);
+        assertEquals("CN=ldapUser,OU=Developers,OU=All Users,DC=cof,DC=ds,DC=mycompany,DC=com", ldapUser);
+        assertTrue(userCache.hasLdapDN(user));
+        defaultGitHubClient.getLDAPDN(getGitRepo(), user);
+        verify(rest, times(1)).exchange(eq(URL_USER + user), eq(HttpMethod.GET), eq(null), eq(String.class));
+    }
+
+    @Test
+    public void fireGraphQLFirstRun() throws Exception {
+        settings.setFirstRunHistoryDays(100000);
+        settings.setUserBatchSize(0);
+        for (String login : Arrays.asList("first-dev", "second-dev", "third-dev")) {
+            userCache.put(login, "CN=" + login, "User");
+        }
+        GitHubRepo repo = getGitRepo();
+        repo.getOptions().put(GitHubRepo.USER_ID, "");
+        repo.getOptions().put(GitHubRepo.PASSWORD, "");
+        repo.getOptions().put("url", repo.getRepoUrl());
+        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(new ResponseEntity<>(getData("graphql/repository-page.json"), HttpStatus.OK));
+
+        RepoCollectionResult result = defaultGitHubClient.fireGraphQL(repo, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0);
+
+        // the matcher keeps the merge commit of pull request 42
+        assertEquals(1, result.getCommits().size());
+        Commit merge = result.getCommits().get(0);
+        assertEquals("9a8b7c6d5e4f30219a8b7c6d5e4f30219a8b7c6d", merge.getScmRevisionNumber());
+        assertEquals("42", merge.getPullNumber());
+        assertEquals(repo.getRepoUrl(), merge.getScmUrl());
+        assertEquals("CN=second-dev", merge.getScmAuthorLDAPDN());
+        assertEquals("User", merge.getScmAuthorType());
+        assertEquals(CommitType.Merge, merge.getType());
+
+        assertEquals(2, result.getPulls().size());
+        GitRequest merged = result.getPulls().get(0);
+        assertEquals("42", merged.getNumber());
+        assertEquals("merged", merged.getState());
+        assertEquals(2, merged.getCommits().size());
+        assertEquals(1, merged.getComments().size());
+        assertEquals(1, merged.getReviews().size());
+        assertEquals("second-dev", merged.getMergeAuthor());
+        assertEquals("CN=second-dev", merged.getMergeAuthorLDAPDN());
+        assertEquals("9a8b7c6d5e4f30219a8b7c6d5e4f30219a8b7c6d", merged.getScmMergeEventRevisionNumber());
+        assertEquals("c0ffee00c0ffee00c0ffee00c0ffee00c0ffee00", merged.getHeadSha());
+        assertEquals("1f2e3d4c5b6a79881f2e3d4c5b6a79881f2e3d4c", merged.getBaseSha());
+        assertEquals("user/repo", merged.getSourceRepo());
+        assertEquals(2, merged.getNumberOfChanges());
+        assertEquals(1, merged.getCommitStatuses().size());
+        assertEquals("ci/build", merged.getCommitStatuses().get(0).getContext());
+        Commit prCommit = merged.getCommits().get(0);
+        assertEquals(36, prCommit.getNumberOfChanges());
+        assertEquals("first dev", prCommit.getScmAuthorName());
+        assertEquals("CN=first-dev", prCommit.getScmAuthorLDAPDN());
+        assertEquals("second-dev", merged.getComments().get(0).getUser());
+        assertEquals("Could this back off exponentially?", merged.getComments().get(0).getBody());
+        assertEquals("APPROVED", merged.getReviews().get(0).getState());
+        assertEquals("CN=second-dev", merged.getReviews().get(0).getAuthorLDAPDN());
+        GitRequest open = result.getPulls().get(1);
+        assertEquals("fork-owner/repo", open.getSourceRepo());
+        assertEquals("open", open.getState());
+        assertEquals("third_dev", open.getUserId());
+        assertEquals(0, open.getMergedAt());
+        assertNull(open.getCommits());
+
+        assertEquals(2, result.getIssues().size());
+        assertEquals("closed", result.getIssues().get(0).getState());
+        assertEquals("40", result.getIssues().get(0).getScmRevisionNumber());
+        assertEquals("open", result.getIssues().get(1).getState());
+    }
+
+    @Test
+    public void processPullRequestPagesRemainingComments() throws Exception {
+        settings.setFirstRunHistoryDays(100000);
+        for (String login : Arrays.asList("first-dev", "second-dev", "third-dev")) {
+            userCache.put(login, "CN=" + login, "User");
+        }
+        GitHubRepo repo = getGitRepo();
+        repo.getOptions().put(GitHubRepo.USER_ID, "");
+        repo.getOptions().put(GitHubRepo.PASSWORD, "");
+        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        String body = getData("graphql/repository-page.json").replace(
+                "\"pageInfo\": { \"endCursor\": \"Y3Vyc29yOnYyOpHOIjR2Rw==\", \"hasNextPage\": false }",
+                "\"pageInfo\": { \"endCursor\": \"Y3Vyc29yOnYyOpHOIjR2Rw==\", \"hasNextPage\": true }");
+        RepositoryPage page = GraphQLResponse.of(new ResponseEntity<>(body, HttpStatus.OK), RepositoryPageDecoder.INSTANCE).getData();
+        String moreComments = "{\"data\": {\"repository\": {\"pullRequest\": {\"comments\": {\"totalCount\": 2, "
+                + "\"pageInfo\": {\"endCursor\": \"c2\", \"hasNextPage\": false}, "
+                + "\"nodes\": [{\"bodyText\": \"Done\", \"author\": {\"login\": \"first-dev\"}, \"createdAt\": \"2021-01-25T12:00:00Z\"}]}}}}}";
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(new ResponseEntity<>(moreComments, HttpStatus.OK));
+        JSONObject query = new JSONObject();
+        query.put("variables", "{\"owner\": \"user\", \"name\": \"repo\"}");
+        DefaultGitHubClient.CollectionContext context = new DefaultGitHubClient.CollectionContext();
+
+        defaultGitHubClient.processPullRequest(page.getPullRequests(), repo, ExistingRequestIndex.empty(), query, context);
+
+        verify(rest, times(1)).exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class));
+        GitRequest merged = defaultGitHubClient.collectionResult(context).getPulls().get(0);
+        assertEquals(2, merged.getComments().size());
+        assertEquals("Done", merged.getComments().get(1).getBody());
+        assertEquals("CN=first-dev", merged.getComments().get(1).getUserLDAPDN());
+        assertEquals(1, merged.getReviews().size());
+    }
+
+    @Test
+    public void asyncClientCollectsLikeBlockingLoop() throws Exception {
+        settings.setFirstRunHistoryDays(100000);
+        settings.setUserBatchSize(0);
+        settings.setAsyncIoThreads(1);
+        settings.setAsyncWorkerThreads(1);
+        for (String login : Arrays.asList("first-dev", "second-dev", "third-dev")) {
+            userCache.put(login, "CN=" + login, "User");
+        }
+        GitHubRepo repo = getGitRepo();
+        repo.getOptions().put(GitHubRepo.USER_ID, "");
+        repo.getOptions().put(GitHubRepo.PASSWORD, "");
+        repo.getOptions().put("url", repo.getRepoUrl());
+        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(new ResponseEntity<>(getData("graphql/repository-page.json"), HttpStatus.OK));
+        AsyncGitHubClient asyncClient = new AsyncGitHubClient(settings, new RestClient(restOperationsSupplier), userEntitlementsRepository, userCache);
+
+        try {
+            RepoCollectionResult blocking = defaultGitHubClient.fireGraphQL(repo, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0);
+            RepoCollectionResult async = asyncClient.fireGraphQLAsync(repo, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0)
+                    .get(30, TimeUnit.SECONDS);
+
+            assertEquals(blocking.getCommits().size(), async.getCommits().size());
+            assertEquals("42", async.getCommits().get(0).getPullNumber());
+            assertEquals(blocking.getPulls().size(), async.getPulls().size());
+            assertEquals(2, async.getPulls().get(0).getCommits().size());
+            assertEquals(blocking.getIssues().size(), async.getIssues().size());
+        } finally {
+            asyncClient.shutdown();
+        }
+    }
+
+    @Test
+    public void splitStreamsCollectLikeCombinedQuery() throws Exception {
+        settings.setFirstRunHistoryDays(100000);
+        settings.setUserBatchSize(0);
+        settings.setSplitStreams(true);
+        defaultGitHubClient = new DefaultGitHubClient(settings, new RestClient(restOperationsSupplier),
+                userEntitlementsRepository, userCache);
+        for (String login : Arrays.asList("first-dev", "second-dev", "third-dev")) {
+            userCache.put(login, "CN=" + login, "User");
+        }
+        GitHubRepo repo = getGitRepo();
+        repo.getOptions().put(GitHubRepo.USER_ID, "");
+        repo.getOptions().put(GitHubRepo.PASSWORD, "");
+        repo.getOptions().put("url", repo.getRepoUrl());
+        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        List<String> queries = Collections.synchronizedList(new ArrayList<>());
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    queries.add(String.valueOf(((HttpEntity<?>) invocation.getArgument(2)).getBody()));
+                    return new ResponseEntity<>(getData("graphql/repository-page.json"), HttpStatus.OK);
+                });
+
+        RepoCollectionResult result = defaultGitHubClient.fireGraphQL(repo, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0);
+
+        // one query per stream, each asking for its own part of the repo only
+        assertEquals(3, queries.size());
+        assertEquals(1, queries.stream().filter(query -> query.contains("history(") && !query.contains("pullRequests(") && !query.contains("issues(")).count());
+        assertEquals(1, queries.stream().filter(query -> query.contains("pullRequests(") && !query.contains("history(") && !query.contains("issues(")).count());
+        assertEquals(1, queries.stream().filter(query -> query.contains("issues(") && !query.contains("history(") && !query.contains("pullRequests(")).count());
+
+        assertEquals(1, result.getCommits().size());
+        assertEquals("42", result.getCommits().get(0).getPullNumber());
+        assertEquals(2, result.getPulls().size());
+        assertEquals("42", result.getPulls().get(0).getNumber());
+        assertEquals(2, result.getIssues().size());
+        assertEquals("40", result.getIssues().get(0).getScmRevisionNumber());
+    }
+
+    @Test
+    public void prefetchedNextPageIsUsed() throws Exception {
+        settings.setFirstRunHistoryDays(100000);
+        settings.setUserBatchSize(0);
+        settings.setPipelinePages(true);
+        defaultGitHubClient = new DefaultGitHubClient(settings, new RestClient(restOperationsSupplier),
+                userEntitlementsRepository, userCache);
+        for (String login : Arrays.asList("first-dev", "second-dev", "third-dev")) {
+            userCache.put(login, "CN=" + login, "User");
+        }
+        GitHubRepo repo = getGitRepo();
+        repo.getOptions().put(GitHubRepo.USER_ID, "");
+        repo.getOptions().put(GitHubRepo.PASSWORD, "");
+        repo.getOptions().put("url", repo.getRepoUrl());
+        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        String lastPage = getData("graphql/repository-page.json");
+        // the pull requests continue on a second page
+        String firstPage = lastPage.replaceFirst("\"hasNextPage\": false", "\"hasNextPage\": true");
+        List<String> callingThreads = Collections.synchronizedList(new ArrayList<>());
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    callingThreads.add(Thread.currentThread().getName());
+                    return new ResponseEntity<>(callingThreads.size() == 1 ? firstPage : lastPage, HttpStatus.OK);
+                });
+
+        RepoCollectionResult result = defaultGitHubClient.fireGraphQL(repo, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0);
+
+        // the second page was requested ahead and matched what processing asked for, so no third call
+        assertEquals(2, callingThreads.size());
+        assertTrue(callingThreads.get(1).startsWith("github-prefetch-"));
+        assertEquals(4, result.getPulls().size());
+    }
+
+    @Test
+    public void wrongPrefetchIsCancelled() throws Exception {
+        DefaultGitHubClient.CollectionContext context = new DefaultGitHubClient.CollectionContext();
+        JSONObject query = defaultGitHubClient.startCollection(getGitRepo(), true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0, context);
+        JSONObject predicted = new JSONObject(query);
+        predicted.put("variables", "{\"afterPull\":\"other\"}");
+        CompletableFuture<RepositoryPage> inFlight = new CompletableFuture<>();
+
+        defaultGitHubClient.pageFor(query, new DefaultGitHubClient.PrefetchedPage(predicted, inFlight), context, command -> { });
+
+        assertTrue(inFlight.isCancelled());
+    }
+
+    @Test
+    public void checkpointsEveryPageAndResumesFromIt() throws Exception {
+        settings.setFirstRunHistoryDays(100000);
+        settings.setCheckpointPages(true);
+        settings.setUserBatchSize(0);
+        for (String login : Arrays.asList("first-dev", "second-dev", "third-dev")) {
+            userCache.put(login, "CN=" + login, "User");
+        }
+        GitHubRepo repo = getGitRepo();
+        repo.getOptions().put(GitHubRepo.USER_ID, "");
+        repo.getOptions().put(GitHubRepo.PASSWORD, "");
+        repo.getOptions().put("url", repo.getRepoUrl());
+        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        String lastPage = getData("graphql/repository-page.json");
+        // the pull requests continue on a second page
+        String firstPage = lastPage.replaceFirst("\"hasNextPage\": false", "\"hasNextPage\": true");
+        List<String> queries = Collections.synchronizedList(new ArrayList<>());
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    queries.add(String.valueOf(((HttpEntity<?>) invocation.getArgument(2)).getBody()));
+                    return new ResponseEntity<>(queries.size() == 1 ? firstPage : lastPage, HttpStatus.OK);
+                });
+        List<RepoCollectionResult> pages = new ArrayList<>();
+        List<Map<?, ?>> checkpoints = new ArrayList<>();
+        PageCommitter committer = new PageCommitter() {
+            @Override
+            public void commit(GitHubRepo committed, RepoCollectionResult page) {
+                pages.add(page);
+            }
+
+            @Override
+            public void checkpoint(GitHubRepo committed) {
+                checkpoints.add(new HashMap<>((Map<?, ?>) committed.getOptions().get(RepoCheckpoint.CHECKPOINT)));
+            }
+        };
+
+        defaultGitHubClient.fireGraphQL(repo, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0, committer);
+
+        assertEquals(2, pages.size());
+        assertEquals(2, pages.get(0).getPulls().size());
+        assertEquals(2, pages.get(0).getIssues().size());
+        // after the first page only the pull requests go on, from its cursor
+        Map<?, ?> afterFirstPage = checkpoints.get(0);
+        assertEquals("Y3Vyc29yOnYyOpK5MjAyMS0wMS0yNlQxNDoxNzo0OCswMDowMM4WN3Jk", afterFirstPage.get("pullsCursor"));
+        assertNull(afterFirstPage.get("pullsDone"));
+        assertEquals(true, afterFirstPage.get("commitsDone"));
+        assertEquals(true, afterFirstPage.get("issuesDone"));
+        assertEquals(true, checkpoints.get(1).get("pullsDone"));
+
+        // a restart after the first page picks up with the second one
+        GitHubRepo restarted = getGitRepo();
+        restarted.getOptions().putAll(repo.getOptions());
+        restarted.getOptions().put(RepoCheckpoint.CHECKPOINT, afterFirstPage);
+        queries.clear();
+        pages.clear();
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    queries.add(String.valueOf(((HttpEntity<?>) invocation.getArgument(2)).getBody()));
+                    return new ResponseEntity<>(lastPage, HttpStatus.OK);
+                });
+
+        defaultGitHubClient.fireGraphQL(restarted, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0, committer);
+
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0).contains("Y3Vyc29yOnYyOpK5MjAyMS0wMS0yNlQxNDoxNzo0OCswMDowMM4WN3Jk"));
+        assertFalse(queries.get(0).contains("history("));
+        assertEquals(1, pages.size());
+        assertEquals(afterFirstPage.get("startedAt"), checkpoints.get(checkpoints.size() - 1).get("startedAt"));
+    }
+
+    @Test
+    public void streamPagesHandsPagesToSinkAndKeepsNone() throws Exception {
+        settings.setFirstRunHistoryDays(100000);
+        settings.setUserBatchSize(0);
+        for (String login : Arrays.asList("first-dev", "second-dev", "third-dev")) {
+            userCache.put(login, "CN=" + login, "User");
+        }
+        GitHubRepo repo = getGitRepo();
+        repo.getOptions().put(GitHubRepo.USER_ID, "");
+        repo.getOptions().put(GitHubRepo.PASSWORD, "");
+        repo.getOptions().put("url", repo.getRepoUrl());
+        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        String lastPage = getData("graphql/repository-page.json");
+        String firstPage = lastPage.replaceFirst("\"hasNextPage\": false", "\"hasNextPage\": true");
+        AtomicInteger calls = new AtomicInteger();
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> new ResponseEntity<>(calls.incrementAndGet() % 2 == 1 ? firstPage : lastPage, HttpStatus.OK));
+        RepoCollectionResult whole = defaultGitHubClient.fireGraphQL(repo, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0);
+
+        settings.setStreamPages(true);
+        List<RepoCollectionResult> pages = new ArrayList<>();
+        PageCommitter sink = new PageCommitter() {
+            @Override
+            public void commit(GitHubRepo committed, RepoCollectionResult page) {
+                pages.add(page);
+            }
+
+            @Override
+            public void checkpoint(GitHubRepo committed) {
+                fail("checkpoints are off");
+            }
+        };
+        RepoCollectionResult streamed = defaultGitHubClient.fireGraphQL(repo, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0, sink);
+
+        assertTrue(streamed.getCommits().isEmpty());
+        assertTrue(streamed.getPulls().isEmpty());
+        assertTrue(streamed.getIssues().isEmpty());
+        assertEquals(2, pages.size());
+        assertEquals(whole.getPulls().size(), pages.stream().mapToInt(page -> page.getPulls().size()).sum());
+        assertEquals(2, pages.get(0).getIssues().size());
+        // the merge commit is linked to its pull request within its page
+        assertEquals("42", pages.get(0).getCommits().stream()
+                .filter(commit -> "9a8b7c6d5e4f30219a8b7c6d5e4f30219a8b7c6d".equals(commit.getScmRevisionNumber()))
+                .findFirst().get().getPullNumber());
+        assertEquals(whole.getRepoOffsetTime(), streamed.getRepoOffsetTime());
+        assertNull(repo.getOptions().get(RepoCheckpoint.CHECKPOINT));
+    }
+
+    @Test
+    public void samePageIgnoresPageSize() {
+        JSONObject a = new JSONObject();
+        a.put("query", "query q");
+        a.put("variables", "{\"afterPull\":\"abc\",\"fetchCount\":50}");
+        JSONObject b = new JSONObject();
+        b.put("query", "query q");
+        b.put("variables", "{\"fetchCount\":25,\"afterPull\":\"abc\"}");
+        assertTrue(DefaultGitHubClient.samePage(a, b));
+
+        b.put("variables", "{\"fetchCount\":50,\"afterPull\":\"def\"}");
+        assertFalse(DefaultGitHubClient.samePage(a, b));
+    }
+
+    @Test
+    public void badGatewayShrinksPageAndRepoKeepsIt() throws Exception {
+        settings.setFirstRunHistoryDays(100000);
+        settings.setUserBatchSize(0);
+        settings.setFetchCount(40);
+        settings.setAdaptivePageSize(true);
+        settings.setMinPageSize(5);
+        settings.setMaxPageSize(100);
+        settings.setPageLatencyTargetMillis(60000);
+        settings.setPageCostTarget(50);
+        settings.setMaxRetries(3);
+        settings.setDelay(0);
+        for (String login : Arrays.asList("first-dev", "second-dev", "third-dev")) {
+            userCache.put(login, "CN=" + login, "User");
+        }
+        GitHubRepo repo = getGitRepo();
+        repo.getOptions().put(GitHubRepo.USER_ID, "");
+        repo.getOptions().put(GitHubRepo.PASSWORD, "");
+        repo.getOptions().put("url", repo.getRepoUrl());
+        GitHubParsed gitHubParsed = new GitHubParsed(repo.getRepoUrl());
+        List<String> queries = new ArrayList<>();
+        when(rest.exchange(eq(gitHubParsed.getGraphQLUrl()), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    queries.add(String.valueOf(((HttpEntity<?>) invocation.getArgument(2)).getBody()));
+                    if (queries.size() == 1) throw HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null);
+                    return new ResponseEntity<>(getData("graphql/repository-page.json"), HttpStatus.OK);
+                });
+
+        defaultGitHubClient.fireGraphQL(repo, true, ExistingRequestIndex.empty(), ExistingRequestIndex.empty(), 0);
+
+        assertTrue(queries.get(0).contains("\\\"fetchCount\\\":40"));
+        assertTrue(queries.get(0).contains("rateLimit"));
+        assertTrue(queries.get(1).contains("\\\"fetchCount\\\":20"));
+        // no growth on the page that needed a retry
+        assertEquals(20, repo.getOptions().get(PageSizer.PAGE_SIZE));
     }
 
     @Test
@@ -143,9 +644,9 @@ public class DefaultGitHubClientTest {
         when(rest.exchange(eq(URL_USER + user), eq(HttpMethod.GET),
                 eq(null), eq(String.class)))
                 .thenReturn(new ResponseEntity<>(goodLdapResponse(), HttpStatus.OK));
-        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(),user);
+        String ldapUser = defaultGitHubClient.getLDAPDN(getGitRepo(), user);
         assertEquals(ldapUser, "CN=ldapUser,OU=Developers,OU=All Users,DC=cof,DC=ds,DC=mycompany,DC=com");
-        assertTrue(defaultGitHubClient.getLdapMap().containsKey(user));
+        assertTrue(userCache.contains(user));
     }
 
     @Test
@@ -160,6 +661,37 @@ public class DefaultGitHubClientTest {
         assertEquals(1611673668000L, changeRepoResponse.getLatestEventTimestamp());
     }
 
+    @Test
+    public void failsOverToTokenWithBudgetLeft() {
+        settings.setPersonalAccessTokens(Arrays.asList("first-token", "second-token"));
+        defaultGitHubClient = new DefaultGitHubClient(settings, new RestClient(restOperationsSupplier),
+                userEntitlementsRepository, userCache);
+        HttpHeaders exhausted = new HttpHeaders();
+        exhausted.add(DefaultGitHubClient.X_RATE_LIMIT_LIMIT, "5000");
+        exhausted.add(DefaultGitHubClient.X_RATE_LIMIT_REMAINING, "0");
+        exhausted.add(DefaultGitHubClient.X_RATE_LIMIT_RESET, String.valueOf(System.currentTimeMillis() / 1000 + 600));
+        List<String> used = new ArrayList<>();
+        when(rest.exchange(startsWith(URL_USER), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    String authorization = ((HttpEntity<?>) invocation.getArgument(2)).getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+                    used.add(authorization);
+                    if (authorization.contains("first-token")) {
+                        throw HttpClientErrorException.create(HttpStatus.FORBIDDEN, "rate limit exceeded", exhausted, null, null);
+                    }
+                    return new ResponseEntity<>(goodLdapResponse(), HttpStatus.OK);
+                });
+
+        assertEquals("CN=ldapUser,OU=Developers,OU=All Users,DC=cof,DC=ds,DC=mycompany,DC=com",
+                defaultGitHubClient.getLDAPDN(getGitRepo(), "someuser"));
+        assertTrue(used.get(used.size() - 1).contains("second-token"));
+
+        // the exhausted token is skipped until its reset
+        used.clear();
+        defaultGitHubClient.getLDAPDN(getGitRepo(), "otheruser");
+        assertEquals(1, used.size());
+        assertTrue(used.get(0).contains("second-token"));
+    }
+
     private GitHubRepo getGitRepo() {
         GitHubRepo repo = new GitHubRepo();
         repo.setBranch("master");
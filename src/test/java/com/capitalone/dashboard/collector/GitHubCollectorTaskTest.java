@@ -8,14 +8,18 @@ import com.capitalone.dashboard.model.CollectorType;
 import com.capitalone.dashboard.model.Commit;
 import com.capitalone.dashboard.model.CommitType;
 import com.capitalone.dashboard.model.Component;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
 import com.capitalone.dashboard.model.GitHubCollector;
 import com.capitalone.dashboard.model.GitHubParsed;
 import com.capitalone.dashboard.model.GitHubRateLimit;
 import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.model.RepoCollectionResult;
+import com.capitalone.dashboard.model.RepoJob;
 import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
 import com.capitalone.dashboard.repository.CollectorRepository;
 import com.capitalone.dashboard.repository.CommitRepository;
 import com.capitalone.dashboard.repository.ComponentRepository;
+import com.capitalone.dashboard.repository.GitHubBulkRepository;
 import com.capitalone.dashboard.repository.GitHubRepoRepository;
 import com.capitalone.dashboard.repository.GitRequestRepository;
 import org.bson.types.ObjectId;
@@ -27,24 +31,31 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
 
 import java.net.MalformedURLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyLong;
-import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
@@ -58,6 +69,9 @@ public class GitHubCollectorTaskTest {
     @Mock private ComponentRepository dbComponentRepository;
     @Mock private CommitRepository commitRepository;
     @Mock private CollectorRepository collectorRepository;
+    @Mock private GitHubBulkRepository gitHubBulkRepository;
+    @Mock private RepoWorkQueue repoWorkQueue;
+    @Mock private RepoSharding repoSharding;
 
     @Mock private GitHubRepo repo1;
     @Mock private GitHubRepo repo2;
@@ -85,12 +99,11 @@ public class GitHubCollectorTaskTest {
         when(gitHubSettings.getErrorThreshold()).thenReturn(1);
 
         when(gitHubClient.isUnderRateLimit()).thenReturn(true);
-        when(gitHubClient.getCommits()).thenReturn(getCommits());
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenReturn(collectionResult(getCommits(), new ArrayList<>()));
 
-        when(commitRepository.findByCollectorItemIdAndScmRevisionNumber(
-                repo1.getId(), "1")).thenReturn(null);
+        when(gitHubBulkRepository.findExistingRevisions(repo1.getId(), Collections.singleton("1"))).thenReturn(new HashSet<>());
 
-        when(commitRepository.countCommitsByCollectorItemId(repo1.getId())).thenReturn(1L);
 
         ChangeRepoResponse changeRepoResponse = makeChangeRepoResponse(getEnabledRepos());
 //        when(gitHubClient.getChangedRepos(anyLong(), anyLong())).thenReturn(changeRepoResponse);
@@ -106,7 +119,7 @@ public class GitHubCollectorTaskTest {
         assertEquals(true, repo1.isEnabled());
 
         //verify that save is called once for the commit item
-        Mockito.verify(commitRepository, times(1)).save(commit);
+        Mockito.verify(gitHubBulkRepository, times(1)).insertCommits(Collections.singletonList(commit), 0);
     }
 
 
@@ -130,12 +143,11 @@ public class GitHubCollectorTaskTest {
 
 
         when(gitHubClient.isUnderRateLimit()).thenReturn(true);
-        when(gitHubClient.getCommits()).thenReturn(getCommits());
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenReturn(collectionResult(getCommits(), new ArrayList<>()));
 
-        when(commitRepository.findByCollectorItemIdAndScmRevisionNumber(
-                repo1.getId(), "1")).thenReturn(null);
+        when(gitHubBulkRepository.findExistingRevisions(repo1.getId(), Collections.singleton("1"))).thenReturn(new HashSet<>());
 
-        when(commitRepository.countCommitsByCollectorItemId(repo1.getId())).thenReturn(1L);
 //        when(gitHubClient.getChangedRepos(anyLong(), anyLong())).thenReturn(makeChangeRepoResponse(getEnabledRepos()));
 
         task.collect(collector);
@@ -170,12 +182,10 @@ public class GitHubCollectorTaskTest {
 
 
 //        when(gitHubClient.isUnderRateLimit()).thenReturn(true);
-//        when(gitHubClient.getCommits()).thenReturn(getCommits());
+//        when(gitHubClient.fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenReturn(collectionResult(getCommits(), new ArrayList<>()));
 
-//        when(commitRepository.findByCollectorItemIdAndScmRevisionNumber(
-//                repo1.getId(), "1")).thenReturn(null);
+//        when(gitHubBulkRepository.findExistingRevisions(repo1.getId(), Collections.singleton("1"))).thenReturn(new HashSet<>());
 
-//        when(commitRepository.countCommitsByCollectorItemId(repo1.getId())).thenReturn(1L);
         when(gitHubClient.getChangedRepos(anyLong(), anyLong())).thenReturn(makeChangeRepoResponse(getEnabledRepos()));
         when(gitHubSettings.isCollectChangedReposOnly()).thenReturn(true);
         task.collect(collector);
@@ -191,6 +201,35 @@ public class GitHubCollectorTaskTest {
     }
 
 
+    @Test
+    public void collect_hashShardingIgnoresChangedReposOnly() throws MalformedURLException, HygieiaException {
+        when(dbComponentRepository.findAll()).thenReturn(components());
+        Set<ObjectId> gitID = new HashSet<>();
+        gitID.add(new ObjectId("111ca42a258ad365fbb64ecc"));
+        when(gitHubRepoRepository.findByCollectorIdIn(gitID)).thenReturn(getGitHubs());
+
+        GitHubCollector collector = new GitHubCollector();
+        collector.setEnabled(true);
+        collector.setName("collector");
+        collector.setId(new ObjectId("111ca42a258ad365fbb64ecc"));
+
+        when(gitHubRepoRepository.findEnabledGitHubRepos(collector.getId())).thenReturn(getEnabledRepos());
+        when(gitHubSettings.isCollectChangedReposOnly()).thenReturn(true);
+        when(gitHubSettings.getShardMode()).thenReturn("hash");
+        when(repoSharding.ownedRepos(anyList())).thenReturn(new ArrayList<>());
+
+        task.collect(collector);
+
+        //the shared event cursor is neither read nor moved
+        Mockito.verify(gitHubClient, never()).getChangedRepos(anyLong(), anyLong());
+        Mockito.verify(repoSharding).ownedRepos(anyList());
+
+        //only the orphaned repo changed, and only its enabled flag is written
+        Mockito.verify(gitHubRepoRepository, never()).saveAll(any());
+        Mockito.verify(gitHubBulkRepository).updateRepoFields(
+                Collections.singletonMap(repo2.getId(), Collections.singletonMap("enabled", false)));
+    }
+
     @Test
     public void collect_testCollect_with_Threshold_0() throws MalformedURLException, HygieiaException {
         when(dbComponentRepository.findAll()).thenReturn(components());
@@ -208,12 +247,11 @@ public class GitHubCollectorTaskTest {
 
         when(gitHubSettings.getErrorThreshold()).thenReturn(0);
 
-        when(gitHubClient.getCommits()).thenReturn(getCommits());
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenReturn(collectionResult(getCommits(), new ArrayList<>()));
 
-        when(commitRepository.findByCollectorItemIdAndScmRevisionNumber(
-                repo1.getId(), "1")).thenReturn(null);
+        when(gitHubBulkRepository.findExistingRevisions(repo1.getId(), Collections.singleton("1"))).thenReturn(new HashSet<>());
         when(gitHubClient.isUnderRateLimit()).thenReturn(true);
-        when(commitRepository.countCommitsByCollectorItemId(repo1.getId())).thenReturn(1L);
 //        when(gitHubClient.getChangedRepos(anyLong(), anyLong())).thenReturn(makeChangeRepoResponse(getEnabledRepos()));
 
         task.collect(collector);
@@ -227,7 +265,7 @@ public class GitHubCollectorTaskTest {
         assertEquals(true, repo1.isEnabled());
 
         //verify that save is called once for the commit item
-        Mockito.verify(commitRepository, times(1)).save(commit);
+        Mockito.verify(gitHubBulkRepository, times(1)).insertCommits(Collections.singletonList(commit), 0);
     }
 
     @Test
@@ -247,15 +285,13 @@ public class GitHubCollectorTaskTest {
 
         when(gitHubSettings.getErrorThreshold()).thenReturn(1);
 
-        when(gitHubClient.getCommits()).thenReturn(getCommits());
-        when(gitHubClient.getIssues()).thenReturn(getGitRequests());
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenReturn(collectionResult(getCommits(), getGitRequests()));
 //  Need to correct - Topo - 7/31      when(gitHubClient.getPulls(repo1, "close",true)).thenReturn(getGitRequests());
 
-        when(commitRepository.findByCollectorItemIdAndScmRevisionNumber(
-                repo1.getId(), "1")).thenReturn(null);
+        when(gitHubBulkRepository.findExistingRevisions(repo1.getId(), Collections.singleton("1"))).thenReturn(new HashSet<>());
 
         when(gitHubClient.isUnderRateLimit()).thenReturn(true);
-        when(commitRepository.countCommitsByCollectorItemId(repo1.getId())).thenReturn(1L);
 //        when(gitHubClient.getChangedRepos(anyLong(), anyLong())).thenReturn(makeChangeRepoResponse(getEnabledRepos()));
 
         task.collect(collector);
@@ -269,7 +305,7 @@ public class GitHubCollectorTaskTest {
         assertEquals(true, repo1.isEnabled());
 
         //verify that save is called once for the commit item
-        Mockito.verify(commitRepository, times(1)).save(commit);
+        Mockito.verify(gitHubBulkRepository, times(1)).insertCommits(Collections.singletonList(commit), 0);
     }
 
     @Test
@@ -289,13 +325,12 @@ public class GitHubCollectorTaskTest {
 
         when(gitHubSettings.getErrorThreshold()).thenReturn(1);
 
-        when(gitHubClient.getCommits()).thenReturn(getCommits());
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenReturn(collectionResult(getCommits(), new ArrayList<>()));
 
-        when(commitRepository.findByCollectorItemIdAndScmRevisionNumber(
-                repo1.getId(), "1")).thenReturn(null);
+        when(gitHubBulkRepository.findExistingRevisions(repo1.getId(), Collections.singleton("1"))).thenReturn(new HashSet<>());
 
         when(gitHubClient.isUnderRateLimit()).thenReturn(true);
-        when(commitRepository.countCommitsByCollectorItemId(repo1.getId())).thenReturn(1L);
 //        when(gitHubClient.getChangedRepos(anyLong(), anyLong())).thenReturn(makeChangeRepoResponse(getEnabledReposWithErrorCount1()));
 
         task.collect(collector);
@@ -309,7 +344,7 @@ public class GitHubCollectorTaskTest {
         assertEquals(true, repo1.isEnabled());
 
         //verify that save is called once for the commit item
-        Mockito.verify(commitRepository, times(1)).save(commit);
+        Mockito.verify(gitHubBulkRepository, times(1)).insertCommits(Collections.singletonList(commit), 0);
     }
 
     @Test
@@ -334,7 +369,8 @@ public class GitHubCollectorTaskTest {
 
         when(gitHubClient.isUnderRateLimit()).thenReturn(true);
         GitHubRepo repo = Mockito.mock(GitHubRepo.class);
-        doThrow(hc).when(gitHubClient).fireGraphQL(any(GitHubRepo.class), anyBoolean(), anyMap(), anyMap(),anyInt());
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        doThrow(hc).when(gitHubClient).fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt());
 //        when(gitHubClient.getChangedRepos(anyLong(), anyLong())).thenReturn(makeChangeRepoResponse(getEnabledRepos()));
 
         long startTime = System.currentTimeMillis();
@@ -346,6 +382,142 @@ public class GitHubCollectorTaskTest {
         assertTrue("Should have a wait time of 1000ms.", duration > 1000);
     }
 
+    @Test
+    public void collect_testCollectProcess_parallelRepos() throws MalformedURLException, HygieiaException {
+        GitHubCollector collector = new GitHubCollector();
+        collector.setId(new ObjectId("111ca42a258ad365fbb64ecc"));
+
+        List<GitHubRepo> repos = getGitHubs();
+        repos.forEach(r -> r.setBranch("master"));
+
+        when(gitHubSettings.getRepoConcurrency()).thenReturn(2);
+        when(gitHubSettings.getErrorThreshold()).thenReturn(1);
+        when(gitHubClient.isUnderRateLimit()).thenReturn(true);
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenAnswer(invocation -> collectionResult(getCommits(), new ArrayList<>()));
+        when(gitHubBulkRepository.insertCommits(anyList(), anyInt())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        task.collectProcess(collector, repos);
+
+        //both repos are saved and their counts summed across the workers
+        Mockito.verify(gitHubRepoRepository, times(1)).save(repo1);
+        Mockito.verify(gitHubRepoRepository, times(1)).save(repo2);
+        assertEquals(4, collector.getLastExecutionRecordCount());
+    }
+
+    @Test
+    public void collect_testCollectProcess_virtualThreads() throws MalformedURLException, HygieiaException {
+        GitHubCollector collector = new GitHubCollector();
+        collector.setId(new ObjectId("111ca42a258ad365fbb64ecc"));
+
+        List<GitHubRepo> repos = getGitHubs();
+        repos.forEach(r -> r.setBranch("master"));
+
+        // runs on virtual threads where the JVM has them, on a pool of repoConcurrency threads otherwise
+        when(gitHubSettings.isVirtualThreads()).thenReturn(true);
+        when(gitHubSettings.getRepoConcurrency()).thenReturn(2);
+        when(gitHubSettings.getErrorThreshold()).thenReturn(1);
+        when(gitHubClient.isUnderRateLimit()).thenReturn(true);
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenAnswer(invocation -> collectionResult(getCommits(), new ArrayList<>()));
+        when(gitHubBulkRepository.insertCommits(anyList(), anyInt())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        task.collectProcess(collector, repos);
+
+        Mockito.verify(gitHubRepoRepository, times(1)).save(repo1);
+        Mockito.verify(gitHubRepoRepository, times(1)).save(repo2);
+        assertEquals(4, collector.getLastExecutionRecordCount());
+    }
+
+    @Test
+    public void collect_testCollectProcess_workQueue() throws MalformedURLException, HygieiaException {
+        GitHubCollector collector = new GitHubCollector();
+        collector.setId(new ObjectId("111ca42a258ad365fbb64ecc"));
+
+        List<GitHubRepo> repos = getGitHubs();
+        repos.forEach(r -> r.setBranch("master"));
+        RepoJob job1 = new RepoJob(repo1.getId(), "me", RepoWorkQueue.PRIORITY_REFRESH, 0, 1);
+        RepoJob job2 = new RepoJob(repo2.getId(), "me", RepoWorkQueue.PRIORITY_REFRESH, 0, 1);
+
+        when(gitHubSettings.isWorkQueue()).thenReturn(true);
+        when(gitHubSettings.getErrorThreshold()).thenReturn(1);
+        when(gitHubClient.isUnderRateLimit()).thenReturn(true);
+        when(repoWorkQueue.claim(any())).thenReturn(job1, job2, null);
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(eq(repo1), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenReturn(collectionResult(getCommits(), new ArrayList<>()));
+        when(gitHubClient.fireGraphQL(eq(repo2), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenThrow(new RestClientException("down"));
+
+        task.collectProcess(collector, repos);
+
+        // a refresh queues its repos ahead of everything and works on those only
+        Mockito.verify(repoWorkQueue).enqueue(eq(repos), eq(RepoWorkQueue.PRIORITY_REFRESH), anyLong());
+        Mockito.verify(repoWorkQueue, times(3)).claim(new HashSet<>(Arrays.asList(repo1.getId(), repo2.getId())));
+        Mockito.verify(repoWorkQueue).complete(job1);
+        Mockito.verify(repoWorkQueue).fail(eq(job2), startsWith("EXCEPTION"));
+        Mockito.verify(gitHubRepoRepository, times(1)).save(repo1);
+        Mockito.verify(gitHubRepoRepository, times(1)).save(repo2);
+    }
+
+    @Test
+    public void collect_testCollectProcess_workQueueCompletesRemovedRepo() throws MalformedURLException, HygieiaException {
+        GitHubCollector collector = new GitHubCollector();
+        collector.setId(new ObjectId("111ca42a258ad365fbb64ecc"));
+
+        List<GitHubRepo> repos = getGitHubs();
+        repos.forEach(r -> r.setBranch("master"));
+        RepoJob job1 = new RepoJob(repo1.getId(), "me", RepoWorkQueue.PRIORITY_REFRESH, 0, 1);
+        RepoJob job2 = new RepoJob(repo2.getId(), "me", RepoWorkQueue.PRIORITY_REFRESH, 0, 1);
+
+        when(gitHubSettings.isWorkQueue()).thenReturn(true);
+        when(gitHubSettings.getErrorThreshold()).thenReturn(1);
+        when(gitHubClient.isUnderRateLimit()).thenReturn(true, false);
+        long resetAt = System.currentTimeMillis() + 600000;
+        when(gitHubClient.getRateLimitResetTime()).thenReturn(resetAt);
+        when(repoWorkQueue.claim(any())).thenReturn(job1, job2, null);
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(eq(repo1), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt()))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        task.collectProcess(collector, repos);
+
+        // the 404 deleted the repo, there is nothing to retry; the rate limited one waits for the reset without
+        // spending an attempt, and the worker stops claiming
+        Mockito.verify(gitHubRepoRepository).deleteById(repo1.getId());
+        Mockito.verify(repoWorkQueue).complete(job1);
+        Mockito.verify(repoWorkQueue).postpone(eq(job2), eq(resetAt), startsWith("SKIPPED, rateLimit"));
+        Mockito.verify(repoWorkQueue, never()).fail(any(RepoJob.class), anyString());
+        Mockito.verify(repoWorkQueue, times(2)).claim(any());
+    }
+
+    @Test
+    public void collect_testCollectProcess_virtualThreadsKeepRepoConcurrency() throws MalformedURLException, HygieiaException {
+        GitHubCollector collector = new GitHubCollector();
+        collector.setId(new ObjectId("111ca42a258ad365fbb64ecc"));
+
+        List<GitHubRepo> repos = getGitHubs();
+        repos.forEach(r -> r.setBranch("master"));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        when(gitHubSettings.isVirtualThreads()).thenReturn(true);
+        when(gitHubSettings.getRepoConcurrency()).thenReturn(1);
+        when(gitHubSettings.getErrorThreshold()).thenReturn(1);
+        when(gitHubClient.isUnderRateLimit()).thenReturn(true);
+        when(gitHubBulkRepository.findExistingRequests(any(ObjectId.class), anyString())).thenReturn(ExistingRequestIndex.empty());
+        when(gitHubClient.fireGraphQL(any(GitHubRepo.class), anyBoolean(), any(ExistingRequestIndex.class), any(ExistingRequestIndex.class), anyInt())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return collectionResult(new ArrayList<>(), new ArrayList<>());
+        });
+
+        task.collectProcess(collector, repos);
+
+        Mockito.verify(gitHubRepoRepository, times(1)).save(repo1);
+        Mockito.verify(gitHubRepoRepository, times(1)).save(repo2);
+        assertEquals(1, maxRunning.get());
+    }
+
     @Test
     public void testReposToCollectAll() throws MalformedURLException, HygieiaException {
         Set<GitHubParsed> repoSet = new HashSet<>();
@@ -425,6 +597,10 @@ public class GitHubCollectorTaskTest {
         commits.add(commit);
         return commits;
     }
+    private static RepoCollectionResult collectionResult(List<Commit> commits, List<GitRequest> issues) {
+        return new RepoCollectionResult(commits, new ArrayList<>(), issues, new GitHubRateLimit(), 0);
+    }
+
     private ArrayList<GitRequest> getGitRequests() {
         ArrayList<GitRequest> gitRequests = new ArrayList<>();
         gitRequest = new GitRequest();
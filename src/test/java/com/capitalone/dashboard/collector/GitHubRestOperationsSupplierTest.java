@@ -0,0 +1,159 @@
+package com.capitalone.dashboard.collector;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GitHubRestOperationsSupplierTest {
+    private static final String BODY = "{\"data\":{\"repository\":{\"name\":\"Hygieia\"}}}";
+
+    private HttpServer server;
+    private String url;
+    private final AtomicReference<String> receivedBody = new AtomicReference<>();
+    private final AtomicReference<String> receivedEncoding = new AtomicReference<>();
+    private GitHubRestOperationsSupplier supplier;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            receivedEncoding.set(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            InputStream in = exchange.getRequestBody();
+            if ("gzip".equals(receivedEncoding.get())) in = new GZIPInputStream(in);
+            receivedBody.set(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                body = gzip(body);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/moved", exchange -> {
+            exchange.getResponseHeaders().set("Location", "/graphql");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/graphql";
+    }
+
+    @AfterEach
+    public void stopServer() {
+        if (supplier != null) supplier.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void pooledClientInflatesGzipAndKeepsConnection() {
+        supplier = new GitHubRestOperationsSupplier(settings(false));
+
+        ResponseEntity<String> response = supplier.get().exchange(url, HttpMethod.GET, null, String.class);
+        supplier.get().exchange(url, HttpMethod.GET, null, String.class);
+
+        assertEquals(BODY, response.getBody());
+        HttpClientMetrics metrics = supplier.metrics();
+        assertEquals(2, metrics.getRequests());
+        assertEquals(0, metrics.getInFlight());
+        assertEquals(0, metrics.getFailures());
+        assertEquals(0, metrics.getLeased());
+        assertEquals(1, metrics.getAvailable());
+        assertEquals(8, metrics.getMaxConnections());
+        assertEquals(4, metrics.getMaxConnectionsPerRoute());
+        assertEquals(1, metrics.getRoutes());
+    }
+
+    @Test
+    public void gzipsRequestBodiesWhenEnabled() {
+        GitHubSettings settings = settings(false);
+        settings.setHttpGzipRequests(true);
+        supplier = new GitHubRestOperationsSupplier(settings);
+
+        supplier.get().exchange(url, HttpMethod.POST, new HttpEntity<>("{\"query\":\"{ viewer { login } }\"}"), String.class);
+
+        assertEquals("gzip", receivedEncoding.get());
+        assertEquals("{\"query\":\"{ viewer { login } }\"}", receivedBody.get());
+    }
+
+    @Test
+    public void jdkClientPostsAndInflatesGzip() {
+        supplier = new GitHubRestOperationsSupplier(settings(true));
+
+        ResponseEntity<String> response = supplier.get().exchange(url, HttpMethod.POST, new HttpEntity<>("{\"query\":\"q\"}"), String.class);
+
+        assertEquals(BODY, response.getBody());
+        assertEquals("{\"query\":\"q\"}", receivedBody.get());
+        HttpClientMetrics metrics = supplier.metrics();
+        assertTrue(metrics.getClient().startsWith("jdk"));
+        assertEquals(1, metrics.getRequests());
+        assertEquals(-1, metrics.getLeased());
+    }
+
+    @Test
+    public void bothClientsFollowRedirectedGets() {
+        for (boolean http2 : new boolean[]{false, true}) {
+            supplier = new GitHubRestOperationsSupplier(settings(http2));
+
+            ResponseEntity<String> response = supplier.get().exchange(url.replace("/graphql", "/moved"), HttpMethod.GET, null, String.class);
+
+            assertEquals(BODY, response.getBody());
+            supplier.close();
+            supplier = null;
+        }
+    }
+
+    @Test
+    public void keepAliveFollowsShorterServerTimeout() {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        assertEquals(60000, GitHubRestOperationsSupplier.keepAliveStrategy(60000).getKeepAliveDuration(response, new BasicHttpContext()));
+
+        response.setHeader("Keep-Alive", "timeout=5, max=100");
+        assertEquals(5000, GitHubRestOperationsSupplier.keepAliveStrategy(60000).getKeepAliveDuration(response, new BasicHttpContext()));
+        assertEquals(2000, GitHubRestOperationsSupplier.keepAliveStrategy(2000).getKeepAliveDuration(response, new BasicHttpContext()));
+    }
+
+    private static GitHubSettings settings(boolean http2) {
+        GitHubSettings settings = new GitHubSettings();
+        settings.setHttpMaxConnections(8);
+        settings.setHttpMaxConnectionsPerRoute(4);
+        settings.setHttpKeepAliveMillis(60000);
+        settings.setHttpGzip(true);
+        settings.setHttp2(http2);
+        return settings;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            new ByteArrayInputStream(body).transferTo(gzip);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,51 @@
+package com.capitalone.dashboard.collector;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GitHubTimestampsTest {
+
+    @Test
+    public void matchesJodaForUtcTimestamps() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // 1900 .. 2100
+            long millis = (random.nextLong() % 3_155_760_000L) * 1000L;
+            String text = new DateTime(millis, DateTimeZone.UTC).toString("yyyy-MM-dd'T'HH:mm:ss'Z'");
+            assertEquals(text, new DateTime(text).getMillis(), GitHubTimestamps.parseUtc(text));
+        }
+    }
+
+    @Test
+    public void leapDays() {
+        assertEquals(new DateTime("2020-02-29T23:59:59Z").getMillis(), GitHubTimestamps.toEpochMillis("2020-02-29T23:59:59Z"));
+        assertEquals(new DateTime("2000-02-29T00:00:00Z").getMillis(), GitHubTimestamps.toEpochMillis("2000-02-29T00:00:00Z"));
+        assertEquals(Long.MIN_VALUE, GitHubTimestamps.parseUtc("1900-02-29T00:00:00Z"));
+    }
+
+    @Test
+    public void otherFormsFallBackToJoda() {
+        assertEquals(new DateTime("2021-01-26T14:17:48.123Z").getMillis(), GitHubTimestamps.toEpochMillis("2021-01-26T14:17:48.123Z"));
+        assertEquals(new DateTime("2021-01-26T14:17:48+02:00").getMillis(), GitHubTimestamps.toEpochMillis("2021-01-26T14:17:48+02:00"));
+        assertEquals(new DateTime("2021-01-26").getMillis(), GitHubTimestamps.toEpochMillis("2021-01-26"));
+        assertEquals(Long.MIN_VALUE, GitHubTimestamps.parseUtc("2021-01-26T14:17:48+02:00"));
+    }
+
+    @Test
+    public void emptyIsZero() {
+        assertEquals(0, GitHubTimestamps.toEpochMillis(null));
+        assertEquals(0, GitHubTimestamps.toEpochMillis(""));
+    }
+
+    @Test
+    public void invalidDatesStillFail() {
+        assertThrows(IllegalArgumentException.class, () -> GitHubTimestamps.toEpochMillis("2021-02-30T00:00:00Z"));
+        assertThrows(IllegalArgumentException.class, () -> GitHubTimestamps.toEpochMillis("2021-0a-01T00:00:00Z"));
+    }
+}
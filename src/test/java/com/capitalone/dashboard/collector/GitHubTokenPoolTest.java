@@ -0,0 +1,96 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.GitHubRateLimit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GitHubTokenPoolTest {
+    private static final long NOW = 1_600_000_000_000L;
+
+    private static GitHubTokenPool pool(String token, String... tokens) {
+        GitHubSettings settings = new GitHubSettings();
+        settings.setPersonalAccessToken(token);
+        settings.setPersonalAccessTokens(Arrays.asList(tokens));
+        return new GitHubTokenPool(settings, () -> new RateLimitScheduler(true, 10, 100, () -> NOW, millis -> { }));
+    }
+
+    private static void budget(GitHubTokenPool.Token token, long remaining, long resetMillis) {
+        GitHubRateLimit rateLimit = new GitHubRateLimit();
+        rateLimit.setLimit(5000);
+        rateLimit.setRemaining(remaining);
+        rateLimit.setResetTime(resetMillis / 1000L);
+        token.getRateLimits().update(RateLimitScheduler.Api.GRAPHQL, rateLimit);
+    }
+
+    @Test
+    public void poolsSettingsTokens() {
+        GitHubTokenPool pool = pool("a", "b", "a", " ", "c");
+        assertEquals(3, pool.size());
+    }
+
+    @Test
+    public void withoutTokensKeepsSettingsToken() {
+        GitHubTokenPool pool = pool(null);
+        assertEquals(1, pool.size());
+        assertNull(pool.select(RateLimitScheduler.Api.REST).getValue());
+    }
+
+    @Test
+    public void selectsTokenWithMostBudget() {
+        GitHubTokenPool pool = pool("a", "b", "c");
+        GitHubTokenPool.Token a = pool.select(RateLimitScheduler.Api.GRAPHQL);
+        GitHubTokenPool.Token b = pool.select(RateLimitScheduler.Api.GRAPHQL);
+        GitHubTokenPool.Token c = pool.select(RateLimitScheduler.Api.GRAPHQL);
+        // unknown budgets take turns
+        assertEquals(3, new HashSet<>(Arrays.asList(a, b, c)).size());
+
+        budget(a, 100, NOW + 60_000);
+        budget(b, 4000, NOW + 60_000);
+        budget(c, 2000, NOW + 60_000);
+        for (int i = 0; i < 3; i++) {
+            assertSame(b, pool.select(RateLimitScheduler.Api.GRAPHQL));
+        }
+        // the REST budget is tracked apart
+        assertEquals(3, new HashSet<>(Arrays.asList(pool.select(RateLimitScheduler.Api.REST),
+                pool.select(RateLimitScheduler.Api.REST), pool.select(RateLimitScheduler.Api.REST))).size());
+    }
+
+    @Test
+    public void exhaustedPoolWaitsOnEarliestReset() {
+        GitHubTokenPool pool = pool("a", "b");
+        GitHubTokenPool.Token first = pool.select(RateLimitScheduler.Api.GRAPHQL);
+        GitHubTokenPool.Token second = pool.select(RateLimitScheduler.Api.GRAPHQL);
+        budget(first, 0, NOW + 600_000);
+        budget(second, 5, NOW + 60_000);
+
+        assertSame(second, pool.select(RateLimitScheduler.Api.GRAPHQL));
+        assertNull(pool.failover(RateLimitScheduler.Api.GRAPHQL, Collections.emptyList()));
+    }
+
+    @Test
+    public void failoverSkipsTriedTokens() {
+        GitHubTokenPool pool = pool("a", "b");
+        GitHubTokenPool.Token first = pool.select(RateLimitScheduler.Api.GRAPHQL);
+        Set<GitHubTokenPool.Token> tried = new HashSet<>(Collections.singleton(first));
+
+        GitHubTokenPool.Token next = pool.failover(RateLimitScheduler.Api.GRAPHQL, tried);
+        tried.add(next);
+        assertEquals(2, tried.size());
+        assertNull(pool.failover(RateLimitScheduler.Api.GRAPHQL, tried));
+    }
+
+    @Test
+    public void repoCredentialsKeepTheirOwnBudget() {
+        GitHubTokenPool pool = pool("a");
+        assertSame(pool.forCredential("repo-token"), pool.forCredential("repo-token"));
+        assertEquals(1, pool.size());
+    }
+}
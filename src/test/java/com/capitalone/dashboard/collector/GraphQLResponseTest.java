@@ -0,0 +1,57 @@
+package com.capitalone.dashboard.collector;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GraphQLResponseTest {
+
+    @Test
+    public void decodesDataIntoJsonSimpleTypes() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(DefaultGitHubClient.X_RATE_LIMIT_LIMIT, "5000");
+        headers.add(DefaultGitHubClient.X_RATE_LIMIT_REMAINING, "4990");
+        headers.add(DefaultGitHubClient.X_RATE_LIMIT_RESET, "1611673668");
+        String body = "{\"data\": {\"repository\": {\"pullRequests\": {\"totalCount\": 2, "
+                + "\"pageInfo\": {\"hasNextPage\": false}, \"edges\": [{\"node\": {\"number\": 7}}]}}}}";
+
+        GraphQLResponse<JSONObject> response = GraphQLResponse.of(new ResponseEntity<>(body, headers, HttpStatus.OK));
+
+        assertFalse(response.hasErrors());
+        JSONObject pullRequests = (JSONObject) ((JSONObject) response.getData().get("repository")).get("pullRequests");
+        assertEquals(2L, pullRequests.get("totalCount"));
+        assertEquals(Boolean.FALSE, ((JSONObject) pullRequests.get("pageInfo")).get("hasNextPage"));
+        JSONArray edges = (JSONArray) pullRequests.get("edges");
+        assertEquals(7L, ((JSONObject) ((JSONObject) edges.get(0)).get("node")).get("number"));
+        assertEquals(4990, response.getRateLimit().getRemaining());
+        assertEquals(1611673668L, response.getRateLimit().getResetTime());
+    }
+
+    @Test
+    public void exposesErrors() {
+        String body = "{\"data\": null, \"errors\": [{\"type\": \"NOT_FOUND\", \"message\": \"Could not resolve\"}]}";
+
+        GraphQLResponse<JSONObject> response = GraphQLResponse.of(new ResponseEntity<>(body, HttpStatus.OK));
+
+        assertTrue(response.hasErrors());
+        assertEquals("NOT_FOUND", ((JSONObject) response.getErrors().get(0)).get("type"));
+        assertNull(response.getData());
+        assertNull(response.getRateLimit());
+    }
+
+    @Test
+    public void emptyBodyHasNoData() {
+        GraphQLResponse<JSONObject> response = GraphQLResponse.of(new ResponseEntity<>("", HttpStatus.OK));
+
+        assertNull(response.getData());
+        assertFalse(response.hasErrors());
+    }
+}
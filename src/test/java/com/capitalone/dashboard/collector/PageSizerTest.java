@@ -0,0 +1,94 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PageSizerTest {
+
+    private static PageSizer sizer(int initialSize) {
+        return new PageSizer(true, initialSize, 5, 100, 4000, 20);
+    }
+
+    @Test
+    public void shrinksOnBadGatewayAndSlowPages() {
+        PageSizer sizer = sizer(80);
+        assertTrue(sizer.onBadGateway());
+        assertEquals(40, sizer.size());
+
+        sizer.onPage(1000, 5);
+        assertEquals(40, sizer.size());
+
+        sizer.onPage(6000, 5);
+        assertEquals(30, sizer.size());
+
+        for (int i = 0; i < 10; i++) {
+            sizer.onBadGateway();
+        }
+        assertEquals(5, sizer.size());
+        assertFalse(sizer.onBadGateway());
+    }
+
+    @Test
+    public void growsWhileFastAndCheap() {
+        PageSizer sizer = sizer(40);
+        sizer.onPage(500, 5);
+        assertEquals(50, sizer.size());
+        // 50 -> 62 would cost about 12
+        sizer.onPage(500, 10);
+        assertEquals(62, sizer.size());
+        // 62 -> 77 would cost about 22, over the target
+        sizer.onPage(500, 18);
+        assertEquals(62, sizer.size());
+        // in between the latency bounds the size holds
+        sizer.onPage(3000, 1);
+        assertEquals(62, sizer.size());
+    }
+
+    @Test
+    public void neverAsksForMoreThanGitHubAllows() {
+        PageSizer sizer = new PageSizer(true, 500, 5, 1000, 4000, 0);
+        assertEquals(PageSizer.MAX_PAGE_SIZE, sizer.size());
+        sizer.onPage(10, 0);
+        assertEquals(PageSizer.MAX_PAGE_SIZE, sizer.size());
+    }
+
+    @Test
+    public void startsFromLearnedSize() {
+        GitHubSettings settings = new GitHubSettings();
+        settings.setFetchCount(50);
+        settings.setAdaptivePageSize(true);
+        settings.setMinPageSize(5);
+        settings.setMaxPageSize(100);
+        GitHubRepo repo = new GitHubRepo();
+        assertEquals(50, PageSizer.forRepo(settings, repo).size());
+
+        repo.getOptions().put(PageSizer.PAGE_SIZE, 30);
+        PageSizer sizer = PageSizer.forRepo(settings, repo);
+        assertEquals(30, sizer.size());
+        sizer.onBadGateway();
+        sizer.store(repo);
+        assertEquals(15, repo.getOptions().get(PageSizer.PAGE_SIZE));
+    }
+
+    @Test
+    public void fixedSizeWhenNotAdaptive() {
+        GitHubSettings settings = new GitHubSettings();
+        settings.setFetchCount(50);
+        GitHubRepo repo = new GitHubRepo();
+        repo.getOptions().put(PageSizer.PAGE_SIZE, 30);
+        PageSizer sizer = PageSizer.forRepo(settings, repo);
+
+        assertFalse(sizer.onBadGateway());
+        sizer.onPage(60000, 100);
+        assertEquals(50, sizer.size());
+
+        GitHubRepo other = new GitHubRepo();
+        sizer.store(other);
+        assertNull(other.getOptions().get(PageSizer.PAGE_SIZE));
+    }
+}
@@ -0,0 +1,113 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.GitHubRateLimit;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimitSchedulerTest {
+    private static final long NOW = 1_600_000_000_000L;
+
+    private long now = NOW;
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private RateLimitScheduler scheduler(int reserve, int burst) {
+        return new RateLimitScheduler(true, reserve, burst, () -> now, millis -> {
+            sleeps.add(millis);
+            now += millis;
+        });
+    }
+
+    private static GitHubRateLimit rateLimit(long limit, long remaining, long resetMillis) {
+        GitHubRateLimit rateLimit = new GitHubRateLimit();
+        rateLimit.setLimit(limit);
+        rateLimit.setRemaining(remaining);
+        rateLimit.setResetTime(resetMillis / 1000L);
+        return rateLimit;
+    }
+
+    @Test
+    public void unknownBudgetDoesNotWait() {
+        RateLimitScheduler scheduler = scheduler(10, 1);
+        for (int i = 0; i < 100; i++) {
+            scheduler.acquire(RateLimitScheduler.Api.GRAPHQL);
+        }
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    public void burstThenSpreadUntilReset() {
+        RateLimitScheduler scheduler = scheduler(10, 5);
+        // 100 calls left above the reserve, 100 seconds to the reset: one call per second after the burst
+        scheduler.update(RateLimitScheduler.Api.GRAPHQL, rateLimit(5000, 110, NOW + 100_000));
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.acquire(RateLimitScheduler.Api.GRAPHQL);
+        }
+        assertTrue(sleeps.isEmpty());
+
+        scheduler.acquire(RateLimitScheduler.Api.GRAPHQL);
+        scheduler.acquire(RateLimitScheduler.Api.GRAPHQL);
+        assertEquals(2, sleeps.size());
+        // about a second each; the spacing is recomputed from what is left as calls go out
+        assertTrue(sleeps.get(0) > 800 && sleeps.get(0) <= 1100);
+        assertTrue(sleeps.get(1) > 800 && sleeps.get(1) <= 1100);
+        assertEquals(103, scheduler.snapshot(RateLimitScheduler.Api.GRAPHQL).getRemaining());
+    }
+
+    @Test
+    public void exhaustedBudgetWaitsForReset() {
+        RateLimitScheduler scheduler = scheduler(10, 100);
+        scheduler.update(RateLimitScheduler.Api.GRAPHQL, rateLimit(5000, 10, NOW + 30_000));
+
+        scheduler.acquire(RateLimitScheduler.Api.GRAPHQL);
+
+        assertEquals(1, sleeps.size());
+        assertEquals(30_000L, (long) sleeps.get(0));
+        assertEquals(4999, scheduler.snapshot(RateLimitScheduler.Api.GRAPHQL).getRemaining());
+    }
+
+    @Test
+    public void bucketsAreSeparate() {
+        RateLimitScheduler scheduler = scheduler(0, 100);
+        scheduler.update(RateLimitScheduler.Api.REST, rateLimit(60, 0, NOW + 60_000));
+        scheduler.update(RateLimitScheduler.Api.GRAPHQL, rateLimit(5000, 5000, NOW + 60_000));
+
+        scheduler.acquire(RateLimitScheduler.Api.GRAPHQL);
+        assertTrue(sleeps.isEmpty());
+
+        scheduler.acquire(RateLimitScheduler.Api.REST);
+        assertEquals(60_000L, (long) sleeps.get(0));
+    }
+
+    @Test
+    public void disabledNeverWaits() {
+        RateLimitScheduler scheduler = new RateLimitScheduler(false, 10, 1, () -> now, sleeps::add);
+        scheduler.update(RateLimitScheduler.Api.GRAPHQL, rateLimit(5000, 0, NOW + 60_000));
+        scheduler.acquire(RateLimitScheduler.Api.GRAPHQL);
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    public void rateLimitFromHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(DefaultGitHubClient.X_RATE_LIMIT_LIMIT, "5000");
+        headers.add(DefaultGitHubClient.X_RATE_LIMIT_REMAINING, "4321");
+        assertNull(RateLimitScheduler.rateLimit(headers));
+
+        headers.add(DefaultGitHubClient.X_RATE_LIMIT_RESET, "1600000060");
+        RateLimitScheduler scheduler = scheduler(0, 1);
+        scheduler.update(RateLimitScheduler.Api.REST, headers);
+
+        GitHubRateLimit rateLimit = scheduler.snapshot(RateLimitScheduler.Api.REST);
+        assertEquals(5000, rateLimit.getLimit());
+        assertEquals(4321, rateLimit.getRemaining());
+        assertEquals(1600000060L, rateLimit.getResetTime());
+    }
+}
@@ -0,0 +1,64 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class RepoPrioritySchedulerTest {
+    private static final long NOW = TimeUnit.DAYS.toMillis(1000);
+    private static final long HALF_LIFE = TimeUnit.HOURS.toMillis(72);
+
+    private static RepoPriorityScheduler scheduler() {
+        GitHubSettings settings = new GitHubSettings();
+        settings.setHotRepoScore(20);
+        settings.setDormantRepoScore(1);
+        settings.setHotRepoIntervalMinutes(5);
+        settings.setWarmRepoIntervalMinutes(60);
+        settings.setDormantRepoIntervalMinutes(1440);
+        settings.setArchivedRepoIntervalMinutes(10080);
+        settings.setActivityHalfLifeHours(72);
+        return new RepoPriorityScheduler(settings);
+    }
+
+    private static GitHubRepo repo(String url, double activity, int dashboards, boolean archived, long minutesAgo) {
+        GitHubRepo repo = new GitHubRepo();
+        repo.setRepoUrl(url);
+        repo.setLastUpdated(NOW - TimeUnit.MINUTES.toMillis(minutesAgo));
+        new RepoActivity().add(activity, NOW, HALF_LIFE).setDashboards(dashboards).setArchived(archived).store(repo);
+        return repo;
+    }
+
+    @Test
+    public void activityDecaysByHalfLife() {
+        GitHubRepo repo = repo("busy", 40, 0, false, 0);
+        RepoActivity activity = RepoActivity.of(repo);
+
+        assertEquals(20, activity.score(NOW + HALF_LIFE, HALF_LIFE), 0.001);
+        assertEquals(RepoPriorityScheduler.Tier.HOT, scheduler().tier(activity, NOW));
+        assertEquals(RepoPriorityScheduler.Tier.WARM, scheduler().tier(activity, NOW + 2 * HALF_LIFE));
+        assertEquals(RepoPriorityScheduler.Tier.DORMANT, scheduler().tier(activity, NOW + 6 * HALF_LIFE));
+    }
+
+    @Test
+    public void collectsDueReposBusiestFirst() {
+        GitHubRepo hot = repo("hot", 30, 1, false, 10);
+        GitHubRepo hotOnMoreDashboards = repo("hot-dashboards", 30, 3, false, 10);
+        GitHubRepo hotJustCollected = repo("hot-fresh", 30, 1, false, 2);
+        GitHubRepo warm = repo("warm", 5, 1, false, 90);
+        GitHubRepo warmNotDue = repo("warm-fresh", 5, 1, false, 30);
+        GitHubRepo dormant = repo("dormant", 0, 1, false, 120);
+        GitHubRepo archived = repo("archived", 30, 1, true, 2000);
+        GitHubRepo neverCollected = repo("new", 0, 0, false, 0);
+        neverCollected.setLastUpdated(0);
+
+        List<GitHubRepo> due = scheduler().dueRepos(Arrays.asList(dormant, warm, warmNotDue, hot, hotJustCollected,
+                archived, hotOnMoreDashboards, neverCollected), NOW);
+
+        assertEquals(Arrays.asList(hotOnMoreDashboards, hot, warm, neverCollected), due);
+    }
+}
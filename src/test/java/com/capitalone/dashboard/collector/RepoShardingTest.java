@@ -0,0 +1,48 @@
+package com.capitalone.dashboard.collector;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RepoShardingTest {
+
+    @Test
+    public void deadInstanceSliceMovesAndOthersStay() {
+        TreeMap<Long, String> three = RepoSharding.ring(Arrays.asList("a", "b", "c"));
+        TreeMap<Long, String> two = RepoSharding.ring(Arrays.asList("a", "b"));
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            keys.add(new ObjectId().toHexString());
+        }
+
+        Map<String, Integer> slices = new HashMap<>();
+        for (String key : keys) {
+            String owner = RepoSharding.owner(three, key);
+            slices.merge(owner, 1, Integer::sum);
+            // only c's repos change hands when c drops off
+            if (!"c".equals(owner)) assertEquals(owner, RepoSharding.owner(two, key));
+        }
+        for (int slice : slices.values()) {
+            assertTrue("uneven slice " + slices, slice > 700 && slice < 1300);
+        }
+        assertNull(RepoSharding.owner(new TreeMap<>(), keys.get(0)));
+    }
+
+    @Test
+    public void modeParsing() {
+        assertEquals(RepoSharding.Mode.NONE, RepoSharding.Mode.of(null));
+        assertEquals(RepoSharding.Mode.HASH, RepoSharding.Mode.of("hash"));
+        assertEquals(RepoSharding.Mode.LEASE, RepoSharding.Mode.of(" Lease "));
+        assertEquals(RepoSharding.Mode.NONE, RepoSharding.Mode.of("bogus"));
+    }
+}
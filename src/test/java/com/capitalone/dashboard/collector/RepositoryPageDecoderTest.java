@@ -0,0 +1,134 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.Comment;
+import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.GitRequest;
+import com.google.common.io.Resources;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RepositoryPageDecoderTest {
+
+    @Test
+    public void decodesRepositoryPage() throws Exception {
+        String body = IOUtils.toString(Resources.getResource("graphql/repository-page.json"), StandardCharsets.UTF_8);
+
+        RepositoryPage page = GraphQLResponse.of(new ResponseEntity<>(body, HttpStatus.OK), RepositoryPageDecoder.INSTANCE).getData();
+
+        GraphQLConnection<PullRequestNode> pulls = page.getPullRequests();
+        assertEquals(2, pulls.getTotalCount());
+        assertFalse(pulls.hasNextPage());
+        assertEquals(2, pulls.getNodes().size());
+        PullRequestNode merged = pulls.getNodes().get(0);
+        assertEquals("42", merged.getPull().getNumber());
+        assertEquals("MERGED", merged.getPull().getState());
+        assertTrue(merged.isMerged());
+        assertEquals("9a8b7c6d5e4f30219a8b7c6d5e4f30219a8b7c6d", merged.getMergeCommitSha());
+        assertEquals("http://mygithub.com/user/repo", merged.getHeadRepositoryUrl());
+        assertEquals(55L, merged.getPull().getCountFilesChanged() + merged.getPull().getLineAdditions() + merged.getPull().getLineDeletions());
+        assertEquals(2, merged.getCommits().getTotalCount());
+        PullRequestNode.PullRequestCommit prCommit = merged.getCommits().getNodes().get(0);
+        assertEquals("first dev", prCommit.getCommit().getScmAuthorName());
+        assertEquals("ci/build", prCommit.getStatuses().get(0).getContext());
+        assertNull(merged.getCommits().getNodes().get(1).getStatuses());
+        assertEquals(1, merged.getMergeEvents().size());
+        assertEquals("42", merged.getMergeEvents().get(0).getGitRequestNumber());
+        assertEquals("second-dev", merged.getMergeEvents().get(0).getMergeAuthor());
+        assertEquals("second-dev", merged.getComments().getNodes().get(0).getUser());
+        assertEquals("APPROVED", merged.getReviews().getNodes().get(0).getState());
+
+        PullRequestNode open = pulls.getNodes().get(1);
+        assertFalse(open.isMerged());
+        assertEquals("", open.getMergeCommitSha());
+        assertEquals("", open.getComments().getEndCursor());
+        assertEquals(0, open.getCommits().getNodes().size());
+
+        GraphQLConnection<GitRequest> issues = page.getIssues();
+        assertEquals(2, issues.getNodes().size());
+        GitRequest closed = issues.getNodes().get(0);
+        assertEquals("40", closed.getNumber());
+        assertEquals("CLOSED", closed.getState());
+        assertEquals("second-dev", closed.getUserId());
+        assertEquals(1611651600000L, closed.getUpdatedAt());
+        assertEquals("", issues.getNodes().get(1).getUserId());
+
+        GraphQLConnection<Commit> commits = page.getCommits();
+        assertEquals("9a8b7c6d5e4f30219a8b7c6d5e4f30219a8b7c6d 2", commits.getEndCursor());
+        assertEquals(3, commits.getNodes().size());
+        Commit merge = commits.getNodes().get(0);
+        assertEquals("9a8b7c6d5e4f30219a8b7c6d5e4f30219a8b7c6d", merge.getScmRevisionNumber());
+        assertEquals(55, merge.getNumberOfChanges());
+        assertEquals("Second Dev", merge.getScmAuthor());
+        assertEquals("second-dev", merge.getScmAuthorLogin());
+        assertEquals(1611670667000L, merge.getScmCommitTimestamp());
+        assertEquals(Arrays.asList("1f2e3d4c5b6a79881f2e3d4c5b6a79881f2e3d4c", "bbbb2222bbbb2222bbbb2222bbbb2222bbbb2222"), merge.getScmParentRevisionNumbers());
+
+        Commit noUser = commits.getNodes().get(1);
+        assertEquals("unknown", noUser.getScmAuthorLogin());
+        assertNull(noUser.getScmAuthorName());
+
+        Commit first = commits.getNodes().get(2);
+        assertEquals("", first.getScmAuthorName());
+        assertEquals(Collections.emptyList(), first.getScmParentRevisionNumbers());
+    }
+
+    @Test
+    public void missingConnectionsAreNull() {
+        String body = "{\"data\": {\"repository\": {\"ref\": null, \"issues\": {\"totalCount\": 0, \"pageInfo\": {\"endCursor\": null, \"hasNextPage\": false}, \"edges\": []}}}}";
+
+        RepositoryPage page = GraphQLResponse.of(new ResponseEntity<>(body, HttpStatus.OK), RepositoryPageDecoder.INSTANCE).getData();
+
+        assertNull(page.getPullRequests());
+        assertNull(page.getCommits());
+        assertEquals("", page.getIssues().getEndCursor());
+        assertEquals(0, page.getIssues().getNodes().size());
+    }
+
+    @Test
+    public void stopsAtFirstEdgeWithoutNode() {
+        String body = "{\"data\": {\"repository\": {\"issues\": {\"edges\": [{\"node\": {\"number\": 3}}, {\"node\": null}, {\"node\": {\"number\": 1}}]}}}}";
+
+        RepositoryPage page = GraphQLResponse.of(new ResponseEntity<>(body, HttpStatus.OK), RepositoryPageDecoder.INSTANCE).getData();
+
+        assertEquals(1, page.getIssues().getNodes().size());
+        assertEquals("3", page.getIssues().getNodes().get(0).getNumber());
+    }
+
+    @Test
+    public void decodesFollowUpPullRequest() {
+        String body = "{\"data\": {\"repository\": {\"pullRequest\": {\"comments\": {\"totalCount\": 3, "
+                + "\"pageInfo\": {\"endCursor\": \"c2\", \"hasNextPage\": true}, "
+                + "\"nodes\": [{\"bodyText\": \"more\", \"author\": null, \"createdAt\": \"2021-01-25T11:00:00Z\"}, null]}}}}}";
+
+        RepositoryPage page = GraphQLResponse.of(new ResponseEntity<>(body, HttpStatus.OK), RepositoryPageDecoder.INSTANCE).getData();
+
+        GraphQLConnection<Comment> comments = page.getPullRequest().getComments();
+        assertEquals("c2", comments.getEndCursor());
+        assertTrue(comments.hasNextPage());
+        assertEquals(1, comments.getNodes().size());
+        assertEquals("more", comments.getNodes().get(0).getBody());
+        assertEquals("", comments.getNodes().get(0).getUser());
+        assertNull(page.getPullRequest().getReviews());
+    }
+
+    @Test
+    public void decodesQueryCost() {
+        String body = "{\"data\": {\"repository\": {\"ref\": null}, \"rateLimit\": {\"cost\": 7, \"remaining\": 4990}}}";
+
+        RepositoryPage page = GraphQLResponse.of(new ResponseEntity<>(body, HttpStatus.OK), RepositoryPageDecoder.INSTANCE).getData();
+
+        assertEquals(7, page.getQueryCost());
+        assertNull(page.getCommits());
+    }
+}
@@ -0,0 +1,88 @@
+package com.capitalone.dashboard.collector;
+
+import com.capitalone.dashboard.model.GitHubUserIdentity;
+import com.capitalone.dashboard.repository.GitHubUserIdentityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserIdentityCacheTest {
+
+    @Mock private GitHubUserIdentityRepository repository;
+
+    private GitHubSettings settings;
+    private final AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(1000));
+
+    @BeforeEach
+    public void init() {
+        settings = new GitHubSettings();
+        settings.setUserCacheSize(2);
+        settings.setUserCacheTtlMinutes(60);
+        settings.setUserCacheNegativeTtlMinutes(5);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        UserIdentityCache cache = new UserIdentityCache(settings, repository, now::get);
+        cache.put("a", "dn-a", "User");
+        cache.put("b", "dn-b", "User");
+        cache.get("a");
+        cache.put("c", "dn-c", "User");
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void expiresAfterTtl() {
+        UserIdentityCache cache = new UserIdentityCache(settings, repository, now::get);
+        cache.put("a", "dn-a", "User");
+        cache.putNotFound("gone");
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(10));
+        assertEquals("dn-a", cache.get("a").getLdapDN());
+        assertNull(cache.get("gone"));
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(50));
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.size());
+        UserCacheMetrics metrics = cache.metrics();
+        assertEquals(1, metrics.getHits());
+        assertEquals(2, metrics.getMisses());
+        assertEquals(33, metrics.getHitRate());
+    }
+
+    @Test
+    public void persistsAndLoadsWhenEnabled() {
+        settings.setUserCachePersist(true);
+        when(repository.findFetchedSince(anyLong(), anyInt())).thenReturn(Collections.singletonList(
+                new GitHubUserIdentity("a", "dn-a", "User", true, now.get() - 1)));
+
+        UserIdentityCache cache = new UserIdentityCache(settings, repository, now::get);
+        assertEquals("dn-a", cache.get("a").getLdapDN());
+
+        cache.putNotFound("gone");
+        verify(repository).save(any(GitHubUserIdentity.class));
+    }
+}
@@ -0,0 +1,57 @@
+package com.capitalone.dashboard.model;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ExistingRequestIndexTest {
+
+	@Test
+	public void lookups() {
+		ObjectId first = new ObjectId();
+		ObjectId second = new ObjectId();
+		ObjectId other = new ObjectId();
+		ExistingRequestIndex index = ExistingRequestIndex.builder()
+				.add("12", 3000L, first)
+				.add("7", 1000L, second)
+				.add("12", 5000L, new ObjectId())
+				.add("abc", 2000L, other)
+				.build();
+
+		assertTrue(index.containsUpdate(1000L, "7"));
+		assertFalse(index.containsUpdate(1000L, "12"));
+		assertFalse(index.containsUpdate(4000L, "12"));
+		assertTrue(index.containsUpdate(2000L, "abc"));
+
+		assertEquals(first, index.findId("12"));
+		assertEquals(second, index.findId("7"));
+		assertEquals(other, index.findId("abc"));
+		assertNull(index.findId("8"));
+		assertNull(index.findId("012"));
+		assertTrue(index.contains("7"));
+		assertFalse(index.contains(null));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void firstRowWinsForSameUpdatedAt() {
+		ExistingRequestIndex index = ExistingRequestIndex.builder()
+				.add("1", 1000L, new ObjectId())
+				.add("2", 1000L, new ObjectId())
+				.build();
+
+		assertTrue(index.containsUpdate(1000L, "1"));
+		assertFalse(index.containsUpdate(1000L, "2"));
+	}
+
+	@Test
+	public void empty() {
+		assertTrue(ExistingRequestIndex.empty().isEmpty());
+		assertFalse(ExistingRequestIndex.empty().containsUpdate(0L, "1"));
+		assertNull(ExistingRequestIndex.empty().findId("1"));
+	}
+}
@@ -9,6 +9,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.net.MalformedURLException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(MockitoExtension.class)
@@ -146,4 +148,29 @@ public class GitHubParsedTest {
 		assertEquals("https://github.mycompany.com/api/graphql", gitHubParsed.getGraphQLUrl());
 		assertEquals("https://github.mycompany.com/myorg/myrepo", gitHubParsed.getUrl());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void ofReturnsSharedInstance() throws MalformedURLException, HygieiaException {
+		GitHubParsed first = GitHubParsed.of("https://github.com/shared/repo");
+		assertSame(first, GitHubParsed.of("https://github.com/shared/repo"));
+		assertEquals("shared", first.getOrgName());
+		assertNotSame(first, new GitHubParsed("https://github.com/shared/repo"));
+	}
+
+	@Test
+	public void redirectInvalidatesCachedUrls() throws MalformedURLException, HygieiaException {
+		GitHubParsed cached = GitHubParsed.of("https://github.com/old/repo");
+		GitHubParsed redirected = new GitHubParsed("https://github.com/old/repo");
+		redirected.updateForRedirect("https://github.com/new/repo");
+
+		assertEquals("new", redirected.getOrgName());
+		assertNotSame(cached, GitHubParsed.of("https://github.com/old/repo"));
+		assertEquals("old", GitHubParsed.of("https://github.com/old/repo").getOrgName());
+	}
+
+	@Test
+	public void ofDoesNotCacheBadUrls() {
+		assertThrows(HygieiaException.class, () -> GitHubParsed.of("https://github.com/norepo"));
+		assertThrows(HygieiaException.class, () -> GitHubParsed.of("https://github.com/norepo"));
+	}
+}
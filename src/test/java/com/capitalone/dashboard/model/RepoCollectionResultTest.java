@@ -0,0 +1,47 @@
+package com.capitalone.dashboard.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RepoCollectionResultTest {
+
+	@Test
+	public void listsCannotBeChanged() {
+		RepoCollectionResult result = new RepoCollectionResult(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), null, 0);
+		assertThrows(UnsupportedOperationException.class, () -> result.getCommits().add(new Commit()));
+		assertThrows(UnsupportedOperationException.class, () -> result.getPulls().add(new GitRequest()));
+		assertThrows(UnsupportedOperationException.class, () -> result.getIssues().add(new GitRequest()));
+	}
+
+	@Test
+	public void listsAreCopied() {
+		List<Commit> commits = new ArrayList<>();
+		commits.add(new Commit());
+		RepoCollectionResult result = new RepoCollectionResult(commits, new ArrayList<>(), new ArrayList<>(), null, 0);
+
+		commits.clear();
+
+		assertEquals(1, result.getCommits().size());
+	}
+
+	@Test
+	public void rateLimitIsSnapshot() {
+		GitHubRateLimit rateLimit = new GitHubRateLimit();
+		rateLimit.setLimit(5000);
+		rateLimit.setRemaining(4000);
+		List<Commit> commits = new ArrayList<>();
+		RepoCollectionResult result = new RepoCollectionResult(commits, new ArrayList<>(), new ArrayList<>(), rateLimit, 10L);
+
+		rateLimit.setRemaining(1);
+		result.getRateLimit().setRemaining(2);
+
+		assertEquals(4000, result.getRateLimit().getRemaining());
+		assertEquals(5000, result.getRateLimit().getLimit());
+		assertEquals(10L, result.getRepoOffsetTime());
+	}
+}
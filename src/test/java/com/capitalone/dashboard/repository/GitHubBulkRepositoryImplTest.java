@@ -0,0 +1,151 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.Commit;
+import com.capitalone.dashboard.model.ExistingRequestIndex;
+import com.capitalone.dashboard.model.GitRequest;
+import com.capitalone.dashboard.model.webhook.github.GitHubRepo;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GitHubBulkRepositoryImplTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate template;
+    private GitHubBulkRepositoryImpl bulkRepository;
+
+    @BeforeEach
+    public void init() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ':' + address.getPort());
+        template = new MongoTemplate(client, "dashboarddb");
+        bulkRepository = new GitHubBulkRepositoryImpl(template);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void insertCommitsInBatches() {
+        ObjectId collectorItemId = new ObjectId();
+        List<Commit> commits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            commits.add(makeCommit(collectorItemId, "sha" + i));
+        }
+
+        assertEquals(5, bulkRepository.insertCommits(commits, 2));
+        assertEquals(5, template.count(new Query(), Commit.class));
+    }
+
+    @Test
+    public void findExistingRevisions() {
+        ObjectId collectorItemId = new ObjectId();
+        ObjectId otherItemId = new ObjectId();
+        bulkRepository.insertCommits(Arrays.asList(makeCommit(collectorItemId, "a"), makeCommit(collectorItemId, "b"),
+                makeCommit(otherItemId, "c")), 10);
+
+        Set<String> existing = bulkRepository.findExistingRevisions(collectorItemId, Arrays.asList("a", "c", "d"));
+
+        assertEquals(new HashSet<>(Arrays.asList("a")), existing);
+        assertTrue(bulkRepository.findExistingRevisions(collectorItemId, new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    public void upsertGitRequests() {
+        ObjectId collectorItemId = new ObjectId();
+        GitRequest stored = makeRequest(collectorItemId, "1", "old title");
+        template.save(stored);
+
+        GitRequest changed = makeRequest(collectorItemId, "1", "new title");
+        changed.setId(stored.getId());
+        GitRequest added = makeRequest(collectorItemId, "2", "another");
+
+        assertEquals(2, bulkRepository.upsertGitRequests(Arrays.asList(changed, added), 1));
+        assertEquals(2, template.count(new Query(), GitRequest.class));
+        assertEquals("new title", template.findById(stored.getId(), GitRequest.class).getScmCommitLog());
+    }
+
+    @Test
+    public void findExistingRequests() {
+        ObjectId collectorItemId = new ObjectId();
+        GitRequest pull = makeRequest(collectorItemId, "5", "pull");
+        pull.setUpdatedAt(1000L);
+        GitRequest issue = makeRequest(collectorItemId, "6", "issue");
+        issue.setRequestType("issue");
+        issue.setUpdatedAt(2000L);
+        GitRequest otherRepo = makeRequest(new ObjectId(), "7", "pull");
+        template.save(pull);
+        template.save(issue);
+        template.save(otherRepo);
+
+        ExistingRequestIndex pulls = bulkRepository.findExistingRequests(collectorItemId, "pull");
+
+        assertEquals(1, pulls.size());
+        assertEquals(pull.getId(), pulls.findId("5"));
+        assertTrue(pulls.containsUpdate(1000L, "5"));
+        assertFalse(pulls.contains("6"));
+        assertFalse(pulls.contains("7"));
+    }
+
+    @Test
+    public void updateRepoFields() {
+        GitHubRepo stored = new GitHubRepo();
+        stored.setEnabled(true);
+        stored.setRepoUrl("https://github.com/org/repo");
+        template.save(stored);
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("enabled", false);
+        fields.put("options.activity.dashboards", 3);
+
+        assertEquals(1, bulkRepository.updateRepoFields(Collections.singletonMap(stored.getId(), fields)));
+        GitHubRepo updated = template.findById(stored.getId(), GitHubRepo.class);
+        assertFalse(updated.isEnabled());
+        assertEquals("https://github.com/org/repo", updated.getRepoUrl());
+        assertEquals(3, ((Map<?, ?>) updated.getOptions().get("activity")).get("dashboards"));
+        assertEquals(0, bulkRepository.updateRepoFields(new HashMap<>()));
+    }
+
+    private static GitRequest makeRequest(ObjectId collectorItemId, String number, String title) {
+        GitRequest request = new GitRequest();
+        request.setCollectorItemId(collectorItemId);
+        request.setNumber(number);
+        request.setRequestType("pull");
+        request.setScmCommitLog(title);
+        return request;
+    }
+
+    private static Commit makeCommit(ObjectId collectorItemId, String sha) {
+        Commit commit = new Commit();
+        commit.setCollectorItemId(collectorItemId);
+        commit.setScmRevisionNumber(sha);
+        commit.setScmCommitTimestamp(System.currentTimeMillis());
+        return commit;
+    }
+}
@@ -0,0 +1,129 @@
+package com.capitalone.dashboard.repository;
+
+import com.capitalone.dashboard.model.RepoJob;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GitHubRepoJobRepositoryImplTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate template;
+    private GitHubRepoJobRepositoryImpl jobRepository;
+
+    @BeforeEach
+    public void init() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ':' + address.getPort());
+        template = new MongoTemplate(client, "dashboarddb");
+        jobRepository = new GitHubRepoJobRepositoryImpl(template);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void overlappingEnqueuesKeepOneJob() {
+        ObjectId repoId = new ObjectId();
+
+        jobRepository.enqueue(Collections.singletonList(repoId), 1, 1000, 1000);
+        jobRepository.enqueue(Collections.singletonList(repoId), 5, 2000, 1500);
+
+        assertEquals(1, template.count(new Query(), GitHubRepoJobRepositoryImpl.JOBS));
+        Document job = template.findOne(new Query(), Document.class, GitHubRepoJobRepositoryImpl.JOBS);
+        assertEquals(5, job.getInteger("priority").intValue());
+        assertEquals(1000L, job.getLong("notBefore").longValue());
+    }
+
+    @Test
+    public void claimsByPriorityOnceAndOnlyWhenDue() {
+        ObjectId low = new ObjectId();
+        ObjectId high = new ObjectId();
+        ObjectId later = new ObjectId();
+        jobRepository.enqueue(Collections.singletonList(low), 1, 1000, 1000);
+        jobRepository.enqueue(Collections.singletonList(high), 5, 1000, 1000);
+        jobRepository.enqueue(Collections.singletonList(later), 9, 5000, 1000);
+
+        RepoJob first = jobRepository.claim("a", 2000, 9000, null);
+        RepoJob second = jobRepository.claim("b", 2000, 9000, null);
+
+        assertEquals(high, first.getCollectorItemId());
+        assertEquals(1, first.getAttempts());
+        assertEquals(low, second.getCollectorItemId());
+        assertNull(jobRepository.claim("b", 2000, 9000, null));
+        // the only job left is not among these
+        assertNull(jobRepository.claim("b", 6000, 9000, Arrays.asList(low, high)));
+    }
+
+    @Test
+    public void deadWorkerJobIsReclaimedAndRetriesBackOff() {
+        ObjectId repoId = new ObjectId();
+        jobRepository.enqueue(Collections.singletonList(repoId), 1, 1000, 1000);
+
+        RepoJob lost = jobRepository.claim("a", 1000, 2000, null);
+        assertTrue(jobRepository.heartbeat(lost, 2500));
+        assertNull(jobRepository.claim("b", 2400, 3400, null));
+        // a stopped heartbeating
+        RepoJob taken = jobRepository.claim("b", 2600, 3600, null);
+        assertEquals(2, taken.getAttempts());
+        assertFalse(jobRepository.heartbeat(lost, 4000));
+
+        jobRepository.retry(taken, 5000, "EXCEPTION");
+        assertNull(jobRepository.claim("b", 4000, 5000, null));
+        RepoJob retried = jobRepository.claim("b", 5000, 6000, null);
+        assertEquals(3, retried.getAttempts());
+
+        jobRepository.drop(retried);
+        assertEquals(0, template.count(new Query(), GitHubRepoJobRepositoryImpl.JOBS));
+    }
+
+    @Test
+    public void postponedJobKeepsItsAttempts() {
+        ObjectId repoId = new ObjectId();
+        jobRepository.enqueue(Collections.singletonList(repoId), 1, 1000, 1000);
+
+        RepoJob limited = jobRepository.claim("a", 1000, 2000, null);
+        jobRepository.postpone(limited, 5000, "SKIPPED, rateLimit exceeded");
+        assertNull(jobRepository.claim("b", 4000, 5000, null));
+        RepoJob again = jobRepository.claim("b", 5000, 6000, null);
+        assertEquals(1, again.getAttempts());
+    }
+
+    @Test
+    public void jobEnqueuedWhileRunningRunsAgain() {
+        ObjectId repoId = new ObjectId();
+        jobRepository.enqueue(Collections.singletonList(repoId), 1, 1000, 1000);
+        RepoJob running = jobRepository.claim("a", 1000, 9000, null);
+
+        jobRepository.enqueue(Collections.singletonList(repoId), 1, 1500, 1500);
+        assertNull(jobRepository.claim("b", 1600, 9000, null));
+        jobRepository.complete(running);
+
+        RepoJob again = jobRepository.claim("b", 1700, 9000, null);
+        assertEquals(1, again.getAttempts());
+        jobRepository.complete(again);
+        assertEquals(0, template.count(new Query(), GitHubRepoJobRepositoryImpl.JOBS));
+    }
+}
@@ -0,0 +1,66 @@
+package com.capitalone.dashboard.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GitHubShardRepositoryImplTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private GitHubShardRepositoryImpl shardRepository;
+
+    @BeforeEach
+    public void init() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ':' + address.getPort());
+        shardRepository = new GitHubShardRepositoryImpl(new MongoTemplate(client, "dashboarddb"));
+    }
+
+    @AfterEach
+    public void shutdown() {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void heartbeatListsLiveInstances() {
+        assertEquals(Collections.singletonList("b"), shardRepository.heartbeat("b", 1000, 2000));
+        assertEquals(Arrays.asList("a", "b"), shardRepository.heartbeat("a", 1500, 2500));
+        // b stopped heartbeating and expired
+        assertEquals(Collections.singletonList("a"), shardRepository.heartbeat("a", 2100, 3100));
+    }
+
+    @Test
+    public void leaseGoesToOneOwnerUntilReleasedOrExpired() {
+        ObjectId repoId = new ObjectId();
+
+        assertTrue(shardRepository.claim(repoId, "a", 1000, 2000));
+        assertFalse(shardRepository.claim(repoId, "b", 1500, 2500));
+        // the owner renews
+        assertTrue(shardRepository.claim(repoId, "a", 1500, 3000));
+        assertFalse(shardRepository.claim(repoId, "b", 2500, 3500));
+        // a died, its lease runs out
+        assertTrue(shardRepository.claim(repoId, "b", 3100, 4000));
+
+        shardRepository.release(repoId, "a");
+        assertFalse(shardRepository.claim(repoId, "a", 3200, 4200));
+        shardRepository.release(repoId, "b");
+        assertTrue(shardRepository.claim(repoId, "a", 3200, 4200));
+    }
+}